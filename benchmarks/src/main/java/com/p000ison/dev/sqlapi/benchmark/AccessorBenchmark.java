@@ -0,0 +1,77 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 11:50
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.Column;
+import com.p000ison.dev.sqlapi.TableObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading and writing the values of all columns of a row, without the database
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark extends DatabaseBenchmark {
+
+    private Column[] columnArray;
+    private BenchmarkRow row;
+    private Object[] values;
+
+    @Override
+    protected void prepare() {
+        List<Column> registered = database.getRegisteredTable(table).getRegisteredColumns();
+        columnArray = registered.toArray(new Column[registered.size()]);
+        row = stored.get(0);
+        values = new Object[columnArray.length];
+        for (int i = 0; i < columnArray.length; i++) {
+            values[i] = columnArray[i].getValue(row);
+        }
+    }
+
+    @Benchmark
+    public void getValues(Blackhole blackhole) {
+        TableObject object = row;
+        for (Column column : columnArray) {
+            blackhole.consume(column.getValue(object));
+        }
+    }
+
+    @Benchmark
+    public TableObject setValues() {
+        TableObject object = row;
+        for (int i = 0; i < columnArray.length; i++) {
+            columnArray[i].setValue(object, values[i]);
+        }
+        return object;
+    }
+}
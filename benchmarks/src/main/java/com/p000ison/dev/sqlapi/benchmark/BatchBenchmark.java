@@ -0,0 +1,75 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the batch paths, one operation is one row of a batch of {@value #BATCH_SIZE} rows
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark extends DatabaseBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            database.addInsertBatch(newRow());
+        }
+        database.executeInsertBatch(table);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void updateBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            BenchmarkRow row = nextStoredRow();
+            row.fill(nextSeed());
+            database.addUpdateBatch(row);
+        }
+        database.executeUpdateBatch(table);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void upsertBatch() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            BenchmarkRow row = nextStoredRow();
+            row.fill(nextSeed());
+            database.addUpsertBatch(row);
+        }
+        database.executeUpsertBatch(table);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.TableObject;
+
+/**
+ * A row of a benchmark table. The subclasses declare the columns, since only the declared fields of a class are columns.
+ */
+public abstract class BenchmarkRow implements TableObject {
+
+    /**
+     * Sets all columns to values derived from the seed
+     *
+     * @param seed The seed
+     */
+    public abstract void fill(int seed);
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
+import com.p000ison.dev.sqlapi.codec.FieldCodec;
+import com.p000ison.dev.sqlapi.codec.SerializationCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks converting a serializable value of a blob column to bytes and back, without the database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    /**
+     * The java serialization or the fields, which are the default of serializable columns
+     */
+    @Param({"serialization", "fields"})
+    public String codec;
+
+    private BinaryCodec binaryCodec;
+    private Payload payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        binaryCodec = "fields".equals(codec) ? new FieldCodec() : new SerializationCodec();
+        payload = new Payload(42);
+        encoded = binaryCodec.encode(payload, Payload.class);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return binaryCodec.encode(payload, Payload.class);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return binaryCodec.decode(encoded, Payload.class);
+    }
+}
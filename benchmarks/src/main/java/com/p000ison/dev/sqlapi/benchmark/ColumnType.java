@@ -0,0 +1,53 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+/**
+ * The type of the columns of a benchmark table
+ */
+public enum ColumnType {
+    PRIMITIVE(Rows.PrimitiveRow4.class, Rows.PrimitiveRow16.class),
+    STRING(Rows.StringRow4.class, Rows.StringRow16.class),
+    BLOB(Rows.BlobRow4.class, Rows.BlobRow16.class);
+
+    private final Class<? extends BenchmarkRow> narrow, wide;
+
+    private ColumnType(Class<? extends BenchmarkRow> narrow, Class<? extends BenchmarkRow> wide) {
+        this.narrow = narrow;
+        this.wide = wide;
+    }
+
+    /**
+     * Gets the table with this column type
+     *
+     * @param columns The amount of columns, 4 or 16
+     * @return The class of the table
+     */
+    public Class<? extends BenchmarkRow> getTable(int columns) {
+        switch (columns) {
+            case 4:
+                return narrow;
+            case 16:
+                return wide;
+            default:
+                throw new IllegalArgumentException("There is no table with " + columns + " columns!");
+        }
+    }
+}
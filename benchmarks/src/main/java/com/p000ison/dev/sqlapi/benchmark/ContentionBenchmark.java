@@ -0,0 +1,151 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 15:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks threads which save and select at the same time, to measure how much they wait on each other.
+ * <p/>
+ * The group "mixed" saves and selects on one table. The group "tables" saves to two tables of the same database and the
+ * group "databases" to the same table in two databases, so writers which do not share a table can be compared.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentionBenchmark extends DatabaseBenchmark {
+
+    /**
+     * Every thread prepares its own query, since a prepared query holds its parameters
+     */
+    @State(Scope.Thread)
+    public static class Query {
+        private PreparedSelectQuery<BenchmarkRow> selectById;
+        private int next;
+
+        PreparedSelectQuery<BenchmarkRow> get(DatabaseBenchmark benchmark) {
+            if (selectById == null) {
+                selectById = benchmark.database.<BenchmarkRow>select().from(benchmark.table).where().preparedEquals("id").select().prepare();
+            }
+            selectById.set(0, next++ % benchmark.rows + 1);
+            return selectById;
+        }
+    }
+
+    /**
+     * The table with the other number of columns, in the database of the benchmark
+     */
+    private List<BenchmarkRow> otherTableRows;
+    private Database otherDatabase;
+    private File otherFile;
+    private List<BenchmarkRow> otherDatabaseRows;
+
+    @Override
+    protected void prepare() {
+        otherTableRows = fill(database, columnType.getTable(columns == 4 ? 16 : 4));
+
+        if (!"memory".equals(storage)) {
+            try {
+                otherFile = File.createTempFile("sqlapi-benchmark", ".db");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            otherFile.delete();
+        }
+        otherDatabase = openDatabase(otherFile);
+        otherDatabaseRows = fill(otherDatabase, table);
+    }
+
+    @Override
+    protected void cleanUp() {
+        otherDatabase.close();
+        if (otherFile != null) {
+            otherFile.delete();
+        }
+    }
+
+    private BenchmarkRow save(Database database, List<BenchmarkRow> rows) {
+        BenchmarkRow row = nextStoredRow(rows);
+        row.fill(nextSeed());
+        database.save(row);
+        return row;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public BenchmarkRow save() {
+        return save(database, stored);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public List<BenchmarkRow> select(Query query) {
+        return query.get(this).getResults();
+    }
+
+    @Benchmark
+    @Group("tables")
+    @GroupThreads(2)
+    public BenchmarkRow saveTable() {
+        return save(database, stored);
+    }
+
+    @Benchmark
+    @Group("tables")
+    @GroupThreads(2)
+    public BenchmarkRow saveOtherTable() {
+        return save(database, otherTableRows);
+    }
+
+    @Benchmark
+    @Group("databases")
+    @GroupThreads(2)
+    public BenchmarkRow saveDatabase() {
+        return save(database, stored);
+    }
+
+    @Benchmark
+    @Group("databases")
+    @GroupThreads(2)
+    public BenchmarkRow saveOtherDatabase() {
+        return save(otherDatabase, otherDatabaseRows);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 11:50
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+import com.p000ison.dev.sqlapi.query.QueryCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks saving, deleting and selecting single rows and whole tables
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudBenchmark extends DatabaseBenchmark {
+
+    private PreparedSelectQuery<BenchmarkRow> selectAll;
+    private PreparedSelectQuery<BenchmarkRow> selectById;
+
+    @Override
+    protected void prepare() {
+        selectAll = database.<BenchmarkRow>select().from(table).prepare();
+        selectById = database.<BenchmarkRow>select().from(table).where().preparedEquals("id").select().prepare();
+    }
+
+    /**
+     * Database.save with a new row, which gets inserted
+     */
+    @Benchmark
+    public BenchmarkRow saveInsert() {
+        BenchmarkRow row = newRow();
+        database.save(row);
+        return row;
+    }
+
+    /**
+     * Database.save with a stored row, which gets updated
+     */
+    @Benchmark
+    public BenchmarkRow saveUpdate() {
+        BenchmarkRow row = nextStoredRow();
+        row.fill(nextSeed());
+        database.save(row);
+        return row;
+    }
+
+    /**
+     * Inserts and deletes a row, so the table does not grow
+     */
+    @Benchmark
+    public BenchmarkRow insertAndDelete() {
+        BenchmarkRow row = newRow();
+        database.insert(row);
+        database.delete(row);
+        return row;
+    }
+
+    /**
+     * Builds the sql of a select query and prepares it
+     */
+    @Benchmark
+    public PreparedSelectQuery<BenchmarkRow> prepareSelect() {
+        return database.<BenchmarkRow>select().from(table).where().equals("id", 1).select().prepare();
+    }
+
+    /**
+     * Reads one row by its id with a prepared query
+     */
+    @Benchmark
+    public List<BenchmarkRow> selectById() {
+        selectById.set(0, (nextSeed() & Integer.MAX_VALUE) % rows + 1);
+        return selectById.getResults();
+    }
+
+    /**
+     * Reads all rows into a list with PreparedSelectQuery.getResults
+     */
+    @Benchmark
+    public List<BenchmarkRow> selectAll() {
+        return selectAll.getResults();
+    }
+
+    /**
+     * Reads all rows one by one with a cursor
+     */
+    @Benchmark
+    public void selectAllCursor(Blackhole blackhole) {
+        QueryCursor<BenchmarkRow> cursor = selectAll.getCursor();
+        try {
+            while (cursor.hasNext()) {
+                blackhole.consume(cursor.next());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
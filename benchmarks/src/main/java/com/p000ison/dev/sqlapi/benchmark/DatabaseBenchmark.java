@@ -0,0 +1,171 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 15:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The base of all benchmarks. Creates a SQLite database with one table and fills it with rows.
+ */
+@State(Scope.Benchmark)
+public abstract class DatabaseBenchmark {
+
+    /**
+     * Whether the database is stored in a file or only kept in memory
+     */
+    @Param({"file", "memory"})
+    public String storage;
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    @Param({"4", "16"})
+    public int columns;
+
+    @Param({"PRIMITIVE", "STRING", "BLOB"})
+    public ColumnType columnType;
+
+    protected Database database;
+    protected Class<BenchmarkRow> table;
+    /**
+     * The rows which were inserted by the setup, their ids go from 1 to {@link #rows}
+     */
+    protected List<BenchmarkRow> stored;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private File file;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUpDatabase() throws IOException {
+        if (!"memory".equals(storage)) {
+            file = File.createTempFile("sqlapi-benchmark", ".db");
+            file.delete();
+        }
+
+        database = openDatabase(file);
+        table = (Class<BenchmarkRow>) columnType.getTable(columns);
+        stored = fill(database, table);
+        prepare();
+    }
+
+    /**
+     * Opens a database like the one of the benchmark
+     *
+     * @param file The file of the database or null to keep it in memory
+     * @return The database
+     */
+    protected final Database openDatabase(File file) {
+        return new SQLiteDatabase(file == null ? new SQLiteConfiguration() : new SQLiteConfiguration(file));
+    }
+
+    /**
+     * Registers a table and inserts {@link #rows} rows
+     *
+     * @param database The database
+     * @param table    The table
+     * @return The inserted rows, their ids go from 1 to {@link #rows}
+     */
+    protected final List<BenchmarkRow> fill(Database database, Class<? extends BenchmarkRow> table) {
+        database.registerTable(table);
+
+        List<BenchmarkRow> rows = new ArrayList<BenchmarkRow>(this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            BenchmarkRow row = newRow(table);
+            database.addInsertBatch(row);
+            rows.add(row);
+        }
+        database.executeInsertBatch(table);
+        return rows;
+    }
+
+    /**
+     * Called after the database was filled. JMH does not run the setup of a subclass after the one of this class, so
+     * benchmarks prepare their state here.
+     */
+    protected void prepare() {
+    }
+
+    /**
+     * Called before the database is closed, benchmarks release their state here
+     */
+    protected void cleanUp() {
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownDatabase() {
+        cleanUp();
+        database.close();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Creates a new row, which is not stored yet
+     *
+     * @return The row
+     */
+    protected final BenchmarkRow newRow() {
+        return newRow(table);
+    }
+
+    private BenchmarkRow newRow(Class<? extends BenchmarkRow> table) {
+        try {
+            BenchmarkRow row = table.newInstance();
+            row.fill(nextSeed());
+            return row;
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets one of the stored rows, the benchmarks go through all rows
+     *
+     * @return A stored row
+     */
+    protected final BenchmarkRow nextStoredRow() {
+        return nextStoredRow(stored);
+    }
+
+    protected final BenchmarkRow nextStoredRow(List<BenchmarkRow> rows) {
+        return rows.get((nextSeed() & Integer.MAX_VALUE) % rows.size());
+    }
+
+    protected final int nextSeed() {
+        return sequence.getAndIncrement();
+    }
+}
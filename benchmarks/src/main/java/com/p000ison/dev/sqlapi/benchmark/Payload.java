@@ -0,0 +1,43 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import java.io.Serializable;
+
+/**
+ * A small serializable object, which is stored in a blob
+ */
+public class Payload implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int number;
+    private long time;
+    private String text;
+
+    public Payload() {
+    }
+
+    public Payload(int seed) {
+        this.number = seed;
+        this.time = seed * 31L;
+        this.text = "payload-" + seed;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi.benchmark;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+
+/**
+ * The tables of the benchmarks with 4 and 16 columns (without the id) of primitives, strings or serializable blobs
+ */
+public final class Rows {
+
+    private Rows() {
+    }
+
+    @DatabaseTable(name = "primitive_4")
+    public static class PrimitiveRow4 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public int c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public long c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public double c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public boolean c4;
+
+        @Override
+        public void fill(int seed) {
+            c1 = seed + 1;
+            c2 = seed * 2L;
+            c3 = seed / 3.0;
+            c4 = (seed + 4) % 2 == 0;
+        }
+    }
+
+    @DatabaseTable(name = "primitive_16")
+    public static class PrimitiveRow16 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public int c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public long c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public double c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public boolean c4;
+        @DatabaseColumn(position = 5, databaseName = "c5")
+        public int c5;
+        @DatabaseColumn(position = 6, databaseName = "c6")
+        public long c6;
+        @DatabaseColumn(position = 7, databaseName = "c7")
+        public double c7;
+        @DatabaseColumn(position = 8, databaseName = "c8")
+        public boolean c8;
+        @DatabaseColumn(position = 9, databaseName = "c9")
+        public int c9;
+        @DatabaseColumn(position = 10, databaseName = "c10")
+        public long c10;
+        @DatabaseColumn(position = 11, databaseName = "c11")
+        public double c11;
+        @DatabaseColumn(position = 12, databaseName = "c12")
+        public boolean c12;
+        @DatabaseColumn(position = 13, databaseName = "c13")
+        public int c13;
+        @DatabaseColumn(position = 14, databaseName = "c14")
+        public long c14;
+        @DatabaseColumn(position = 15, databaseName = "c15")
+        public double c15;
+        @DatabaseColumn(position = 16, databaseName = "c16")
+        public boolean c16;
+
+        @Override
+        public void fill(int seed) {
+            c1 = seed + 1;
+            c2 = seed * 2L;
+            c3 = seed / 3.0;
+            c4 = (seed + 4) % 2 == 0;
+            c5 = seed + 5;
+            c6 = seed * 6L;
+            c7 = seed / 7.0;
+            c8 = (seed + 8) % 2 == 0;
+            c9 = seed + 9;
+            c10 = seed * 10L;
+            c11 = seed / 11.0;
+            c12 = (seed + 12) % 2 == 0;
+            c13 = seed + 13;
+            c14 = seed * 14L;
+            c15 = seed / 15.0;
+            c16 = (seed + 16) % 2 == 0;
+        }
+    }
+
+    @DatabaseTable(name = "string_4")
+    public static class StringRow4 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public String c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public String c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public String c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public String c4;
+
+        @Override
+        public void fill(int seed) {
+            c1 = "value-" + seed + "-1";
+            c2 = "value-" + seed + "-2";
+            c3 = "value-" + seed + "-3";
+            c4 = "value-" + seed + "-4";
+        }
+    }
+
+    @DatabaseTable(name = "string_16")
+    public static class StringRow16 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public String c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public String c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public String c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public String c4;
+        @DatabaseColumn(position = 5, databaseName = "c5")
+        public String c5;
+        @DatabaseColumn(position = 6, databaseName = "c6")
+        public String c6;
+        @DatabaseColumn(position = 7, databaseName = "c7")
+        public String c7;
+        @DatabaseColumn(position = 8, databaseName = "c8")
+        public String c8;
+        @DatabaseColumn(position = 9, databaseName = "c9")
+        public String c9;
+        @DatabaseColumn(position = 10, databaseName = "c10")
+        public String c10;
+        @DatabaseColumn(position = 11, databaseName = "c11")
+        public String c11;
+        @DatabaseColumn(position = 12, databaseName = "c12")
+        public String c12;
+        @DatabaseColumn(position = 13, databaseName = "c13")
+        public String c13;
+        @DatabaseColumn(position = 14, databaseName = "c14")
+        public String c14;
+        @DatabaseColumn(position = 15, databaseName = "c15")
+        public String c15;
+        @DatabaseColumn(position = 16, databaseName = "c16")
+        public String c16;
+
+        @Override
+        public void fill(int seed) {
+            c1 = "value-" + seed + "-1";
+            c2 = "value-" + seed + "-2";
+            c3 = "value-" + seed + "-3";
+            c4 = "value-" + seed + "-4";
+            c5 = "value-" + seed + "-5";
+            c6 = "value-" + seed + "-6";
+            c7 = "value-" + seed + "-7";
+            c8 = "value-" + seed + "-8";
+            c9 = "value-" + seed + "-9";
+            c10 = "value-" + seed + "-10";
+            c11 = "value-" + seed + "-11";
+            c12 = "value-" + seed + "-12";
+            c13 = "value-" + seed + "-13";
+            c14 = "value-" + seed + "-14";
+            c15 = "value-" + seed + "-15";
+            c16 = "value-" + seed + "-16";
+        }
+    }
+
+    @DatabaseTable(name = "blob_4")
+    public static class BlobRow4 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public Payload c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public Payload c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public Payload c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public Payload c4;
+
+        @Override
+        public void fill(int seed) {
+            c1 = new Payload(seed + 1);
+            c2 = new Payload(seed + 2);
+            c3 = new Payload(seed + 3);
+            c4 = new Payload(seed + 4);
+        }
+    }
+
+    @DatabaseTable(name = "blob_16")
+    public static class BlobRow16 extends BenchmarkRow {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "c1")
+        public Payload c1;
+        @DatabaseColumn(position = 2, databaseName = "c2")
+        public Payload c2;
+        @DatabaseColumn(position = 3, databaseName = "c3")
+        public Payload c3;
+        @DatabaseColumn(position = 4, databaseName = "c4")
+        public Payload c4;
+        @DatabaseColumn(position = 5, databaseName = "c5")
+        public Payload c5;
+        @DatabaseColumn(position = 6, databaseName = "c6")
+        public Payload c6;
+        @DatabaseColumn(position = 7, databaseName = "c7")
+        public Payload c7;
+        @DatabaseColumn(position = 8, databaseName = "c8")
+        public Payload c8;
+        @DatabaseColumn(position = 9, databaseName = "c9")
+        public Payload c9;
+        @DatabaseColumn(position = 10, databaseName = "c10")
+        public Payload c10;
+        @DatabaseColumn(position = 11, databaseName = "c11")
+        public Payload c11;
+        @DatabaseColumn(position = 12, databaseName = "c12")
+        public Payload c12;
+        @DatabaseColumn(position = 13, databaseName = "c13")
+        public Payload c13;
+        @DatabaseColumn(position = 14, databaseName = "c14")
+        public Payload c14;
+        @DatabaseColumn(position = 15, databaseName = "c15")
+        public Payload c15;
+        @DatabaseColumn(position = 16, databaseName = "c16")
+        public Payload c16;
+
+        @Override
+        public void fill(int seed) {
+            c1 = new Payload(seed + 1);
+            c2 = new Payload(seed + 2);
+            c3 = new Payload(seed + 3);
+            c4 = new Payload(seed + 4);
+            c5 = new Payload(seed + 5);
+            c6 = new Payload(seed + 6);
+            c7 = new Payload(seed + 7);
+            c8 = new Payload(seed + 8);
+            c9 = new Payload(seed + 9);
+            c10 = new Payload(seed + 10);
+            c11 = new Payload(seed + 11);
+            c12 = new Payload(seed + 12);
+            c13 = new Payload(seed + 13);
+            c14 = new Payload(seed + 14);
+            c15 = new Payload(seed + 15);
+            c16 = new Payload(seed + 16);
+        }
+    }
+}
@@ -19,15 +19,33 @@
 
 package com.p000ison.dev.sqlapi;
 
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
+
 /**
  * This class represents a column. Known implementations are {@link FieldColumn} (Used to store {@link com.p000ison.dev.sqlapi.annotation.DatabaseColumn}s)
  * and {@link MethodColumn} (Used to store {@link com.p000ison.dev.sqlapi.annotation.DatabaseColumnSetter}s.
  */
 public abstract class Column {
 
+    private TypeCodec codec;
+
     protected Column() {
     }
 
+    /**
+     * Gets the codec which converts the values of this column from and to the database. It is set when the table gets registered.
+     *
+     * @return The codec of this column
+     */
+    public final TypeCodec getCodec() {
+        return codec;
+    }
+
+    final void setCodec(TypeCodec codec) {
+        this.codec = codec;
+    }
+
     /**
      * Gets the class of the java object which represents this column
      *
@@ -109,6 +127,14 @@ public abstract class Column {
         return RegisteredTable.isSerializable(getType());
     }
 
+    /**
+     * Gets the codec which was selected for this column or {@link com.p000ison.dev.sqlapi.codec.BinaryCodec} if the
+     * codec is chosen by the type of the column
+     *
+     * @return The selected binary codec
+     */
+    public abstract Class<? extends BinaryCodec> getBinaryCodec();
+
     public abstract boolean isID();
 
     public abstract boolean isSaveInputAfterLoading();
@@ -0,0 +1,43 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 21:40
+ */
+
+package com.p000ison.dev.sqlapi;
+
+/**
+ * Gets notified about the progress of {@link Database#copy(Class, Database, int, CopyListener)}. If multiple tables
+ * are copied in parallel, the methods are called from different threads.
+ */
+public interface CopyListener {
+
+    /**
+     * Called after a batch of entries was written to the destination
+     *
+     * @param table  The table in the destination
+     * @param copied The number of entries which were copied so far
+     */
+    void progress(RegisteredTable table, long copied);
+
+    /**
+     * Called after all entries of a table were copied
+     *
+     * @param table  The table in the destination
+     * @param copied The number of copied entries
+     */
+    void finished(RegisteredTable table, long copied);
+}
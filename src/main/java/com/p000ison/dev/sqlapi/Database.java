@@ -14,22 +14,45 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:30
+ * Last modified: 19.10.26 17:40
  */
 
 package com.p000ison.dev.sqlapi;
 
 import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.codec.BinarySerializable;
+import com.p000ison.dev.sqlapi.codec.BinaryTypeCodec;
+import com.p000ison.dev.sqlapi.codec.CompactCodec;
+import com.p000ison.dev.sqlapi.codec.DefaultTypeCodecs;
+import com.p000ison.dev.sqlapi.codec.FieldCodec;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
 import com.p000ison.dev.sqlapi.exception.DatabaseConnectionException;
 import com.p000ison.dev.sqlapi.exception.QueryException;
 import com.p000ison.dev.sqlapi.exception.RegistrationException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
 import com.p000ison.dev.sqlapi.query.PreparedQuery;
 import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+import com.p000ison.dev.sqlapi.query.QueryCursor;
 import com.p000ison.dev.sqlapi.query.SelectQuery;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -50,16 +73,39 @@ public abstract class Database {
      */
     private boolean dropOldColumns = false;
     /**
-     * A map of registered tables (classes) and a list of columns
+     * A map of registered classes and their tables. The map is never modified, registering a table replaces it with a
+     * copy, so lookups do not need any locking.
      */
-    private Set<RegisteredTable> registeredTables = new HashSet<RegisteredTable>();
+    private volatile Map<Class<? extends TableObject>, RegisteredTable> registeredTables = Collections.emptyMap();
+    private final Lock registrationLock = new ReentrantLock();
+    /**
+     * The codecs of the supported types
+     */
+    private final ConcurrentMap<Class<?>, TypeCodec> typeCodecs = new ConcurrentHashMap<Class<?>, TypeCodec>();
+    private final CompactCodec compactCodec = new CompactCodec();
+    private final FieldCodec fieldCodec = new FieldCodec();
+    /**
+     * The tables written by the transactions of a thread, one set for the transaction and for every savepoint
+     */
+    private final ThreadLocal<Deque<Set<RegisteredTable>>> transactionTables = new ThreadLocal<Deque<Set<RegisteredTable>>>();
+
+    /**
+     * The listener which gets notified about executed statements or null
+     */
+    private volatile QueryListener queryListener;
 
     public static final int UNSUPPORTED_TYPE = Integer.MAX_VALUE;
+    /**
+     * The number of entries which are written at once by {@link #copy(Class, Database)}
+     */
+    public static final int DEFAULT_COPY_BATCH_SIZE = 1000;
+    /**
+     * The sizes of the IN lists of {@link #findByIds(Class, java.util.Collection)}
+     */
+    private static final int[] FIND_BY_IDS_SIZES = {1, 8, 32, 128};
 
     private static Logger logger;
 
-    private static final Lock accessLock = new ReentrantLock();
-
     static void log(Level level, String msg, Object... args) {
         if (logger == null) {
             return;
@@ -79,6 +125,7 @@ public abstract class Database {
      */
     protected Database(DatabaseConfiguration configuration) throws DatabaseConnectionException {
         this.configuration = configuration;
+        DefaultTypeCodecs.registerDefaults(typeCodecs);
         String driver = configuration.getDriverName();
 
         try {
@@ -110,7 +157,7 @@ public abstract class Database {
      * @throws QueryException
      */
     public final void close() throws QueryException {
-        for (RegisteredTable table : registeredTables) {
+        for (RegisteredTable table : registeredTables.values()) {
             table.close();
         }
         closeDatabaseConnection();
@@ -140,24 +187,40 @@ public abstract class Database {
      *
      * @param table The class to register
      */
-    public final synchronized RegisteredTable registerTable(Class<? extends TableObject> table) {
-        TableBuilder builder = createTableBuilder(table);
-        RegisteredTable registeredTable = new RegisteredTable(builder.getTableName(), table, builder.getColumns(), builder.getDefaultConstructor());
+    public final RegisteredTable registerTable(Class<? extends TableObject> table) {
+        registrationLock.lock();
+        try {
+            TableBuilder builder = createTableBuilder(table);
+            RegisteredTable registeredTable = new RegisteredTable(builder.getTableName(), table, builder.getColumns(), builder.getDefaultConstructor());
 
-        builder.createTable().createModifyQuery();
+            builder.createTable().createModifyQuery();
 
-        for (StringBuilder query : builder.getBuilders()) {
-            if (query.length() == 0) {
-                continue;
+            for (StringBuilder query : builder.getBuilders()) {
+                if (query.length() == 0) {
+                    continue;
+                }
+                log(Level.INFO, "Generating and updating table %s!", registeredTable.getName());
+                executeDirectUpdate(query.toString());
             }
-            log(Level.INFO, "Generating and updating table %s!", registeredTable.getName());
-            executeDirectUpdate(query.toString());
-        }
 
-        registeredTable.prepareAllStatements(this);
-        registeredTables.add(registeredTable);
+            registeredTable.prepareAllStatements(this);
 
-        return registeredTable;
+            DatabaseTable annotation = table.getAnnotation(DatabaseTable.class);
+            if (annotation != null && annotation.cacheSize() > 0) {
+                registeredTable.setEntityCacheSize(annotation.cacheSize());
+            }
+            if (annotation != null && annotation.dirtyTracking()) {
+                registeredTable.setDirtyTracking(true);
+            }
+
+            Map<Class<? extends TableObject>, RegisteredTable> tables = new HashMap<Class<? extends TableObject>, RegisteredTable>(registeredTables);
+            tables.put(table, registeredTable);
+            registeredTables = tables;
+
+            return registeredTable;
+        } finally {
+            registrationLock.unlock();
+        }
     }
 
     /**
@@ -190,17 +253,16 @@ public abstract class Database {
      * @return The RegisteredTable
      * @throws RegistrationException If the table is not registered
      */
-    public synchronized RegisteredTable getRegisteredTable(Class<? extends TableObject> table) {
-        for (RegisteredTable registeredTable : registeredTables) {
-            if (registeredTable.isRegisteredClass(table)) {
-                return registeredTable;
-            }
+    public RegisteredTable getRegisteredTable(Class<? extends TableObject> table) {
+        RegisteredTable registeredTable = registeredTables.get(table);
+        if (registeredTable == null) {
+            throw new RegistrationException(table, "The class %s is not registered!", table.getName());
         }
-        throw new RegistrationException(table, "The class %s is not registered!", table.getName());
+        return registeredTable;
     }
 
     /**
-     * Constructs a new SelectQuery for further use. This should be synchronized with the Database instance
+     * Constructs a new SelectQuery for further use. A SelectQuery should only be used by one thread at a time
      *
      * @param <T> a TableObject type
      * @return The SelectQuery
@@ -216,12 +278,21 @@ public abstract class Database {
      *
      * @param tableObject The object to insert/update
      * @throws RegistrationException If the table is not registered
+     * @throws QueryException        If the object was selected with only some columns and the table has no dirty tracking
      */
     public void save(TableObject tableObject) {
         RegisteredTable table = getRegisteredTable(tableObject);
         Column idColumn = table.getIDColumn();
+        checkComplete(table, tableObject);
 
-        if (((Number) idColumn.getValue(tableObject)).intValue() <= 0 || !existsEntry(table, tableObject)) {
+        if (((Number) idColumn.getValue(tableObject)).intValue() <= 0) {
+            insert(table, tableObject, idColumn);
+        } else if (isTracked(table, tableObject)) {
+            //a tracked object exists, so the update can skip the unchanged columns
+            update(table, tableObject, idColumn);
+        } else if (table.getPreparedUpsertStatement() != null) {
+            upsert(table, tableObject, idColumn);
+        } else if (!isCached(table, tableObject, idColumn) && !existsEntry(table, tableObject)) {
             insert(table, tableObject, idColumn);
         } else {
             update(table, tableObject, idColumn);
@@ -229,16 +300,19 @@ public abstract class Database {
     }
 
     public void delete(TableObject tableObject) {
-        accessLock.lock();
+        RegisteredTable table = getRegisteredTable(tableObject);
+        Lock lock = lockTable(table);
         try {
-            RegisteredTable table = getRegisteredTable(tableObject);
             Column idColumn = table.getIDColumn();
 
             PreparedQuery statement = table.getPreparedDeleteStatement();
-            statement.set(0, idColumn.getValue(tableObject));
+            Object id = idColumn.getValue(tableObject);
+            statement.set(0, id);
             statement.update();
+            uncache(table, id);
+            forget(table, id);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
         }
     }
 
@@ -246,15 +320,183 @@ public abstract class Database {
         return getRegisteredTable(obj.getClass());
     }
 
+    /**
+     * Finds a object by its id. If the table has a {@link EntityCache} the object is taken from the cache if possible.
+     *
+     * @param table The class of the table
+     * @param id    The id of the object
+     * @return The object or null if there is no entry with this id
+     * @throws RegistrationException If the table is not registered
+     */
+    public <T extends TableObject> T find(Class<T> table, long id) {
+        RegisteredTable registeredTable = getRegisteredTable(table);
+        EntityCache cache = registeredTable.getEntityCache();
+        if (cache != null) {
+            TableObject cached = cache.get(id);
+            if (cached != null) {
+                return table.cast(cached);
+            }
+        }
+
+        //reading the result puts the object into the cache
+        PreparedSelectQuery<T> query = this.<T>select().from(table).where().preparedEquals(registeredTable.getIDColumn()).select().prepare();
+        query.set(0, id);
+        List<T> results = query.getResults();
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Finds the objects of some ids. The objects which are not in the {@link EntityCache} are selected with a few
+     * queries of the form id IN (?, ...). Only some list sizes are used, so their statements stay cached.
+     *
+     * @param table The class of the table
+     * @param ids   The ids of the objects
+     * @return The found objects by their id in the order of the ids, ids without an entry are missing
+     * @throws RegistrationException If the table is not registered
+     */
+    public <T extends TableObject> Map<Long, T> findByIds(Class<T> table, Collection<Long> ids) {
+        RegisteredTable registeredTable = getRegisteredTable(table);
+        EntityCache cache = registeredTable.getEntityCache();
+        Column idColumn = registeredTable.getIDColumn();
+
+        Map<Long, T> found = new HashMap<Long, T>();
+        List<Long> missing = new ArrayList<Long>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("The ids must not be null!");
+            } else if (found.containsKey(id)) {
+                continue;
+            }
+
+            TableObject cached = cache == null ? null : cache.get(id);
+            found.put(id, cached == null ? null : table.cast(cached));
+            if (cached == null) {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<PreparedSelectQuery<T>> queries = new ArrayList<PreparedSelectQuery<T>>();
+            int index = 0;
+            while (index < missing.size()) {
+                int size = getFindByIdsSize(missing.size() - index);
+                PreparedSelectQuery<T> query = createPreparedSelectQuery(registeredTable.getFindByIdsQuery(size), registeredTable, registeredTable.getRegisteredColumns(), registeredTable.getRegisteredColumns().size());
+                for (int i = 0; i < size; i++) {
+                    //the last chunk is filled up with its last id
+                    query.set(idColumn, i, missing.get(Math.min(index + i, missing.size() - 1)));
+                }
+                queries.add(query);
+                index += size;
+            }
+
+            for (T object : executeSelects(queries)) {
+                found.put(((Number) idColumn.getValue(object)).longValue(), object);
+            }
+        }
+
+        Map<Long, T> results = new LinkedHashMap<Long, T>();
+        for (Long id : ids) {
+            T object = found.get(id);
+            if (object != null) {
+                results.put(id, object);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the number of ids of the next IN list: the largest size if there are enough ids, otherwise the smallest size
+     * which holds all remaining ids
+     *
+     * @param remaining The number of remaining ids
+     * @return The size of the list
+     */
+    private static int getFindByIdsSize(int remaining) {
+        for (int size : FIND_BY_IDS_SIZES) {
+            if (size >= remaining) {
+                return size;
+            }
+        }
+        return FIND_BY_IDS_SIZES[FIND_BY_IDS_SIZES.length - 1];
+    }
+
+    /**
+     * Executes some select queries and returns all their results. By default every query is executed on its own,
+     * database engines override this to execute them on one connection.
+     *
+     * @param queries The queries
+     * @return The results of all queries
+     */
+    protected <T extends TableObject> List<T> executeSelects(List<PreparedSelectQuery<T>> queries) {
+        List<T> results = new ArrayList<T>();
+        for (PreparedSelectQuery<T> query : queries) {
+            query.getResults(results);
+        }
+        return results;
+    }
+
+    private static boolean isCached(RegisteredTable table, TableObject object, Column idColumn) {
+        EntityCache cache = table.getEntityCache();
+        return cache != null && cache.contains(((Number) idColumn.getValue(object)).longValue());
+    }
+
+    private static void cache(RegisteredTable table, TableObject object, Object id) {
+        EntityCache cache = table.getEntityCache();
+        if (cache != null) {
+            cache.put(((Number) id).longValue(), object);
+        }
+    }
+
+    private static void uncache(RegisteredTable table, Object id) {
+        EntityCache cache = table.getEntityCache();
+        if (cache != null) {
+            cache.remove(((Number) id).longValue());
+        }
+    }
+
+    /**
+     * Checks that a object can be written completely. A object which was selected with only some columns keeps the
+     * values of a new object in the other columns, so only tracked objects can be updated, which write only their
+     * changed columns.
+     *
+     * @throws QueryException If the object is partial
+     */
+    private static void checkComplete(RegisteredTable table, TableObject object) {
+        if (table.isPartial(object)) {
+            throw new QueryException("The object was selected with only some columns, it can only be written if the table %s uses dirty tracking!", table.getName());
+        }
+    }
+
+    private static boolean isTracked(RegisteredTable table, TableObject object) {
+        DirtyTracker tracker = table.getDirtyTracker();
+        return tracker != null && tracker.isTracked(object);
+    }
+
+    private static void snapshot(RegisteredTable table, TableObject object) {
+        DirtyTracker tracker = table.getDirtyTracker();
+        if (tracker != null) {
+            tracker.snapshot(object);
+        }
+    }
+
+    private static void forget(RegisteredTable table, Object id) {
+        DirtyTracker tracker = table.getDirtyTracker();
+        if (tracker != null) {
+            tracker.forget(((Number) id).longValue());
+        }
+    }
+
     /**
      * Attempts to update the object in the database
      *
      * @param tableObject The object to update
      * @throws RegistrationException If the table is not registered
+     * @throws QueryException        If the object was selected with only some columns and the table has no dirty tracking
      */
     public void update(TableObject tableObject) {
         RegisteredTable table = getRegisteredTable(tableObject);
         Column idColumn = table.getIDColumn();
+        checkComplete(table, tableObject);
 
         update(table, tableObject, idColumn);
     }
@@ -272,65 +514,274 @@ public abstract class Database {
         insert(table, tableObject, idColumn);
     }
 
+    /**
+     * Inserts many objects with as few statements as possible. Every table gets statements which insert multiple rows
+     * at once, so this is a lot faster than inserting the objects one by one or in a insert batch. The objects get
+     * their generated ids.
+     *
+     * @param objects The objects to insert, they may belong to different tables
+     * @throws QueryException if the query fails
+     */
+    public void insertAll(Collection<? extends TableObject> objects) {
+        Map<RegisteredTable, List<TableObject>> tables = new LinkedHashMap<RegisteredTable, List<TableObject>>();
+        for (TableObject object : objects) {
+            RegisteredTable table = getRegisteredTable(object);
+            List<TableObject> tableObjects = tables.get(table);
+            if (tableObjects == null) {
+                tableObjects = new ArrayList<TableObject>();
+                tables.put(table, tableObjects);
+            }
+            tableObjects.add(object);
+        }
+
+        for (Map.Entry<RegisteredTable, List<TableObject>> entry : tables.entrySet()) {
+            insertAll(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void insertAll(RegisteredTable table, List<TableObject> objects) {
+        Lock lock = lockTable(table);
+        try {
+            long[] ids = executeBulkInsert(table, objects);
+            Column idColumn = table.getIDColumn();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != -1) {
+                    idColumn.setValue(objects.get(i), ids[i]);
+                    cache(table, objects.get(i), ids[i]);
+                    snapshot(table, objects.get(i));
+                }
+            }
+        } finally {
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Inserts the objects of a table and returns their generated ids. By default every object is inserted on its own,
+     * database engines override this to insert multiple rows with one statement. This is called while holding the lock
+     * of the table.
+     *
+     * @param table   The table
+     * @param objects The objects
+     * @return The generated ids in the order of the objects
+     */
+    protected long[] executeBulkInsert(RegisteredTable table, List<TableObject> objects) {
+        PreparedQuery insert = table.getPreparedInsertStatement();
+        Column idColumn = table.getIDColumn();
+        long[] ids = new long[objects.size()];
+        for (int i = 0; i < ids.length; i++) {
+            setColumnValues(insert, table, objects.get(i), idColumn);
+            ids[i] = insert.executeInsert();
+        }
+        return ids;
+    }
+
     private void insert(RegisteredTable registeredTable, TableObject object, Column idColumn) {
-        accessLock.lock();
+        Lock lock = lockTable(registeredTable);
         try {
             PreparedQuery insert = registeredTable.getPreparedInsertStatement();
             setColumnValues(insert, registeredTable, object, idColumn);
-            insert.update();
-            idColumn.setValue(object, getLastEntryId(registeredTable));
+            long id = insert.executeInsert();
+            if (id != -1) {
+                idColumn.setValue(object, id);
+                cache(registeredTable, object, id);
+                snapshot(registeredTable, object);
+            }
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
         }
     }
 
     private void update(RegisteredTable registeredTable, TableObject object, Column idColumn) {
-        accessLock.lock();
+        Lock lock = lockTable(registeredTable);
         try {
+            DirtyTracker tracker = registeredTable.getDirtyTracker();
+            if (tracker != null) {
+                updateChangedColumns(registeredTable, tracker, object, idColumn);
+                return;
+            }
+
             PreparedQuery update = registeredTable.getPreparedUpdateStatement();
             int i = setColumnValues(update, registeredTable, object, idColumn);
-            update.set(idColumn, i, idColumn.getValue(object));
+            Object id = idColumn.getValue(object);
+            update.set(idColumn, i, id);
             update.update();
+            cache(registeredTable, object, id);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Updates only the columns which changed since the snapshot of the object and skips the update if nothing changed.
+     * Objects without a snapshot are updated completely.
+     */
+    private void updateChangedColumns(RegisteredTable registeredTable, DirtyTracker tracker, TableObject object, Column idColumn) {
+        Object id = idColumn.getValue(object);
+        long longId = ((Number) id).longValue();
+        Object[] values = tracker.encode(object);
+        long changed = tracker.getChangedColumns(object, longId, values);
+        boolean partial = tracker.isPartial(object, longId);
+
+        if (changed != 0) {
+            bindChangedColumns(registeredTable, tracker, idColumn, id, changed, values).update();
+        }
+
+        tracker.snapshot(object, longId, values, partial);
+        cacheTracked(registeredTable, object, id, partial);
+    }
+
+    /**
+     * Binds the changed columns to the update statement for exactly these columns, or to the statement for all columns
+     *
+     * @return The bound statement
+     */
+    private PreparedQuery bindChangedColumns(RegisteredTable registeredTable, DirtyTracker tracker, Column idColumn, Object id, long changed, Object[] values) {
+        PreparedQuery update = null;
+        if (changed != DirtyTracker.ALL_COLUMNS) {
+            update = registeredTable.getPartialUpdateStatement(changed, tracker, this);
+        }
+        if (update == null) {
+            update = registeredTable.getPreparedUpdateStatement();
+            changed = tracker.getAllColumns();
+        }
+
+        int i = tracker.bind(update, changed, values);
+        update.set(idColumn, i, id);
+        return update;
+    }
+
+    private static void cacheTracked(RegisteredTable table, TableObject object, Object id, boolean partial) {
+        if (partial) {
+            //the cached object may miss the written columns and this object misses the others
+            uncache(table, id);
+        } else {
+            cache(table, object, id);
+        }
+    }
+
+    private void upsert(RegisteredTable registeredTable, TableObject object, Column idColumn) {
+        Lock lock = lockTable(registeredTable);
+        try {
+            PreparedQuery upsert = registeredTable.getPreparedUpsertStatement();
+            int i = setColumnValues(upsert, registeredTable, object, idColumn);
+            Object id = idColumn.getValue(object);
+            upsert.set(idColumn, i, id);
+            upsert.update();
+            cache(registeredTable, object, id);
+            snapshot(registeredTable, object);
+        } finally {
+            unlockTable(lock);
         }
     }
 
     public void addUpdateBatch(TableObject object) {
         RegisteredTable table = getRegisteredTable(object);
+        checkComplete(table, object);
         PreparedQuery update = table.getPreparedUpdateStatement();
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
             Column id = table.getIDColumn();
-            int i = setColumnValues(update, table, object, table.getIDColumn());
-            update.set(id, i, id.getValue(object));
+            Object idValue = id.getValue(object);
+            DirtyTracker tracker = table.getDirtyTracker();
+            if (tracker != null) {
+                addChangedColumnsBatch(table, tracker, object, id, idValue);
+                return;
+            }
+
+            int i = setColumnValues(update, table, object, id);
+            update.set(id, i, idValue);
             update.addBatch();
+            cache(table, object, idValue);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Adds the changed columns of a tracked object to the batch of the matching update statement. The new snapshot is
+     * taken once the batch was executed.
+     */
+    private void addChangedColumnsBatch(RegisteredTable table, DirtyTracker tracker, TableObject object, Column idColumn, Object id) {
+        long longId = ((Number) id).longValue();
+        Object[] values = tracker.encode(object);
+        long changed = tracker.getChangedColumns(object, longId, values);
+        if (changed == 0) {
+            return;
         }
+
+        boolean partial = tracker.isPartial(object, longId);
+        bindChangedColumns(table, tracker, idColumn, id, changed, values).addBatch();
+        tracker.addPendingSnapshot(object, longId, values, partial);
+        cacheTracked(table, object, id, partial);
     }
 
     public void addInsertBatch(TableObject object) {
         RegisteredTable table = getRegisteredTable(object);
         PreparedQuery update = table.getPreparedInsertStatement();
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
             setColumnValues(update, table, object, table.getIDColumn());
             update.addBatch();
+            table.addInsertBatchObject(object);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Adds the object to the upsert batch of its table, which inserts or updates the entry with the id of the object. If
+     * the database can not upsert entries of this table the object is added to the update batch if it exists, else it
+     * gets inserted immediately.
+     *
+     * @param object The object
+     */
+    public void addUpsertBatch(TableObject object) {
+        RegisteredTable table = getRegisteredTable(object);
+        checkComplete(table, object);
+        PreparedQuery upsert = table.getPreparedUpsertStatement();
+        Lock lock = lockTable(table);
+        try {
+            Column id = table.getIDColumn();
+            if (isTracked(table, object)) {
+                //the entry exists, so only changed objects need to be updated
+                addUpdateBatch(object);
+                return;
+            }
+            if (upsert == null) {
+                if (existsEntry(table, object)) {
+                    addUpdateBatch(object);
+                } else {
+                    insert(table, object, id);
+                }
+                return;
+            }
+
+            int i = setColumnValues(upsert, table, object, id);
+            Object idValue = id.getValue(object);
+            upsert.set(id, i, idValue);
+            upsert.addBatch();
+            //the object is cached once the batch was executed, until then the cached entry is outdated
+            table.addUpsertBatchObject(object);
+            uncache(table, idValue);
+            forget(table, idValue);
+        } finally {
+            unlockTable(lock);
         }
     }
 
     public void addDeleteBatch(TableObject object) {
         RegisteredTable table = getRegisteredTable(object);
         PreparedQuery update = table.getPreparedDeleteStatement();
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
-            update.set(0, table.getIDColumn().getValue(object));
+            Object id = table.getIDColumn().getValue(object);
+            update.set(0, id);
             update.addBatch();
+            uncache(table, id);
+            forget(table, id);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
         }
     }
 
@@ -338,7 +789,7 @@ public abstract class Database {
      * Runs the batch and executes the stored commands
      *
      * @param clazz   The class
-     * @param bitmask Defines whether to run the update, insert or delete statements. Example: 1 | 1 << 1 | 1 << 2 for all
+     * @param bitmask Defines whether to run the update, insert, delete or upsert statements. Example: 1 | 1 << 1 | 1 << 2 | 1 << 3 for all
      */
     public void executeBatch(Class<? extends TableObject> clazz, int bitmask) {
         executeBatch(getRegisteredTable(clazz), bitmask);
@@ -348,7 +799,7 @@ public abstract class Database {
      * Runs the batch and executes the stored commands
      *
      * @param table   The class
-     * @param bitmask Defines whether to run the update, insert or delete statements. Example: 1 | 1 << 1 | 1 << 2(0111) for all. The first bit defines updating, the second inserting and the last deleting
+     * @param bitmask Defines whether to run the update, insert, delete or upsert statements. Example: 1 | 1 << 1 | 1 << 2 | 1 << 3(1111) for all. The first bit defines updating, the second inserting, the third deleting and the last upserting
      */
     public void executeBatch(RegisteredTable table, int bitmask) {
         if ((bitmask & 1) != 0) {
@@ -360,15 +811,40 @@ public abstract class Database {
         if ((bitmask & 1 << 2) != 0) {
             executeDeleteBatch(table);
         }
+        if ((bitmask & 1 << 3) != 0) {
+            executeUpsertBatch(table);
+        }
     }
 
     public void executeUpdateBatch(RegisteredTable table) {
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
-            PreparedQuery update = table.getPreparedUpdateStatement();
-            update.executeBatches();
+            executeUpdateBatches(table);
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Executes the batches of the update statement and of the statements which update only some columns. Must be called
+     * while holding the lock of the table.
+     *
+     * @param table The table
+     */
+    private static void executeUpdateBatches(RegisteredTable table) {
+        DirtyTracker tracker = table.getDirtyTracker();
+        boolean success = false;
+        try {
+            table.getPreparedUpdateStatement().executeBatches();
+            for (PreparedQuery update : table.getPartialUpdateStatements()) {
+                update.executeBatches();
+            }
+            success = true;
+        } finally {
+            if (tracker != null) {
+                //without the new snapshots a failed update gets written again the next time
+                tracker.completePendingSnapshots(success);
+            }
         }
     }
 
@@ -376,13 +852,36 @@ public abstract class Database {
         executeUpdateBatch(getRegisteredTable(table));
     }
 
+    /**
+     * Executes the insert batch of a table. The objects get their generated ids like after {@link #insert(TableObject)}.
+     *
+     * @param table The table
+     * @throws QueryException If the query fails or the batch of the insert statement was changed without
+     *                        {@link #addInsertBatch(TableObject)}, then the batch is dropped
+     */
     public void executeInsertBatch(RegisteredTable table) {
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
             PreparedQuery insert = table.getPreparedInsertStatement();
-            insert.executeBatches();
+            List<TableObject> objects = table.pollInsertBatchObjects();
+            if (insert.getBatchSize() != objects.size()) {
+                //the generated ids can not be matched to the objects
+                int entries = insert.getBatchSize();
+                insert.clearBatch();
+                throw new QueryException("The insert batch of the table %s has %d entries, but %d objects were added to it!", table.getName(), entries, objects.size());
+            }
+
+            long[] ids = insert.executeInsertBatches();
+            Column idColumn = table.getIDColumn();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != -1) {
+                    idColumn.setValue(objects.get(i), ids[i]);
+                    cache(table, objects.get(i), ids[i]);
+                    snapshot(table, objects.get(i));
+                }
+            }
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
         }
     }
 
@@ -391,12 +890,12 @@ public abstract class Database {
     }
 
     public void executeDeleteBatch(RegisteredTable table) {
-        accessLock.lock();
+        Lock lock = lockTable(table);
         try {
             PreparedQuery delete = table.getPreparedDeleteStatement();
             delete.executeBatches();
         } finally {
-            accessLock.unlock();
+            unlockTable(lock);
         }
     }
 
@@ -404,6 +903,134 @@ public abstract class Database {
         executeDeleteBatch(getRegisteredTable(table));
     }
 
+    public void executeUpsertBatch(RegisteredTable table) {
+        Lock lock = lockTable(table);
+        try {
+            PreparedQuery upsert = table.getPreparedUpsertStatement();
+            List<TableObject> objects = table.pollUpsertBatchObjects();
+            if (upsert != null) {
+                upsert.executeBatches();
+
+                Column idColumn = table.getIDColumn();
+                for (TableObject object : objects) {
+                    cache(table, object, idColumn.getValue(object));
+                }
+            }
+            //without a upsert statement or for tracked objects the objects were added to the update batches
+            executeUpdateBatches(table);
+        } finally {
+            unlockTable(lock);
+        }
+    }
+
+    public void executeUpsertBatch(Class<? extends TableObject> table) {
+        executeUpsertBatch(getRegisteredTable(table));
+    }
+
+    /**
+     * Drops the objects which were added to the upsert and update batches of a table but not executed, for example
+     * because adding or executing one of them failed. Otherwise the next execution of the batches writes them again.
+     *
+     * @param table The table
+     */
+    public void clearUpsertBatch(RegisteredTable table) {
+        Lock lock = lockTable(table);
+        try {
+            PreparedQuery upsert = table.getPreparedUpsertStatement();
+            if (upsert != null) {
+                upsert.clearBatch();
+            }
+            table.pollUpsertBatchObjects();
+            table.getPreparedUpdateStatement().clearBatch();
+            for (PreparedQuery update : table.getPartialUpdateStatements()) {
+                update.clearBatch();
+            }
+
+            DirtyTracker tracker = table.getDirtyTracker();
+            if (tracker != null) {
+                tracker.completePendingSnapshots(false);
+            }
+        } finally {
+            unlockTable(lock);
+        }
+    }
+
+    /**
+     * Reserves the write connection and acquires the lock of a table and reports the waiting time to the
+     * {@link QueryListener}. The connection is taken before the lock, like transactions do, so a writer waiting for a
+     * table never holds the lock a transaction waits for.
+     *
+     * @param table The table
+     * @return The acquired lock
+     */
+    private Lock lockTable(RegisteredTable table) {
+        reserveWriteConnection();
+        Deque<Set<RegisteredTable>> transactions = transactionTables.get();
+        if (transactions != null) {
+            transactions.peek().add(table);
+        }
+
+        Lock lock = table.getLock();
+        QueryListener listener = queryListener;
+        try {
+            if (listener == null) {
+                lock.lock();
+            } else if (lock.tryLock()) {
+                listener.lockAcquired(table, 0);
+            } else {
+                long start = System.nanoTime();
+                lock.lock();
+                listener.lockAcquired(table, System.nanoTime() - start);
+            }
+        } catch (RuntimeException e) {
+            unlockTable(lock);
+            throw e;
+        }
+        return lock;
+    }
+
+    private void unlockTable(Lock lock) {
+        try {
+            lock.unlock();
+        } finally {
+            releaseWriteConnection();
+        }
+    }
+
+    /**
+     * Reserves the connection which modifies the database for the current thread until
+     * {@link #releaseWriteConnection()} is called. It is reserved before a table gets locked, so writes take the
+     * connection and the table lock in the same order as transactions. Calls can be nested.
+     *
+     * @throws QueryException If no connection is available
+     */
+    protected void reserveWriteConnection() {
+    }
+
+    /**
+     * Releases the connection reserved by {@link #reserveWriteConnection()}
+     */
+    protected void releaseWriteConnection() {
+    }
+
+    /**
+     * Sets the listener which gets notified about every executed statement and every acquired table lock
+     *
+     * @param queryListener The listener or null to disable it
+     */
+    public void setQueryListener(QueryListener queryListener) {
+        this.queryListener = queryListener;
+    }
+
+    /**
+     * Gets the listener which gets notified about every executed statement
+     *
+     * @return The listener or null
+     */
+    public QueryListener getQueryListener() {
+        return queryListener;
+    }
+
     private int setColumnValues(PreparedQuery statement, RegisteredTable registeredTable, TableObject object, Column idColumn) {
         List<Column> registeredColumns = registeredTable.getRegisteredColumns();
         int i = 0;
@@ -440,15 +1067,237 @@ public abstract class Database {
      */
     public abstract PreparedQuery createPreparedStatement(String query);
 
-    protected abstract <T extends TableObject> PreparedSelectQuery<T> createPreparedSelectQuery(String query, RegisteredTable table);
+    /**
+     * Creates a new PreparedQuery which can return the keys the database generates, for example the id of a inserted entry.
+     *
+     * @param query               The query to prepare
+     * @param returnGeneratedKeys Whether the generated keys should be returned
+     * @return A PreparedQuery
+     */
+    public abstract PreparedQuery createPreparedStatement(String query, boolean returnGeneratedKeys);
+
+    /**
+     * Creates a new PreparedQuery which modifies a registered table. The table is reported to the {@link QueryListener}.
+     *
+     * @param table               The table
+     * @param query               The query to prepare
+     * @param returnGeneratedKeys Whether the generated keys should be returned
+     * @return A PreparedQuery
+     */
+    protected PreparedQuery createTableStatement(RegisteredTable table, String query, boolean returnGeneratedKeys) {
+        return createPreparedStatement(query, returnGeneratedKeys);
+    }
+
+    /**
+     * Creates a prepared select query
+     *
+     * @param query     The query
+     * @param table     The table
+     * @param columns   The selected columns in the order of the query, they contain the id column
+     * @param tupleSize The number of columns which are returned in tuples, the other columns were only selected to
+     *                  identify the objects
+     * @return The prepared query
+     */
+    protected abstract <T extends TableObject> PreparedSelectQuery<T> createPreparedSelectQuery(String query, RegisteredTable table, List<Column> columns, int tupleSize);
+
+    /**
+     * Builds a query which inserts a entry with a given id or updates the existing entry with this id. The parameters
+     * are all columns except the id like in the update statement followed by the id.
+     *
+     * @param table The table
+     * @return The query or null if the database engine does not support it
+     */
+    protected String createUpsertQuery(RegisteredTable table) {
+        return null;
+    }
 
     public abstract boolean executeDirectUpdate(String query);
 
-    public abstract boolean existsEntry(RegisteredTable table, TableObject object);
+    /**
+     * Starts a transaction for the current thread. All statements of this thread use the same connection until the
+     * transaction is committed or rolled back, so they are written with one commit. If this thread is already in a
+     * transaction a savepoint is set, which is committed or rolled back on its own.
+     * <p/>
+     * Other threads can not write while the only connection of a single writer engine is held by a transaction, so keep
+     * transactions short. Writes reserve the connection before they lock a table, so a transaction must be started
+     * before a thread locks a table with {@link RegisteredTable#getLock()}.
+     *
+     * @throws QueryException If the transaction can not be started
+     */
+    public final void begin() {
+        beginTransaction();
+
+        Deque<Set<RegisteredTable>> transactions = transactionTables.get();
+        if (transactions == null) {
+            transactions = new ArrayDeque<Set<RegisteredTable>>();
+            transactionTables.set(transactions);
+        }
+        transactions.push(new HashSet<RegisteredTable>());
+    }
+
+    /**
+     * Commits the innermost transaction or savepoint of the current thread
+     *
+     * @throws QueryException If there is no transaction or the commit fails, then the caches of the written tables are
+     *                        cleared like by {@link #rollback()}
+     */
+    public final void commit() {
+        boolean success = false;
+        try {
+            commitTransaction();
+            success = true;
+        } finally {
+            Set<RegisteredTable> written = endTransactionTables();
+            if (!success) {
+                clearCaches(written);
+            } else if (transactionTables.get() != null) {
+                //a outer rollback reverts the written tables of a committed savepoint too
+                transactionTables.get().peek().addAll(written);
+            }
+        }
+    }
+
+    /**
+     * Rolls back the innermost transaction or savepoint of the current thread. The objects in memory are not reverted,
+     * so the entity caches and dirty trackers of the tables which were written in it are cleared. Tables which were
+     * only changed with own statements are not known, clear their caches yourself.
+     *
+     * @throws QueryException If there is no transaction or the rollback fails
+     */
+    public final void rollback() {
+        try {
+            rollbackTransaction();
+        } finally {
+            clearCaches(endTransactionTables());
+        }
+    }
+
+    /**
+     * Removes the set of the innermost transaction or savepoint of the current thread
+     *
+     * @return The tables which were written in it
+     */
+    private Set<RegisteredTable> endTransactionTables() {
+        Deque<Set<RegisteredTable>> transactions = transactionTables.get();
+        if (transactions == null) {
+            return Collections.emptySet();
+        }
+
+        Set<RegisteredTable> written = transactions.pop();
+        if (transactions.isEmpty()) {
+            transactionTables.remove();
+        }
+        return written;
+    }
 
-    public abstract boolean existsEntry(TableObject object);
+    private static void clearCaches(Set<RegisteredTable> tables) {
+        for (RegisteredTable table : tables) {
+            EntityCache cache = table.getEntityCache();
+            if (cache != null) {
+                cache.clear();
+            }
+            DirtyTracker tracker = table.getDirtyTracker();
+            if (tracker != null) {
+                tracker.clear();
+            }
+        }
+    }
 
-    protected abstract long getLastEntryId(RegisteredTable table);
+    /**
+     * Runs a callback in a transaction. The transaction is committed if the callback returns and rolled back if it
+     * throws. If the rollback fails too, its exception is added to the exception of the callback as suppressed.
+     *
+     * @param callback The callback
+     * @return The result of the callback
+     * @throws QueryException If the callback throws a checked exception or the transaction fails
+     */
+    public <V> V inTransaction(Callable<V> callback) {
+        begin();
+        V result;
+        try {
+            result = callback.call();
+        } catch (Throwable e) {
+            try {
+                rollback();
+            } catch (RuntimeException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw new QueryException(e);
+        }
+
+        commit();
+        return result;
+    }
+
+    /**
+     * Checks whether the current thread is in a transaction
+     *
+     * @return Whether there is a transaction
+     */
+    public abstract boolean isInTransaction();
+
+    protected abstract void beginTransaction();
+
+    protected abstract void commitTransaction();
+
+    protected abstract void rollbackTransaction();
+
+    /**
+     * Checks whether there is a entry with the id of a object
+     *
+     * @param table  The table of the object
+     * @param object The object
+     * @return Whether the entry exists
+     */
+    public boolean existsEntry(RegisteredTable table, TableObject object) {
+        Column idColumn = table.getIDColumn();
+        return this.<TableObject>select().from(table).where().equals(idColumn, idColumn.getValue(object)).select().exists();
+    }
+
+    public boolean existsEntry(TableObject object) {
+        return existsEntry(getRegisteredTable(object), object);
+    }
+
+    /**
+     * Registers a codec for a type. Columns of this type which are registered afterwards use this codec.
+     *
+     * @param type  The type
+     * @param codec The codec
+     */
+    public void registerTypeCodec(Class<?> type, TypeCodec codec) {
+        typeCodecs.put(type, codec);
+    }
+
+    /**
+     * Gets the codec for a type. Types without a registered codec are stored in a blob if they are
+     * {@link BinarySerializable} or serializable, their codec is created once per type.
+     *
+     * @param type The type
+     * @return The codec or null if the type is not supported
+     */
+    public TypeCodec getTypeCodec(Class<?> type) {
+        TypeCodec codec = typeCodecs.get(type);
+        if (codec != null) {
+            return codec;
+        }
+
+        if (BinarySerializable.class.isAssignableFrom(type)) {
+            codec = new BinaryTypeCodec(compactCodec, type);
+        } else if (RegisteredTable.isSerializable(type)) {
+            codec = new BinaryTypeCodec(fieldCodec, type);
+        } else {
+            return null;
+        }
+
+        TypeCodec created = typeCodecs.putIfAbsent(type, codec);
+        return created == null ? codec : created;
+    }
 
     /**
      * Checks whether the class is supported by this database/database engine
@@ -467,39 +1316,199 @@ public abstract class Database {
      * @param <T>   The type of the table
      */
     public <T extends TableObject> void copy(Class<T> table, Database to) {
-        RegisteredTable registeredTable = to.getRegisteredTable(table);
-        PreparedSelectQuery<T> prepare = this.<T>select().from(table).prepare();
-        PreparedQuery statement = registeredTable.createFullInsertStatement(to);
+        copy(table, to, DEFAULT_COPY_BATCH_SIZE, null);
+    }
+
+    /**
+     * Copies all entries of a table from this database to another database.
+     * The is a 100% copy. If the a entry with the same id exists it gets updated.
+     * <p/>
+     * The entries are read with a cursor and written in batches, every batch runs in its own transaction. So the memory
+     * usage only depends on the batch size and a failed copy can be resumed by copying again.
+     *
+     * @param table     The table
+     * @param to        The destination
+     * @param batchSize The number of entries which are written at once
+     * @param listener  The listener which gets notified after every batch or null
+     * @param <T>       The type of the table
+     * @return The number of copied entries
+     */
+    public <T extends TableObject> long copy(Class<T> table, Database to, int batchSize, CopyListener listener) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be greater than 0!");
+        }
 
-        for (T entry : prepare.getResults()) {
+        RegisteredTable destination = to.getRegisteredTable(table);
+        PreparedSelectQuery<T> select = this.<T>select().from(table).prepare();
+        select.setFetchSize(batchSize);
+        QueryCursor<T> cursor = select.getCursor();
 
-            if (to.existsEntry(registeredTable, entry)) {
-                to.update(entry);
-            } else {
-                int i = 0;
-                for (Column column : registeredTable.getRegisteredColumns()) {
-                    statement.set(column, i, column.getValue(entry));
-                    i++;
+        List<TableObject> batch = new ArrayList<TableObject>(batchSize);
+        long copied = 0;
+        try {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    to.copyBatch(destination, batch);
+                    copied += batch.size();
+                    batch.clear();
+                    if (listener != null) {
+                        listener.progress(destination, copied);
+                    }
                 }
-                statement.update();
             }
+
+            if (!batch.isEmpty()) {
+                to.copyBatch(destination, batch);
+                copied += batch.size();
+                if (listener != null) {
+                    listener.progress(destination, copied);
+                }
+            }
+        } finally {
+            cursor.close();
+            select.close();
         }
 
-        prepare.close();
-        statement.update();
+        if (listener != null) {
+            listener.finished(destination, copied);
+        }
+        return copied;
     }
 
-    public boolean isRegistered(Class<? extends TableObject> table) {
+    /**
+     * Copies all entries of multiple tables from this database to another database. Every table is copied like in
+     * {@link #copy(Class, Database, int, CopyListener)}, up to the given number of tables at the same time.
+     *
+     * @param tables      The tables
+     * @param to          The destination
+     * @param parallelism The maximal number of tables which are copied at the same time
+     * @param batchSize   The number of entries which are written at once
+     * @param listener    The listener which gets notified after every batch or null
+     * @throws QueryException If copying a table failed, the other tables are still copied
+     */
+    public void copy(Collection<Class<? extends TableObject>> tables, final Database to, int parallelism, final int batchSize, final CopyListener listener) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(tables.size(), 1)));
         try {
-            getRegisteredTable(table);
-            return true;
-        } catch (RegistrationException e) {
-            return false;
+            List<Future<Long>> copies = new ArrayList<Future<Long>>(tables.size());
+            for (final Class<? extends TableObject> table : tables) {
+                copies.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return copy(table, to, batchSize, listener);
+                    }
+                }));
+            }
+
+            Throwable failure = null;
+            for (Future<Long> copy : copies) {
+                try {
+                    copy.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new QueryException(e);
+                }
+            }
+
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure != null) {
+                throw new QueryException(failure);
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    /**
+     * Writes copied entries with their ids. Entries which exist already get updated.
+     *
+     * @param table   The table
+     * @param objects The entries
+     */
+    private void copyBatch(final RegisteredTable table, final List<TableObject> objects) {
+        //the existence checks and writes of a batch share one connection and are committed once
+        inTransaction(new Callable<Void>() {
+            @Override
+            public Void call() {
+                writeCopyBatch(table, objects);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Writes copied entries with private statements, so the batches of the table which other threads may fill at the
+     * same time are not executed with them
+     */
+    private void writeCopyBatch(RegisteredTable table, List<TableObject> objects) {
+        Lock lock = lockTable(table);
+        try {
+            Column idColumn = table.getIDColumn();
+            PreparedQuery upsert = table.createUpsertStatement(this);
+            if (upsert != null) {
+                try {
+                    for (TableObject object : objects) {
+                        int i = setColumnValues(upsert, table, object, idColumn);
+                        Object id = idColumn.getValue(object);
+                        upsert.set(idColumn, i, id);
+                        upsert.addBatch();
+                        uncache(table, id);
+                        forget(table, id);
+                    }
+                    upsert.executeBatches();
+                } finally {
+                    upsert.close();
+                }
+                return;
+            }
+
+            //without a upsert statement the existing entries are updated and the others are inserted with their id
+            PreparedQuery update = table.createUpdateStatement(this);
+            PreparedQuery insert = table.createFullInsertStatement(this);
+            try {
+                for (TableObject object : objects) {
+                    Object id = idColumn.getValue(object);
+                    if (existsEntry(table, object)) {
+                        int i = setColumnValues(update, table, object, idColumn);
+                        update.set(idColumn, i, id);
+                        update.addBatch();
+                    } else {
+                        int i = 0;
+                        for (Column column : table.getRegisteredColumns()) {
+                            insert.set(column, i, column.getValue(object));
+                            i++;
+                        }
+                        insert.addBatch();
+                    }
+                    uncache(table, id);
+                    forget(table, id);
+                }
+                update.executeBatches();
+                insert.executeBatches();
+            } finally {
+                update.close();
+                insert.close();
+            }
+        } finally {
+            unlockTable(lock);
+        }
+    }
+
+    public boolean isRegistered(Class<? extends TableObject> table) {
+        return registeredTables.containsKey(table);
+    }
+
     public boolean isRegistered(RegisteredTable table) {
-        return registeredTables.contains(table);
+        return registeredTables.containsValue(table);
     }
 
     @Override
@@ -528,9 +1537,5 @@ public abstract class Database {
 
     public abstract String getEngineName();
 
-    public static Lock getAccessLock() {
-        return accessLock;
-    }
-
     public abstract void sendKeepAliveQuery();
 }
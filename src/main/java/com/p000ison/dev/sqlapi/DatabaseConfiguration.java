@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 27.12.12 22:31
+ * Last modified: 19.10.26 14:00
  */
 
 package com.p000ison.dev.sqlapi;
@@ -46,6 +46,16 @@ public abstract class DatabaseConfiguration {
         return (Integer) properties.get(key);
     }
 
+    public final int getIntegerProperty(String key, int defaultValue) {
+        Object property = properties.get(key);
+        return property instanceof Number ? ((Number) property).intValue() : defaultValue;
+    }
+
+    public final long getLongProperty(String key, long defaultValue) {
+        Object property = properties.get(key);
+        return property instanceof Number ? ((Number) property).longValue() : defaultValue;
+    }
+
     public final Object getProperty(String key) {
         return properties.get(key);
     }
@@ -95,4 +105,118 @@ public abstract class DatabaseConfiguration {
             properties.put("autoReconnect", true);
         }
     }
+
+    /**
+     * Gets the amount of connections the pool keeps open even if they are idle. Default is 1
+     *
+     * @return The minimum size of the connection pool
+     */
+    public int getMinPoolSize() {
+        return getIntegerProperty("minPoolSize", 1);
+    }
+
+    public void setMinPoolSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The minimum pool size must be greater or equal 0!");
+        }
+        properties.put("minPoolSize", size);
+    }
+
+    /**
+     * Gets the maximum amount of connections which can be open at the same time. Default is 10
+     *
+     * @return The maximum size of the connection pool
+     */
+    public int getMaxPoolSize() {
+        return Math.max(getIntegerProperty("maxPoolSize", 10), getMinPoolSize());
+    }
+
+    public void setMaxPoolSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The maximum pool size must be greater than 0!");
+        }
+        properties.put("maxPoolSize", size);
+    }
+
+    /**
+     * Gets the time in milliseconds after which a idle connection above the minimum pool size gets closed. Default is 60 seconds
+     *
+     * @return The idle timeout in milliseconds
+     */
+    public long getIdleTimeout() {
+        return getLongProperty("idleTimeout", 60000L);
+    }
+
+    public void setIdleTimeout(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The idle timeout must be greater or equal 0!");
+        }
+        properties.put("idleTimeout", timeout);
+    }
+
+    /**
+     * Gets the time in milliseconds a query waits for a free connection before it fails. Default is 30 seconds
+     *
+     * @return The borrow timeout in milliseconds
+     */
+    public long getBorrowTimeout() {
+        return getLongProperty("borrowTimeout", 30000L);
+    }
+
+    public void setBorrowTimeout(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The borrow timeout must be greater or equal 0!");
+        }
+        properties.put("borrowTimeout", timeout);
+    }
+
+    /**
+     * Gets the time in milliseconds a connection may be idle before it gets validated when it is borrowed. Connections
+     * which fail the validation, for example because the server closed them after its wait_timeout, are replaced.
+     * Default is 5 seconds, 0 validates every borrowed connection
+     *
+     * @return The validation interval in milliseconds
+     */
+    public long getValidationInterval() {
+        return getLongProperty("validationInterval", 5000L);
+    }
+
+    public void setValidationInterval(long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("The validation interval must be greater or equal 0!");
+        }
+        properties.put("validationInterval", interval);
+    }
+
+    /**
+     * Gets the amount of prepared statements which are kept open per connection. Default is 64
+     *
+     * @return The size of the statement cache of every connection
+     */
+    public int getStatementCacheSize() {
+        return getIntegerProperty("statementCacheSize", 64);
+    }
+
+    /**
+     * Gets the amount of rows the driver fetches at once while reading results. Default is 0, which uses the default of the driver
+     *
+     * @return The fetch size
+     */
+    public int getFetchSize() {
+        return getIntegerProperty("fetchSize", 0);
+    }
+
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("The fetch size must be greater or equal 0!");
+        }
+        properties.put("fetchSize", fetchSize);
+    }
+
+    public void setStatementCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The statement cache size must be greater or equal 0!");
+        }
+        properties.put("statementCacheSize", size);
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 00:10
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.query.AggregateFunction;
+
+/**
+ * A aggregate of a column, used in {@link com.p000ison.dev.sqlapi.query.SelectQuery}
+ * <p/>
+ * <strong>Info:</strong>
+ * <p/>
+ * All Default... classes are pre-made classes which may already work with your database engine.
+ */
+class DefaultAggregate {
+
+    private final AggregateFunction function;
+    private final Column column;
+
+    DefaultAggregate(AggregateFunction function, Column column) {
+        this.function = function;
+        this.column = column;
+    }
+
+    /**
+     * Gets the expression of this aggregate, like SUM(money) or COUNT(*)
+     *
+     * @return The expression
+     */
+    protected String getName() {
+        return function.name() + '(' + (column == null ? "*" : column.getName()) + ')';
+    }
+
+    protected Column getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the type the result is read as. Counts are always Long and averages always Double, the other functions depend
+     * on the type of the column.
+     *
+     * @return Long, Double or null if the result is decoded like a value of the column
+     */
+    protected Class<?> getResultType() {
+        switch (function) {
+            case COUNT:
+                return Long.class;
+            case AVG:
+                return Double.class;
+        }
+
+        Class<?> type = column.getType();
+        if (type == long.class || type == int.class || type == short.class || type == byte.class
+                || type == Long.class || type == Integer.class || type == Short.class || type == Byte.class) {
+            return Long.class;
+        } else if (type == double.class || type == float.class || type == Double.class || type == Float.class) {
+            return Double.class;
+        } else if (function == AggregateFunction.SUM) {
+            throw new IllegalArgumentException("Only numbers can be summed!");
+        }
+        return null;
+    }
+}
@@ -14,19 +14,29 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 26.12.12 19:50
+ * Last modified: 19.10.26 00:10
  */
 
 package com.p000ison.dev.sqlapi;
 
 import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.query.AggregateFunction;
+import com.p000ison.dev.sqlapi.query.CompareOperator;
+import com.p000ison.dev.sqlapi.query.Page;
+import com.p000ison.dev.sqlapi.query.PageToken;
+import com.p000ison.dev.sqlapi.query.PreparedQuery;
 import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
 import com.p000ison.dev.sqlapi.query.SelectQuery;
+import com.p000ison.dev.sqlapi.query.Tuple;
 import com.p000ison.dev.sqlapi.query.WhereQuery;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A default select query which may work with your database engine
@@ -42,26 +52,232 @@ public class DefaultSelectQuery<T extends TableObject> implements SelectQuery<T>
     private Database database;
     private List<DefaultOrderEntry> orderBy = new CopyOnWriteArrayList<DefaultOrderEntry>();
     private int[] limits;
+    /**
+     * The selected columns or null for all
+     */
+    private List<Column> projection;
+    /**
+     * The token to continue after or null
+     */
+    private PageToken after;
+    /**
+     * The size of the page which is currently queried or 0 if the query is not paged
+     */
+    private int pageSize;
+    private List<DefaultAggregate> aggregates = new ArrayList<DefaultAggregate>();
+    private List<Column> groupBy = new ArrayList<Column>();
+    private List<DefaultWhereComparator<T>> having = new ArrayList<DefaultWhereComparator<T>>();
+    private final Lock lock = new ReentrantLock();
+
+    private static final byte SELECT = 0, COUNT = 1, EXISTS = 2, AGGREGATE = 3;
 
     public DefaultSelectQuery(Database database) {
         this.database = database;
     }
 
     @Override
-    public synchronized SelectQuery<T> from(Class<T> object) {
-        this.table = database.getRegisteredTable(object);
-        return this;
+    public SelectQuery<T> from(Class<T> object) {
+        lock.lock();
+        try {
+            this.table = database.getRegisteredTable(object);
+            return this;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized SelectQuery<T> from(RegisteredTable table) {
-        this.table = table;
-        return this;
+    public SelectQuery<T> from(RegisteredTable table) {
+        lock.lock();
+        try {
+            this.table = table;
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public WhereQuery<T> where() {
+        lock.lock();
+        try {
+            return whereQuery = new DefaultWhereQuery<T>(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized WhereQuery<T> where() {
-        return whereQuery = new DefaultWhereQuery<T>(this);
+    public SelectQuery<T> columns(Column... columns) {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The table must be selected before the columns!");
+            }
+            if (columns.length == 0) {
+                throw new IllegalArgumentException("There must be at least one column!");
+            }
+
+            for (Column column : columns) {
+                if (!table.getRegisteredColumns().contains(column)) {
+                    throw new QueryException("The column %s is not part of the table %s!", column.getName(), table.getName());
+                }
+            }
+
+            projection = Arrays.asList(columns.clone());
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> columns(String... columns) {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The table must be selected before the columns!");
+            }
+
+            Column[] resolved = new Column[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                resolved[i] = resolveColumn(columns[i]);
+            }
+
+            return columns(resolved);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> aggregate(AggregateFunction function, Column column) {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The table must be selected before the aggregates!");
+            } else if (column == null && function != AggregateFunction.COUNT) {
+                throw new IllegalArgumentException("Only COUNT can be used without a column!");
+            } else if (column != null && !table.getRegisteredColumns().contains(column)) {
+                throw new QueryException("The column %s is not part of the table %s!", column.getName(), table.getName());
+            }
+
+            DefaultAggregate aggregate = new DefaultAggregate(function, column);
+            //fails early if the function does not fit the type of the column
+            aggregate.getResultType();
+            aggregates.add(aggregate);
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> aggregate(AggregateFunction function, String column) {
+        lock.lock();
+        try {
+            return aggregate(function, column == null ? null : resolveColumn(column));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> groupBy(Column... columns) {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The table must be selected before the groups!");
+            }
+
+            for (Column column : columns) {
+                if (!table.getRegisteredColumns().contains(column)) {
+                    throw new QueryException("The column %s is not part of the table %s!", column.getName(), table.getName());
+                }
+                groupBy.add(column);
+            }
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> groupBy(String... columns) {
+        lock.lock();
+        try {
+            for (String column : columns) {
+                groupBy(resolveColumn(column));
+            }
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> having(AggregateFunction function, String column, CompareOperator operator, Object expected) {
+        lock.lock();
+        try {
+            if (column == null && function != AggregateFunction.COUNT) {
+                throw new IllegalArgumentException("Only COUNT can be used without a column!");
+            }
+
+            DefaultAggregate aggregate = new DefaultAggregate(function, column == null ? null : resolveColumn(column));
+            having.add(new DefaultWhereComparator<T>(this, operator, aggregate.getName(), expected));
+            return this;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Tuple> getAggregates() {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The query is not prepared!");
+            } else if (aggregates.isEmpty() && groupBy.isEmpty()) {
+                throw new QueryException("There are no aggregates or groups to select!");
+            }
+
+            PreparedQuery query = database.createTableStatement(table, getCachedQuery(AGGREGATE), false);
+            int index = bindComparators(query);
+            for (DefaultWhereComparator<T> comparator : having) {
+                query.set(index++, comparator.getExpectedValue());
+            }
+
+            int size = groupBy.size() + aggregates.size();
+            List<String> names = new ArrayList<String>(size);
+            List<Column> columns = new ArrayList<Column>(size);
+            List<Class<?>> types = new ArrayList<Class<?>>(size);
+            for (Column column : groupBy) {
+                names.add(column.getName());
+                columns.add(column);
+                types.add(null);
+            }
+            for (DefaultAggregate aggregate : aggregates) {
+                names.add(aggregate.getName());
+                columns.add(aggregate.getColumn());
+                types.add(aggregate.getResultType());
+            }
+
+            return query.executeTuples(Collections.unmodifiableList(names), columns, types);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Column resolveColumn(String name) {
+        if (table == null) {
+            throw new QueryException("The table must be selected before the columns!");
+        }
+
+        Column column = table.getColumn(name);
+        if (column == null) {
+            throw new QueryException("The column %s is not part of the table %s!", name, table.getName());
+        }
+        return column;
     }
 
     @Override
@@ -86,136 +302,475 @@ public class DefaultSelectQuery<T extends TableObject> implements SelectQuery<T>
         return this;
     }
 
-    protected synchronized DefaultWhereQuery<T> getWhereQuery() {
-        return whereQuery;
+    protected DefaultWhereQuery<T> getWhereQuery() {
+        lock.lock();
+        try {
+            return whereQuery;
+        } finally {
+            lock.unlock();
+        }
     }
-
     @Override
-    public final synchronized PreparedSelectQuery<T> prepare() {
-        String query = getQuery();
-        if (query == null) {
-            throw new QueryException("The query is not prepared!");
-        }
+    public final PreparedSelectQuery<T> prepare() {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The query is not prepared!");
+            }
 
-        PreparedSelectQuery<T> preparedQuery = database.createPreparedSelectQuery(getQuery(), table);
-        if (whereQuery != null) {
-            List<DefaultWhereComparator<T>> comparators = whereQuery.getComparators();
-            for (int i = 0; i < comparators.size(); i++) {
-                DefaultWhereComparator<T> comparator = comparators.get(i);
-                if (!comparator.isPrepared()) {
-                    preparedQuery.set(i, comparator.getExpectedValue());
+            List<Column> columns = getSelectedColumns();
+            PreparedSelectQuery<T> preparedQuery = database.createPreparedSelectQuery(getCachedQuery(SELECT), table, columns, projection == null ? columns.size() : projection.size());
+            int index = bindComparators(preparedQuery);
+
+            if (pageSize != 0 && after != null) {
+                //the parameters follow the seek condition: the leading column, then every branch of the OR
+                List<Column> keys = getKeyColumns();
+                preparedQuery.set(keys.get(0), index++, after.getValue(0));
+                if (keys.size() > 1) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        for (int j = 0; j <= i; j++) {
+                            preparedQuery.set(keys.get(j), index++, after.getValue(j));
+                        }
+                    }
                 }
             }
+
+            return preparedQuery;
+        } finally {
+            lock.unlock();
         }
+    }
+
+    @Override
+    public long count() {
+        return executeScalar(COUNT);
+    }
 
-        return preparedQuery;
+    @Override
+    public boolean exists() {
+        return executeScalar(EXISTS) != -1;
     }
 
-    protected synchronized String getQuery() {
-        if (table == null) {
-            return null;
+    private long executeScalar(byte type) {
+        lock.lock();
+        try {
+            if (table == null) {
+                throw new QueryException("The query is not prepared!");
+            }
+
+            PreparedQuery query = database.createTableStatement(table, getCachedQuery(type), false);
+            bindComparators(query);
+            return query.executeScalar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the sql of this query. The sql only depends on the shape of the query, so it is built once per shape. The
+     * statement itself is cached by the connections.
+     *
+     * @param type Whether the entries are selected, counted or checked for existence
+     * @return The sql
+     */
+    private String getCachedQuery(byte type) {
+        SelectShape shape;
+        if (type == SELECT) {
+            byte keyset = pageSize == 0 ? (byte) 0 : after == null ? (byte) 1 : (byte) 2;
+            shape = new SelectShape(projection == null ? null : getSelectedColumns(), getComparators(), orderBy, getLimits(), keyset, type);
+        } else if (type == AGGREGATE) {
+            shape = new SelectShape(null, getComparators(), orderBy, limits, (byte) 0, type, aggregates, groupBy, having);
+        } else {
+            shape = new SelectShape(null, getComparators(), Collections.<DefaultOrderEntry>emptyList(), null, (byte) 0, type);
+        }
+
+        String query = table.getSelectQuery(shape);
+        if (query == null) {
+            query = getQuery(type);
+            table.putSelectQuery(shape, query);
         }
+        return query;
+    }
 
-        StringBuilder query = new StringBuilder("SELECT ");
-        List<Column> columns = table.getRegisteredColumns();
+    /**
+     * Sets the compared values of the conditions
+     *
+     * @param preparedQuery The query
+     * @return The index of the next parameter
+     */
+    private int bindComparators(PreparedQuery preparedQuery) {
+        List<DefaultWhereComparator<T>> comparators = getComparators();
+        if (comparators == null) {
+            return 0;
+        }
 
-        int end = columns.size() - 1;
-        for (int i = 0; i < columns.size(); i++) {
-            Column column = columns.get(i);
-            query.append(column.getName());
-            if (i != end) {
-                query.append(',');
+        for (int i = 0; i < comparators.size(); i++) {
+            DefaultWhereComparator<T> comparator = comparators.get(i);
+            if (!comparator.isPrepared()) {
+                preparedQuery.set(i, comparator.getExpectedValue());
             }
         }
+        return comparators.size();
+    }
+
+    private List<DefaultWhereComparator<T>> getComparators() {
+        return whereQuery == null ? null : whereQuery.getComparators();
+    }
 
-        query.append(" FROM ").append(table.getName());
+    protected String getQuery() {
+        return getQuery(SELECT);
+    }
 
-        if (getWhereQuery() != null) {
-            query.append(" WHERE ");
-            List<DefaultWhereComparator<T>> comparators = whereQuery.getComparators();
+    private String getQuery(byte type) {
+        lock.lock();
+        try {
+            if (table == null) {
+                return null;
+            }
 
-            if (!comparators.isEmpty()) {
-                for (DefaultWhereComparator comparator : comparators) {
-                    query.append(comparator.getColumn()).append(comparator.getOperator()).append('?');
+            StringBuilder query = new StringBuilder("SELECT ");
+            if (type == COUNT) {
+                query.append("COUNT(*)");
+            } else if (type == EXISTS) {
+                query.append('1');
+            } else if (type == AGGREGATE) {
+                for (Column column : groupBy) {
+                    query.append(column.getName()).append(',');
+                }
+                for (DefaultAggregate aggregate : aggregates) {
+                    query.append(aggregate.getName()).append(',');
+                }
+                query.deleteCharAt(query.length() - 1);
+            } else {
+                List<Column> columns = getSelectedColumns();
 
-                    if (comparator.isAnd()) {
-                        query.append(" AND ");
-                    } else if (comparator.isOr()) {
-                        query.append(" OR ");
-                    } else {
-                        break;
+                int end = columns.size() - 1;
+                for (int i = 0; i < columns.size(); i++) {
+                    Column column = columns.get(i);
+                    query.append(column.getName());
+                    if (i != end) {
+                        query.append(',');
                     }
+                }
+            }
+
+            query.append(" FROM ").append(table.getName());
+
+            boolean seek = type == SELECT && pageSize != 0 && after != null;
+            List<DefaultWhereComparator<T>> comparators = getComparators();
+            boolean conditions = comparators != null && !comparators.isEmpty();
+            if (conditions || seek) {
+                query.append(" WHERE ");
+
+                if (conditions) {
+                    if (seek) {
+                        query.append('(');
+                    }
+                    for (DefaultWhereComparator comparator : comparators) {
+                        query.append(comparator.getColumn()).append(comparator.getOperator()).append('?');
+
+                        if (comparator.isAnd()) {
+                            query.append(" AND ");
+                        } else if (comparator.isOr()) {
+                            query.append(" OR ");
+                        } else {
+                            break;
+                        }
+
+                    }
+                    if (seek) {
+                        query.append(") AND ");
+                    }
+                }
 
+                if (seek) {
+                    appendSeekCondition(query);
                 }
             }
-        }
 
-        if (!orderBy.isEmpty()) {
-            query.append(" ORDER BY ");
-            for (DefaultOrderEntry entry : orderBy) {
-                if (entry.getOrder() != null) {
-                    query.append(entry.getOrder());
-                    if (!entry.isDescending()) {
-                        query.append(',');
+            if (type == AGGREGATE) {
+                if (!groupBy.isEmpty()) {
+                    query.append(" GROUP BY ");
+                    for (Column column : groupBy) {
+                        query.append(column.getName()).append(',');
+                    }
+                    query.deleteCharAt(query.length() - 1);
+                }
+
+                if (!having.isEmpty()) {
+                    query.append(" HAVING ");
+                    for (int i = 0; i < having.size(); i++) {
+                        DefaultWhereComparator<T> comparator = having.get(i);
+                        if (i != 0) {
+                            query.append(" AND ");
+                        }
+                        query.append(comparator.getColumn()).append(comparator.getOperator()).append('?');
+                    }
+                }
+            }
+
+            if (type == COUNT || type == EXISTS) {
+                if (type == EXISTS) {
+                    query.append(" LIMIT 1");
+                }
+            } else if (type == SELECT && pageSize != 0) {
+                query.append(" ORDER BY ");
+                List<Column> keys = getKeyColumns();
+                boolean[] descending = getKeyDescending();
+                for (int i = 0; i < keys.size(); i++) {
+                    query.append(keys.get(i).getName());
+                    if (descending[i]) {
+                        query.append(" DESC");
+                    }
+                    query.append(',');
+                }
+
+                query.deleteCharAt(query.length() - 1);
+            } else if (!orderBy.isEmpty()) {
+                query.append(" ORDER BY ");
+                for (DefaultOrderEntry entry : orderBy) {
+                    if (entry.getOrder() != null) {
+                        query.append(entry.getOrder());
+                        if (!entry.isDescending()) {
+                            query.append(',');
+                        }
+                    }
+                    if (entry.isDescending()) {
+                        query.append(" DESC,");
                     }
                 }
-                if (entry.isDescending()) {
-                    query.append(" DESC,");
+
+                query.deleteCharAt(query.length() - 1);
+            }
+
+            int[] limits = type == SELECT || type == AGGREGATE ? getLimits() : null;
+            if (limits != null) {
+                query.append(" LIMIT ");
+                if (limits.length == 1) {
+                    query.append(limits[0]);
+                } else {
+                    query.append(limits[0]).append(',').append(limits[1]);
                 }
             }
 
-            query.deleteCharAt(query.length() - 1);
+            query.append(';');
+
+            return query.toString();
+        } finally {
+            lock.unlock();
         }
+    }
 
-        if (limits != null) {
-            query.append(" LIMIT ");
-            if (limits.length == 1) {
-                query.append(limits[0]);
-            } else {
-                query.append(limits[0]).append(',').append(limits[1]);
+    /**
+     * Appends the condition which selects the entries after the token. Not every database supports comparing row
+     * values, so (a, b) > (?, ?) is expanded to a >= ? AND (a > ? OR (a = ? AND b > ?)). The leading comparison lets
+     * the database seek with an index on the first column.
+     *
+     * @param query The query to append to
+     */
+    private void appendSeekCondition(StringBuilder query) {
+        List<Column> keys = getKeyColumns();
+        boolean[] descending = getKeyDescending();
+
+        if (keys.size() == 1) {
+            query.append(keys.get(0).getName()).append(descending[0] ? "<?" : ">?");
+            return;
+        }
+
+        query.append(keys.get(0).getName()).append(descending[0] ? "<=?" : ">=?").append(" AND (");
+        for (int i = 0; i < keys.size(); i++) {
+            if (i != 0) {
+                query.append(" OR ");
             }
+            query.append('(');
+            for (int j = 0; j < i; j++) {
+                query.append(keys.get(j).getName()).append("=? AND ");
+            }
+            query.append(keys.get(i).getName()).append(descending[i] ? "<?" : ">?").append(')');
+        }
+        query.append(')');
+    }
+
+    /**
+     * Gets the columns a page is ordered by: the order columns followed by the id, if it is not one of them
+     *
+     * @return The key columns
+     */
+    private List<Column> getKeyColumns() {
+        List<Column> keys = new ArrayList<Column>(orderBy.size() + 1);
+        for (DefaultOrderEntry entry : orderBy) {
+            Column column = entry.getOrder() == null ? null : table.getColumn(entry.getOrder());
+            if (column == null) {
+                throw new QueryException("The order %s is not a column of the table %s!", entry.getOrder(), table.getName());
+            }
+            keys.add(column);
+        }
+
+        Column id = table.getIDColumn();
+        if (!keys.contains(id)) {
+            keys.add(id);
+        }
+        return keys;
+    }
+
+    private boolean[] getKeyDescending() {
+        boolean[] descending = new boolean[orderBy.size() + 1];
+        for (int i = 0; i < orderBy.size(); i++) {
+            descending[i] = orderBy.get(i).isDescending();
+        }
+        return descending;
+    }
+
+    private int[] getLimits() {
+        return pageSize == 0 ? limits : new int[]{pageSize + 1};
+    }
+
+    /**
+     * Gets the columns in the order they are selected. If only some columns are selected, the id follows them if it is
+     * not one of them.
+     *
+     * @return The columns
+     */
+    private List<Column> getSelectedColumns() {
+        if (projection == null) {
+            return table.getRegisteredColumns();
         }
 
-        query.append(';');
+        Column id = table.getIDColumn();
+        if (projection.contains(id)) {
+            return projection;
+        }
 
-        return query.toString();
+        List<Column> columns = new ArrayList<Column>(projection.size() + 1);
+        columns.addAll(projection);
+        columns.add(id);
+        return columns;
     }
 
     @Override
-    public synchronized SelectQuery<T> limit(int max) {
-        if (max < 1) {
-            throw new IllegalArgumentException("The limit must be greater than 0!");
+    public SelectQuery<T> limit(int max) {
+        lock.lock();
+        try {
+            if (max < 1) {
+                throw new IllegalArgumentException("The limit must be greater than 0!");
+            }
+            limits = new int[]{max};
+            return this;
+        } finally {
+            lock.unlock();
         }
-        limits = new int[]{max};
-        return this;
     }
 
     @Override
-    public synchronized SelectQuery<T> limit(int from, int to) {
-        if (from > 0 || to > 0) {
-            throw new IllegalArgumentException("The limit must be greater than 0!");
-        } else if (from > to) {
-            throw new IllegalArgumentException("The from limit must be less than the to limit!");
+    public SelectQuery<T> limit(int from, int to) {
+        lock.lock();
+        try {
+            if (from < 0) {
+                throw new IllegalArgumentException("The offset must not be negative!");
+            } else if (to < 1) {
+                throw new IllegalArgumentException("The limit must be greater than 0!");
+            }
+
+            limits = new int[]{from, to};
+            return this;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        limits = new int[]{from, to};
-        return this;
+    @Override
+    public SelectQuery<T> seekAfter(PageToken token) {
+        lock.lock();
+        try {
+            this.after = token;
+            return this;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized SelectQuery<T> reset() {
-        this.table = null;
-        this.whereQuery = null;
-        this.orderBy = new ArrayList<DefaultOrderEntry>();
-        this.limits = null;
-        return this;
+    public Page<T> page(int size) {
+        lock.lock();
+        try {
+            if (size < 1) {
+                throw new IllegalArgumentException("The page size must be greater than 0!");
+            } else if (table == null) {
+                throw new QueryException("The query is not prepared!");
+            }
+
+            List<Column> keys = getKeyColumns();
+            if (projection != null && !getSelectedColumns().containsAll(keys)) {
+                throw new QueryException("All order columns must be selected to page the query!");
+            }
+            if (after != null) {
+                List<String> names = after.getColumns();
+                boolean matches = names.size() == keys.size();
+                for (int i = 0; matches && i < names.size(); i++) {
+                    matches = names.get(i).equals(keys.get(i).getName());
+                }
+                if (!matches) {
+                    throw new QueryException("The token %s does not match the order of the query!", after);
+                }
+            }
+
+            List<T> results;
+            pageSize = size;
+            try {
+                results = prepare().getResults();
+            } finally {
+                pageSize = 0;
+            }
+
+            if (results.size() <= size) {
+                return new Page<T>(results, null);
+            }
+
+            results = new ArrayList<T>(results.subList(0, size));
+            T last = results.get(size - 1);
+            List<String> names = new ArrayList<String>(keys.size());
+            Object[] values = new Object[keys.size()];
+            for (int i = 0; i < values.length; i++) {
+                Column column = keys.get(i);
+                names.add(column.getName());
+                values[i] = column.getValue(last);
+            }
+
+            return new Page<T>(results, new PageToken(names, values));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SelectQuery<T> reset() {
+        lock.lock();
+        try {
+            this.table = null;
+            this.whereQuery = null;
+            this.orderBy = new ArrayList<DefaultOrderEntry>();
+            this.limits = null;
+            this.projection = null;
+            this.after = null;
+            this.aggregates = new ArrayList<DefaultAggregate>();
+            this.groupBy = new ArrayList<Column>();
+            this.having = new ArrayList<DefaultWhereComparator<T>>();
+            return this;
+        } finally {
+            lock.unlock();
+        }
     }
 
     protected Database getDatabase() {
         return database;
     }
 
-    protected synchronized RegisteredTable getTable() {
-        return table;
+    protected RegisteredTable getTable() {
+        lock.lock();
+        try {
+            return table;
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,305 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 22:15
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
+import com.p000ison.dev.sqlapi.query.PreparedQuery;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the column values of the objects of one table when they are loaded or saved, so an update writes only the
+ * columns which changed since then and is skipped if nothing changed.
+ * <p/>
+ * The values are stored the way they are written to the database, so changes inside of mutable objects are detected
+ * as well. This costs encoding every column once more when an object is loaded. The objects are weakly referenced, so
+ * the snapshots of objects which are no longer used get dropped.
+ */
+public final class DirtyTracker {
+
+    /**
+     * The mask of the changed columns if the object has no snapshot
+     */
+    public static final long ALL_COLUMNS = -1L;
+    /**
+     * The columns are stored in the bits of a long
+     */
+    static final int MAX_COLUMNS = 63;
+
+    private final Column idColumn;
+    private final List<Column> columns = new ArrayList<Column>();
+    private final TypeCodec[] codecs;
+    private final ConcurrentMap<Long, Snapshot> snapshots = new ConcurrentHashMap<Long, Snapshot>();
+    private final ReferenceQueue<TableObject> collected = new ReferenceQueue<TableObject>();
+    private final List<PendingSnapshot> pending = new ArrayList<PendingSnapshot>();
+
+    DirtyTracker(RegisteredTable table) {
+        idColumn = table.getIDColumn();
+        for (Column column : table.getRegisteredColumns()) {
+            if (!column.isID()) {
+                columns.add(column);
+            }
+        }
+
+        if (columns.size() > MAX_COLUMNS) {
+            throw new IllegalArgumentException(String.format("Dirty tracking supports at most %d columns!", MAX_COLUMNS));
+        }
+
+        codecs = new TypeCodec[columns.size()];
+        for (int i = 0; i < codecs.length; i++) {
+            codecs[i] = columns.get(i).getCodec();
+        }
+    }
+
+    /**
+     * Remembers the current values of a object
+     *
+     * @param object The object
+     */
+    public void snapshot(TableObject object) {
+        snapshot(object, false);
+    }
+
+    /**
+     * Remembers the current values of a object
+     *
+     * @param object  The object
+     * @param partial Whether only some columns of the object were loaded
+     */
+    public void snapshot(TableObject object, boolean partial) {
+        snapshot(object, getId(object), encode(object), partial);
+    }
+
+    void snapshot(TableObject object, long id, Object[] values, boolean partial) {
+        expungeCollected();
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof byte[]) {
+                //the codec may reuse the array
+                values[i] = ((byte[]) values[i]).clone();
+            }
+        }
+
+        snapshots.put(id, new Snapshot(object, id, values, partial, collected));
+    }
+
+    /**
+     * Remembers the values of a object which was added to a update batch. They become the snapshot once the batch was
+     * executed. Must be called while holding the lock of the table.
+     */
+    void addPendingSnapshot(TableObject object, long id, Object[] values, boolean partial) {
+        pending.add(new PendingSnapshot(object, id, values, partial));
+    }
+
+    /**
+     * Takes or drops the snapshots of the executed update batches. Must be called while holding the lock of the table.
+     *
+     * @param success Whether the batches were executed successfully
+     */
+    void completePendingSnapshots(boolean success) {
+        if (success) {
+            for (PendingSnapshot snapshot : pending) {
+                snapshot(snapshot.object, snapshot.id, snapshot.values, snapshot.partial);
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Drops the snapshot of a entry
+     *
+     * @param id The id of the entry
+     */
+    public void forget(long id) {
+        snapshots.remove(id);
+    }
+
+    /**
+     * Checks whether there is a snapshot of this object
+     *
+     * @param object The object
+     * @return Whether the object is tracked
+     */
+    public boolean isTracked(TableObject object) {
+        Snapshot snapshot = snapshots.get(getId(object));
+        return snapshot != null && snapshot.get() == object;
+    }
+
+    /**
+     * Checks whether only some columns of a tracked object were loaded. Such an object does not match the entry in the
+     * database, so it must not be cached.
+     *
+     * @param object The object
+     * @param id     The id of the object
+     * @return Whether the object is tracked and partial
+     */
+    boolean isPartial(TableObject object, long id) {
+        Snapshot snapshot = snapshots.get(id);
+        return snapshot != null && snapshot.partial && snapshot.get() == object;
+    }
+
+    /**
+     * Encodes the values of all columns except the id
+     *
+     * @param object The object
+     * @return The encoded values
+     */
+    Object[] encode(TableObject object) {
+        Object[] values = new Object[codecs.length];
+        for (int i = 0; i < values.length; i++) {
+            Object value = columns.get(i).getValue(object);
+            values[i] = codecs[i] == null ? value : codecs[i].encode(value);
+        }
+        return values;
+    }
+
+    /**
+     * Compares the values with the snapshot of the object
+     *
+     * @param object The object
+     * @param id     The id of the object
+     * @param values The encoded values of the object
+     * @return The mask of the changed columns, {@link #ALL_COLUMNS} if the object has no snapshot
+     */
+    long getChangedColumns(TableObject object, long id, Object[] values) {
+        Snapshot snapshot = snapshots.get(id);
+        if (snapshot == null || snapshot.get() != object) {
+            return ALL_COLUMNS;
+        }
+
+        long changed = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (!equals(snapshot.values[i], values[i])) {
+                changed |= 1L << i;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the mask which contains every column
+     *
+     * @return The mask
+     */
+    long getAllColumns() {
+        return (1L << codecs.length) - 1;
+    }
+
+    /**
+     * Binds the values of the columns in the mask to a statement, in the order of the columns
+     *
+     * @param statement The statement
+     * @param mask      The columns to bind
+     * @param values    The encoded values
+     * @return The index of the next parameter
+     */
+    int bind(PreparedQuery statement, long mask, Object[] values) {
+        int index = 0;
+        for (int i = 0; i < values.length; i++) {
+            if ((mask & 1L << i) == 0) {
+                continue;
+            }
+
+            if (codecs[i] == null) {
+                statement.set(columns.get(i), index, values[i]);
+            } else {
+                statement.set(index, values[i], codecs[i].getSQLType());
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the columns in a mask
+     *
+     * @param mask The mask
+     * @return The columns in the order of the table
+     */
+    List<Column> getColumns(long mask) {
+        List<Column> changed = new ArrayList<Column>(Long.bitCount(mask));
+        for (int i = 0; i < columns.size(); i++) {
+            if ((mask & 1L << i) != 0) {
+                changed.add(columns.get(i));
+            }
+        }
+        return changed;
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    public int size() {
+        expungeCollected();
+        return snapshots.size();
+    }
+
+    private long getId(TableObject object) {
+        return ((Number) idColumn.getValue(object)).longValue();
+    }
+
+    private static boolean equals(Object a, Object b) {
+        if (a instanceof byte[] && b instanceof byte[]) {
+            return Arrays.equals((byte[]) a, (byte[]) b);
+        }
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void expungeCollected() {
+        Snapshot snapshot;
+        while ((snapshot = (Snapshot) collected.poll()) != null) {
+            snapshots.remove(snapshot.id, snapshot);
+        }
+    }
+
+    private static final class PendingSnapshot {
+        private final TableObject object;
+        private final long id;
+        private final Object[] values;
+        private final boolean partial;
+
+        private PendingSnapshot(TableObject object, long id, Object[] values, boolean partial) {
+            this.object = object;
+            this.id = id;
+            this.values = values;
+            this.partial = partial;
+        }
+    }
+
+    private static final class Snapshot extends WeakReference<TableObject> {
+        private final long id;
+        private final Object[] values;
+        private final boolean partial;
+
+        private Snapshot(TableObject object, long id, Object[] values, boolean partial, ReferenceQueue<TableObject> queue) {
+            super(object, queue);
+            this.id = id;
+            this.values = values;
+            this.partial = partial;
+        }
+    }
+}
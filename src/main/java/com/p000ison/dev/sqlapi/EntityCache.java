@@ -0,0 +1,202 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 19:30
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded identity map of the objects of one table, keyed by their id.
+ * <p/>
+ * The cache is a segmented LRU: new objects enter a small probation segment and move to the protected segment when
+ * they are used again. A select over many rows therefore only replaces the objects in probation and does not evict the
+ * objects which are used frequently.
+ * <p/>
+ * The cache is kept up to date by the inserts, updates and deletes of the {@link Database}. Changes which are made
+ * to the database in other ways are not visible while an object stays cached.
+ */
+public final class EntityCache {
+
+    private final int maxSize;
+    private final int protectedSize;
+    private final Lock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, TableObject> probation = new LinkedHashMap<Long, TableObject>(16, 0.75F, true);
+    private final LinkedHashMap<Long, TableObject> protectedEntries = new LinkedHashMap<Long, TableObject>(16, 0.75F, true);
+
+    EntityCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the cache must be at least 1!");
+        }
+
+        this.maxSize = maxSize;
+        //a fifth of the cache is for new objects
+        this.protectedSize = maxSize - Math.max(1, maxSize / 5);
+    }
+
+    /**
+     * Gets a cached object
+     *
+     * @param id The id of the object
+     * @return The object or null if it is not cached
+     */
+    public TableObject get(long id) {
+        lock.lock();
+        try {
+            TableObject object = protectedEntries.get(id);
+            if (object != null) {
+                return object;
+            }
+
+            object = probation.get(id);
+            if (object != null && protectedSize > 0) {
+                //used a second time, protect it
+                probation.remove(id);
+                protectedEntries.put(id, object);
+                if (protectedEntries.size() > protectedSize) {
+                    Map.Entry<Long, TableObject> eldest = removeEldest(protectedEntries);
+                    probation.put(eldest.getKey(), eldest.getValue());
+                    trimProbation();
+                }
+            }
+            return object;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a object is cached, without counting it as used
+     *
+     * @param id The id of the object
+     * @return Whether the object is cached
+     */
+    public boolean contains(long id) {
+        lock.lock();
+        try {
+            return protectedEntries.containsKey(id) || probation.containsKey(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a object
+     *
+     * @param id     The id of the object
+     * @param object The object
+     */
+    public void put(long id, TableObject object) {
+        lock.lock();
+        try {
+            if (protectedEntries.containsKey(id)) {
+                protectedEntries.put(id, object);
+            } else {
+                probation.put(id, object);
+                trimProbation();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a object, unless there is already an object with the same id cached
+     *
+     * @param id     The id of the object
+     * @param object The object
+     * @return The cached object, which is the passed one if there was none yet
+     */
+    public TableObject putIfAbsent(long id, TableObject object) {
+        lock.lock();
+        try {
+            TableObject cached = protectedEntries.get(id);
+            if (cached == null) {
+                cached = probation.get(id);
+            }
+            if (cached != null) {
+                return cached;
+            }
+
+            probation.put(id, object);
+            trimProbation();
+            return object;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a object, for example if the entry was changed in the database by someone else
+     *
+     * @param id The id of the object
+     */
+    public void remove(long id) {
+        lock.lock();
+        try {
+            if (protectedEntries.remove(id) == null) {
+                probation.remove(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all objects from the cache
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            probation.clear();
+            protectedEntries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return probation.size() + protectedEntries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private void trimProbation() {
+        while (probation.size() + protectedEntries.size() > maxSize) {
+            removeEldest(probation);
+        }
+    }
+
+    private static Map.Entry<Long, TableObject> removeEldest(LinkedHashMap<Long, TableObject> entries) {
+        Iterator<Map.Entry<Long, TableObject>> it = entries.entrySet().iterator();
+        Map.Entry<Long, TableObject> eldest = it.next();
+        it.remove();
+        return eldest;
+    }
+}
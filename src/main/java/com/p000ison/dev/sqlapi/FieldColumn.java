@@ -20,12 +20,9 @@
 package com.p000ison.dev.sqlapi;
 
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
-import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
 
 import java.lang.reflect.Field;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation for fields of {@link Column}
@@ -33,12 +30,29 @@ import java.util.concurrent.atomic.AtomicLong;
 final class FieldColumn extends Column {
 
     private Field field;
-    private DatabaseColumn annotation;
+    private ColumnAccessor accessor;
+    private final String name;
+    private final int position;
+    private final String defaultValue;
+    private final int[] length;
+    private final boolean autoIncrement, notNull, unique, id, saveValueAfterLoading;
+    private final Class<? extends BinaryCodec> binaryCodec;
 
     FieldColumn(Field field, DatabaseColumn annotation) {
         this.field = field;
         field.setAccessible(true);
-        this.annotation = annotation;
+        this.accessor = ColumnAccessor.forField(field);
+        //the attributes of the annotation are read on every row, so copy them
+        this.name = annotation.databaseName();
+        this.position = annotation.position();
+        this.defaultValue = annotation.defaultValue();
+        this.length = annotation.lenght();
+        this.autoIncrement = annotation.autoIncrement();
+        this.notNull = annotation.notNull();
+        this.unique = annotation.unique();
+        this.id = annotation.id();
+        this.saveValueAfterLoading = annotation.saveValueAfterLoading();
+        this.binaryCodec = annotation.codec();
     }
 
     @Override
@@ -48,94 +62,57 @@ final class FieldColumn extends Column {
 
     @Override
     public String getName() {
-        return annotation.databaseName();
+        return name;
     }
 
     @Override
     public int getPosition() {
-        return annotation.position();
+        return position;
     }
 
     @Override
     public String getDefaultValue() {
-        return annotation.defaultValue();
+        return defaultValue;
     }
 
     @Override
     public int[] getLength() {
-        return annotation.lenght();
+        return length;
     }
 
     @Override
     public boolean isAutoIncrementing() {
-        return annotation.autoIncrement();
+        return autoIncrement;
     }
 
     @Override
     public boolean isNotNull() {
-        return annotation.notNull();
+        return notNull;
     }
 
     @Override
     public boolean isUnique() {
-        return annotation.unique();
+        return unique;
     }
 
     @Override
     public boolean isSaveInputAfterLoading() {
-        return annotation.saveValueAfterLoading();
+        return saveValueAfterLoading;
+    }
+
+    @Override
+    public Class<? extends BinaryCodec> getBinaryCodec() {
+        return binaryCodec;
     }
 
     @Override
     public void setValue(TableObject tableObject, Object object) {
-        try {
-            Class type = getType();
-            if (type == AtomicBoolean.class) {
-                if (!(object instanceof Boolean)) {
-                    throw new QueryException("The selected boolean was not a Boolean and I was unable to create a AtomicBoolean!");
-                }
-                AtomicBoolean atomicBoolean = (AtomicBoolean) getValue(tableObject);
-                if (atomicBoolean == null) {
-                    field.set(tableObject, new AtomicBoolean((Boolean) object));
-                } else {
-                    atomicBoolean.set((Boolean) object);
-                }
-            } else if (type == AtomicInteger.class) {
-                if (!(object instanceof Integer)) {
-                    throw new QueryException("The selected integer was not a Integer and I was unable to create a AtomicInteger!");
-                }
-                AtomicInteger atomicInteger = (AtomicInteger) getValue(tableObject);
-                if (atomicInteger == null) {
-                    field.set(tableObject, new AtomicInteger((Integer) object));
-                } else {
-                    atomicInteger.set((Integer) object);
-                }
-            } else if (type == AtomicLong.class) {
-                if (!(object instanceof Long)) {
-                    throw new QueryException("The selected long was not a Long and I was unable to create a AtomicLong!");
-                }
-                AtomicLong atomicLong = ((AtomicLong) getValue(tableObject));
-                if (atomicLong == null) {
-                    field.set(tableObject, new AtomicLong((Long) object));
-                } else {
-                    atomicLong.set((Long) object);
-                }
-            } else {
-                field.set(tableObject, object);
-            }
-
-        } catch (IllegalAccessException e) {
-            throw new QueryException(e);
-        }
+        accessor.set(tableObject, object);
     }
 
     @Override
     public Object getValue(TableObject tableObject) {
-        try {
-            return field.get(tableObject);
-        } catch (IllegalAccessException e) {
-            throw new QueryException(e);
-        }
+        return accessor.get(tableObject);
     }
 
     @Override
@@ -158,7 +135,7 @@ final class FieldColumn extends Column {
 
     @Override
     public boolean isID() {
-        return annotation.id();
+        return id;
     }
 
     @Override
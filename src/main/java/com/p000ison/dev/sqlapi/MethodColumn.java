@@ -21,10 +21,9 @@ package com.p000ison.dev.sqlapi;
 
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumnGetter;
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumnSetter;
-import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
 import com.p000ison.dev.sqlapi.exception.TableBuildingException;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 /**
@@ -34,6 +33,9 @@ final class MethodColumn extends Column {
 
     private Method getter, setter;
     private DatabaseColumnSetter annotation;
+    private ColumnAccessor accessor;
+    private String name;
+    private boolean id, saveValueAfterLoading;
 
     MethodColumn() {
     }
@@ -58,6 +60,7 @@ final class MethodColumn extends Column {
         }
         this.getter = getter;
         this.getter.setAccessible(true);
+        this.name = getter.getAnnotation(DatabaseColumnGetter.class).databaseName();
     }
 
     public Method getSetter() {
@@ -81,10 +84,16 @@ final class MethodColumn extends Column {
 
         this.setter = setter;
         setter.setAccessible(true);
+        if (name == null) {
+            name = setter.getAnnotation(DatabaseColumnSetter.class).databaseName();
+        }
     }
 
     void setAnnotation(DatabaseColumnSetter annotation) {
         this.annotation = annotation;
+        //these attributes are read on every row, so copy them
+        this.id = annotation.id();
+        this.saveValueAfterLoading = annotation.saveValueAfterLoading();
     }
 
     public boolean isNull() {
@@ -115,13 +124,7 @@ final class MethodColumn extends Column {
 
     @Override
     public String getName() {
-        if (getter != null) {
-            return getter.getAnnotation(DatabaseColumnGetter.class).databaseName();
-        }
-        if (setter != null) {
-            return setter.getAnnotation(DatabaseColumnSetter.class).databaseName();
-        }
-        return null;
+        return name;
     }
 
     @Override
@@ -133,6 +136,7 @@ final class MethodColumn extends Column {
         if (!getType().equals(getSetter().getParameterTypes()[0])) {
             throw new TableBuildingException("The parameter of the setter method and the return type of the getter method do not equal: %s != %s", getSetter().getName(), getGetter().getName());
         }
+        accessor = ColumnAccessor.forMethods(getter, setter);
     }
 
     @Override
@@ -160,36 +164,29 @@ final class MethodColumn extends Column {
         return annotation.unique();
     }
 
+    @Override
+    public Class<? extends BinaryCodec> getBinaryCodec() {
+        return annotation.codec();
+    }
+
     @Override
     public boolean isID() {
-        return annotation.id();
+        return id;
     }
 
     @Override
     public boolean isSaveInputAfterLoading() {
-        return annotation.saveValueAfterLoading();
+        return saveValueAfterLoading;
     }
 
     @Override
     public void setValue(TableObject tableObject, Object object) {
-        try {
-            setter.invoke(tableObject, object);
-        } catch (IllegalAccessException e) {
-            throw new QueryException(e);
-        } catch (InvocationTargetException e) {
-            throw new QueryException(e.getCause());
-        }
+        accessor.set(tableObject, object);
     }
 
     @Override
     public Object getValue(TableObject tableObject) {
-        try {
-            return getter.invoke(tableObject);
-        } catch (IllegalAccessException e) {
-            throw new QueryException(e);
-        } catch (InvocationTargetException e) {
-            throw new QueryException(e);
-        }
+        return accessor.get(tableObject);
     }
 
     @Override
@@ -0,0 +1,81 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 15:20
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the objects of a table without dirty tracking which were selected with only some columns. Writing such an
+ * object completely would overwrite the other columns with the values of a new object.
+ * <p/>
+ * The objects are compared by identity, so an object with the same id which was selected completely is not affected.
+ * The objects are held weakly.
+ */
+final class PartialObjects {
+
+    private final ConcurrentMap<Entry, Boolean> objects = new ConcurrentHashMap<Entry, Boolean>();
+    private final ReferenceQueue<TableObject> collected = new ReferenceQueue<TableObject>();
+
+    void add(TableObject object) {
+        expungeCollected();
+        objects.put(new Entry(object, collected), Boolean.TRUE);
+    }
+
+    boolean contains(TableObject object) {
+        if (objects.isEmpty()) {
+            return false;
+        }
+        expungeCollected();
+        return objects.containsKey(new Entry(object, null));
+    }
+
+    private void expungeCollected() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            objects.remove(entry);
+        }
+    }
+
+    private static final class Entry extends WeakReference<TableObject> {
+        private final int hash;
+
+        private Entry(TableObject object, ReferenceQueue<TableObject> queue) {
+            super(object, queue);
+            this.hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+
+            TableObject object = get();
+            return object != null && object == ((Entry) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
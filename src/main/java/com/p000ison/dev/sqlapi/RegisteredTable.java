@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:03
+ * Last modified: 19.10.26 15:00
  */
 
 package com.p000ison.dev.sqlapi;
@@ -26,21 +26,52 @@ import com.p000ison.dev.sqlapi.query.PreparedQuery;
 
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Used to register TableObjects. Holds the columns, the registered constructor, some prepared statements and of the class
  * or the TableObject.
  */
 public class RegisteredTable {
+    private static final int MAX_SELECT_QUERIES = 256;
+    private static final int MAX_PARTIAL_UPDATE_STATEMENTS = 64;
+
     private String name;
     private Class<? extends TableObject> registeredClass;
     private List<Column> registeredColumns;
     private RegisteredConstructor constructor;
-    private PreparedQuery updateStatement, insertStatement, deleteStatement;
-    private Queue<StoredTableObjectValue> storedColumnValues = new LinkedList<StoredTableObjectValue>();
+    private PreparedQuery updateStatement, insertStatement, deleteStatement, upsertStatement;
+    /**
+     * The values of columns which are set after loading. Queries of this table run concurrently, so every value is added
+     * and taken atomically.
+     */
+    private final Queue<StoredTableObjectValue> storedColumnValues = new ConcurrentLinkedQueue<StoredTableObjectValue>();
+    private final Lock lock = new ReentrantLock();
+    private List<TableObject> insertBatchObjects = new ArrayList<TableObject>();
+    private List<TableObject> upsertBatchObjects = new ArrayList<TableObject>();
+    private volatile EntityCache entityCache;
+    private volatile DirtyTracker dirtyTracker;
+    private final PartialObjects partialObjects = new PartialObjects();
+    /**
+     * The update statements which write only some columns by the mask of the columns
+     */
+    private final ConcurrentMap<Long, PreparedQuery> partialUpdateStatements = new ConcurrentHashMap<Long, PreparedQuery>();
+    /**
+     * The sql of the select queries by their {@link SelectShape}
+     */
+    private final ConcurrentMap<SelectShape, String> selectQueries = new ConcurrentHashMap<SelectShape, String>();
+    /**
+     * The sql of the queries which select the entries of a list of ids by the size of the list
+     */
+    private final ConcurrentMap<Integer, String> findByIdsQueries = new ConcurrentHashMap<Integer, String>();
 
     RegisteredTable(String name, Class<? extends TableObject> registeredClass, List<Column> registeredColumns, Constructor<? extends TableObject> constructor) {
         this.name = name;
@@ -94,22 +125,27 @@ public class RegisteredTable {
     }
 
     public static boolean isSerializable(Class<?> clazz) {
-        for (Class interfacee : clazz.getInterfaces()) {
-            if (interfacee == Serializable.class) {
-                return true;
-            }
-        }
-
-        return false;
+        return Serializable.class.isAssignableFrom(clazz);
     }
 
     void prepareAllStatements(Database database) {
         prepareDeleteStatement(database);
         prepareInsertStatement(database);
         prepareUpdateStatement(database);
+        prepareUpsertStatement(database);
     }
 
     void prepareUpdateStatement(Database database) {
+        updateStatement = createUpdateStatement(database);
+    }
+
+    /**
+     * Creates a new statement which updates all columns of a entry, like the update statement of this table
+     *
+     * @param database The database
+     * @return The statement
+     */
+    PreparedQuery createUpdateStatement(Database database) {
         StringBuilder query = new StringBuilder("UPDATE ").append(getName()).append(" SET ");
         Column id = null;
         for (Column column : getRegisteredColumns()) {
@@ -127,7 +163,7 @@ public class RegisteredTable {
         query.deleteCharAt(query.length() - 1);
         query.append(" WHERE ").append(id.getName()).append("=?");
         query.append(';');
-        updateStatement = database.createPreparedStatement(query.toString());
+        return database.createTableStatement(this, query.toString(), false);
     }
 
     void prepareDeleteStatement(Database database) {
@@ -135,7 +171,7 @@ public class RegisteredTable {
         Column id = getIDColumn();
         query.append("DELETE FROM ").append(getName()).append(" WHERE ").append(id.getName()).append("=?;");
 
-        deleteStatement = database.createPreparedStatement(query.toString());
+        deleteStatement = database.createTableStatement(this, query.toString(), false);
     }
 
     void prepareInsertStatement(Database database) {
@@ -157,13 +193,86 @@ public class RegisteredTable {
         query.deleteCharAt(query.length() - 1);
         query.append(");");
 
-        insertStatement = database.createPreparedStatement(query.toString());
+        insertStatement = database.createTableStatement(this, query.toString(), true);
+    }
+
+    /**
+     * Prepares the statement which inserts or updates a entry in one round trip. The columns are bound in the same order
+     * as in the update statement, the id is the last parameter. Tables with unique columns are skipped, because the
+     * upsert of the database engines would also hit entries with an other id.
+     *
+     * @param database The database
+     */
+    void prepareUpsertStatement(Database database) {
+        upsertStatement = createUpsertStatement(database);
+    }
+
+    /**
+     * Creates a new statement which inserts or updates a entry, like the upsert statement of this table
+     *
+     * @param database The database
+     * @return The statement or null if entries of this table can not be upserted
+     */
+    PreparedQuery createUpsertStatement(Database database) {
+        for (Column column : getRegisteredColumns()) {
+            if (column.isUnique() && !column.isID()) {
+                return null;
+            }
+        }
+
+        String query = database.createUpsertQuery(this);
+        return query == null ? null : database.createTableStatement(this, query, false);
     }
 
     public PreparedQuery getPreparedUpdateStatement() {
         return updateStatement;
     }
 
+    /**
+     * Gets the statements which update only some columns
+     *
+     * @return The statements
+     */
+    Collection<PreparedQuery> getPartialUpdateStatements() {
+        return partialUpdateStatements.values();
+    }
+
+    /**
+     * Gets the statement which updates only the columns in the mask of the {@link DirtyTracker}. Must be called while
+     * holding the lock of this table.
+     *
+     * @param mask     The columns to update
+     * @param tracker  The tracker which created the mask
+     * @param database The database
+     * @return The statement or null if there are too many different masks already
+     */
+    PreparedQuery getPartialUpdateStatement(long mask, DirtyTracker tracker, Database database) {
+        PreparedQuery statement = partialUpdateStatements.get(mask);
+        if (statement != null || partialUpdateStatements.size() >= MAX_PARTIAL_UPDATE_STATEMENTS) {
+            return statement;
+        }
+
+        StringBuilder query = new StringBuilder("UPDATE ").append(getName()).append(" SET ");
+        for (Column column : tracker.getColumns(mask)) {
+            query.append(column.getName()).append("=?,");
+        }
+        query.deleteCharAt(query.length() - 1);
+        query.append(" WHERE ").append(getIDColumn().getName()).append("=?;");
+
+        statement = database.createTableStatement(this, query.toString(), false);
+        partialUpdateStatements.put(mask, statement);
+        return statement;
+    }
+
+    /**
+     * Gets the statement which inserts or updates a entry with a given id.
+     *
+     * @return The upsert statement or null if the database engine or this table do not support it
+     */
+    public PreparedQuery getPreparedUpsertStatement() {
+        return upsertStatement;
+    }
+
     /**
      * Registers a constructor which will be used to build the objects, just pass for example: "test", 5 in it to
      * find a constructor with the parameters String and int.
@@ -210,10 +319,66 @@ public class RegisteredTable {
         return insertStatement;
     }
 
+    /**
+     * Remembers a object which was added to the insert batch, so it gets its id once the batch is executed. Must be
+     * called while holding the lock of this table.
+     *
+     * @param object The object
+     */
+    void addInsertBatchObject(TableObject object) {
+        insertBatchObjects.add(object);
+    }
+
+    List<TableObject> pollInsertBatchObjects() {
+        List<TableObject> objects = insertBatchObjects;
+        insertBatchObjects = new ArrayList<TableObject>();
+        return objects;
+    }
+
+    /**
+     * Remembers a object which was added to the upsert batch, so it can be cached once the batch was executed. Must be
+     * called while holding the lock of the table.
+     *
+     * @param object The object
+     */
+    void addUpsertBatchObject(TableObject object) {
+        upsertBatchObjects.add(object);
+    }
+
+    List<TableObject> pollUpsertBatchObjects() {
+        List<TableObject> objects = upsertBatchObjects;
+        upsertBatchObjects = new ArrayList<TableObject>();
+        return objects;
+    }
+
+    /**
+     * Marks a object which was selected with only some columns. If the table has no {@link DirtyTracker} the object can
+     * not be written completely, because the missing columns would be overwritten.
+     *
+     * @param object The object
+     */
+    public void markPartial(TableObject object) {
+        partialObjects.add(object);
+    }
+
+    /**
+     * Checks whether a object was selected with only some columns and is not tracked
+     *
+     * @param object The object
+     * @return Whether the object is partial
+     */
+    boolean isPartial(TableObject object) {
+        return partialObjects.contains(object);
+    }
+
     public void storeColumnValue(Column column, Object value, TableObject tableObject) {
         storedColumnValues.add(new StoredTableObjectValue(tableObject, value, column));
     }
 
+    /**
+     * Sets the stored values of columns which are set after loading. Every value is set once, even if multiple threads
+     * call this.
+     */
     public void saveStoredValues() {
         StoredTableObjectValue value;
 
@@ -230,6 +395,97 @@ public class RegisteredTable {
         return deleteStatement;
     }
 
+    String getSelectQuery(SelectShape shape) {
+        return selectQueries.get(shape);
+    }
+
+    void putSelectQuery(SelectShape shape, String query) {
+        //queries with changing limits could fill the map, so only the first shapes are cached
+        if (selectQueries.size() < MAX_SELECT_QUERIES) {
+            selectQueries.put(shape, query);
+        }
+    }
+
+    /**
+     * Gets the query which selects all columns of the entries with one of some ids
+     *
+     * @param size The number of ids
+     * @return The query
+     */
+    String getFindByIdsQuery(int size) {
+        String query = findByIdsQueries.get(size);
+        if (query != null) {
+            return query;
+        }
+
+        StringBuilder builder = new StringBuilder("SELECT ");
+        for (Column column : getRegisteredColumns()) {
+            builder.append(column.getName()).append(',');
+        }
+        builder.deleteCharAt(builder.length() - 1);
+        builder.append(" FROM ").append(getName()).append(" WHERE ").append(getIDColumn().getName()).append(" IN (");
+        for (int i = 0; i < size; i++) {
+            builder.append("?,");
+        }
+        builder.setCharAt(builder.length() - 1, ')');
+        builder.append(';');
+
+        query = builder.toString();
+        findByIdsQueries.put(size, query);
+        return query;
+    }
+
+    /**
+     * Gets the cache of the objects of this table
+     *
+     * @return The cache or null if caching is disabled
+     */
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * Sets the maximal amount of objects which are cached by their id. The cached objects are dropped.
+     *
+     * @param size The size of the cache or 0 to disable it
+     */
+    public void setEntityCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size of the cache must be greater or equal 0!");
+        }
+        entityCache = size == 0 ? null : new EntityCache(size);
+    }
+
+    /**
+     * Gets the tracker which remembers the loaded and saved values of the objects of this table
+     *
+     * @return The tracker or null if dirty tracking is disabled
+     */
+    public DirtyTracker getDirtyTracker() {
+        return dirtyTracker;
+    }
+
+    /**
+     * Enables or disables dirty tracking. If it is enabled updates write only the columns which changed since the object
+     * was loaded or saved and are skipped if nothing changed.
+     *
+     * @param dirtyTracking Whether to track the changes
+     * @throws IllegalArgumentException If the table has more than 63 columns besides the id
+     */
+    public void setDirtyTracking(boolean dirtyTracking) {
+        dirtyTracker = dirtyTracking ? new DirtyTracker(this) : null;
+    }
+
+    /**
+     * Gets the lock which guards the prepared statements of this table. Every write to this table holds it while it
+     * sets the parameters and executes the statement, so writes to other tables are not blocked.
+     *
+     * @return The lock of this table
+     */
+    public Lock getLock() {
+        return lock;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -249,6 +505,12 @@ public class RegisteredTable {
         updateStatement.close();
         insertStatement.close();
         deleteStatement.close();
+        if (upsertStatement != null) {
+            upsertStatement.close();
+        }
+        for (PreparedQuery statement : partialUpdateStatements.values()) {
+            statement.close();
+        }
     }
 
     PreparedQuery createFullInsertStatement(Database database) {
@@ -267,6 +529,6 @@ public class RegisteredTable {
         query.deleteCharAt(query.length() - 1);
         query.append(");");
 
-        return database.createPreparedStatement(query.toString());
+        return database.createTableStatement(this, query.toString(), false);
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 00:10
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.query.CompareOperator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shape of a select query: its selected columns, comparators, orders and limits without the compared values. Queries with the same
+ * shape on the same table have the same sql, so the sql is built once per shape and cached in the {@link RegisteredTable}.
+ */
+final class SelectShape {
+
+    private static final byte NONE = 0, AND = 1, OR = 2;
+
+    private final String[] selected;
+    private final String[] columns;
+    private final CompareOperator[] operators;
+    private final byte[] connectors;
+    private final String[] orders;
+    private final boolean[] descending;
+    private final int[] limits;
+    /**
+     * Whether the query is paged and whether it seeks after a {@link com.p000ison.dev.sqlapi.query.PageToken}
+     */
+    private final byte keyset;
+    /**
+     * Whether the query selects the entries, counts them or checks whether one exists
+     */
+    private final byte type;
+    private final String[] aggregates;
+    private final String[] groups;
+    private final String[] having;
+    private final int hashCode;
+
+    <T extends TableObject> SelectShape(List<Column> projection, List<DefaultWhereComparator<T>> comparators, List<DefaultOrderEntry> orderBy, int[] limits, byte keyset, byte type) {
+        this(projection, comparators, orderBy, limits, keyset, type, null, null, null);
+    }
+
+    <T extends TableObject> SelectShape(List<Column> projection, List<DefaultWhereComparator<T>> comparators, List<DefaultOrderEntry> orderBy, int[] limits, byte keyset, byte type,
+                                        List<DefaultAggregate> aggregates, List<Column> groupBy, List<DefaultWhereComparator<T>> having) {
+        if (projection == null) {
+            selected = null;
+        } else {
+            selected = new String[projection.size()];
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] = projection.get(i).getName();
+            }
+        }
+
+        int size = comparators == null ? 0 : comparators.size();
+        columns = new String[size];
+        operators = new CompareOperator[size];
+        connectors = new byte[size];
+        for (int i = 0; i < size; i++) {
+            DefaultWhereComparator<T> comparator = comparators.get(i);
+            columns[i] = comparator.getColumn();
+            operators[i] = comparator.getOperator();
+            connectors[i] = comparator.isAnd() ? AND : comparator.isOr() ? OR : NONE;
+        }
+
+        orders = new String[orderBy.size()];
+        descending = new boolean[orders.length];
+        for (int i = 0; i < orders.length; i++) {
+            DefaultOrderEntry entry = orderBy.get(i);
+            orders[i] = entry.getOrder();
+            descending[i] = entry.isDescending();
+        }
+
+        this.limits = limits;
+        this.keyset = keyset;
+        this.type = type;
+
+        if (aggregates == null) {
+            this.aggregates = null;
+            this.groups = null;
+            this.having = null;
+        } else {
+            this.aggregates = new String[aggregates.size()];
+            for (int i = 0; i < this.aggregates.length; i++) {
+                this.aggregates[i] = aggregates.get(i).getName();
+            }
+            groups = new String[groupBy.size()];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = groupBy.get(i).getName();
+            }
+            this.having = new String[having.size()];
+            for (int i = 0; i < this.having.length; i++) {
+                this.having[i] = having.get(i).getColumn() + having.get(i).getOperator();
+            }
+        }
+
+        int hash = Arrays.hashCode(selected);
+        hash = 31 * hash + Arrays.hashCode(columns);
+        hash = 31 * hash + Arrays.hashCode(operators);
+        hash = 31 * hash + Arrays.hashCode(connectors);
+        hash = 31 * hash + Arrays.hashCode(orders);
+        hash = 31 * hash + Arrays.hashCode(descending);
+        hash = 31 * hash + Arrays.hashCode(limits);
+        hash = 31 * hash + keyset;
+        hash = 31 * hash + type;
+        hash = 31 * hash + Arrays.hashCode(this.aggregates);
+        hash = 31 * hash + Arrays.hashCode(groups);
+        hash = 31 * hash + Arrays.hashCode(this.having);
+        hashCode = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SelectShape that = (SelectShape) o;
+
+        return hashCode == that.hashCode
+                && keyset == that.keyset
+                && type == that.type
+                && Arrays.equals(aggregates, that.aggregates)
+                && Arrays.equals(groups, that.groups)
+                && Arrays.equals(having, that.having)
+                && Arrays.equals(selected, that.selected)
+                && Arrays.equals(columns, that.columns)
+                && Arrays.equals(operators, that.operators)
+                && Arrays.equals(connectors, that.connectors)
+                && Arrays.equals(orders, that.orders)
+                && Arrays.equals(descending, that.descending)
+                && Arrays.equals(limits, that.limits);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
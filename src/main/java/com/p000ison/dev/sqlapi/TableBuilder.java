@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:43
+ * Last modified: 19.10.26 10:40
  */
 
 package com.p000ison.dev.sqlapi;
@@ -22,11 +22,15 @@ package com.p000ison.dev.sqlapi;
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumnGetter;
 import com.p000ison.dev.sqlapi.annotation.DatabaseColumnSetter;
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
+import com.p000ison.dev.sqlapi.codec.BinaryTypeCodec;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
 import com.p000ison.dev.sqlapi.exception.TableBuildingException;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.sql.Types;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -185,9 +189,6 @@ public abstract class TableBuilder {
 
             if (setter == null) {
                 column.setGetter(method);
-                if (!database.isSupported(column.getType())) {
-                    throw new TableBuildingException("The type %s of the column %s is not supported by the database!", column.getType().getName(), column.getName());
-                }
             } else {
                 column.setSetter(method);
                 column.setAnnotation(setter);
@@ -204,6 +205,7 @@ public abstract class TableBuilder {
                     it.remove();
                 } else {
                     methodColumn.validate();
+                    setupCodec(methodColumn);
                 }
             }
         }
@@ -219,9 +221,7 @@ public abstract class TableBuilder {
                     throw new TableBuildingException("Your id column must have the type long!");
                 }
                 Column fieldColumn = new FieldColumn(field, column);
-                if (!database.isSupported(fieldColumn.getType())) {
-                    throw new TableBuildingException("The type %s of the column %s is not supported by the database!", fieldColumn.getType().getName(), fieldColumn.getName());
-                }
+                setupCodec(fieldColumn);
                 buildingColumns.add(fieldColumn);
             }
         }
@@ -241,6 +241,29 @@ public abstract class TableBuilder {
         buildingColumns = Collections.unmodifiableList(buildingColumns);
     }
 
+    /**
+     * Resolves the codec of a column once, so reading and writing the column does not have to look up its type again
+     *
+     * @param column The column
+     */
+    private void setupCodec(Column column) {
+        Class<? extends BinaryCodec> binaryCodec = column.getBinaryCodec();
+        if (binaryCodec != null && binaryCodec != BinaryCodec.class) {
+            try {
+                column.setCodec(new BinaryTypeCodec(binaryCodec.newInstance(), column.getType()));
+            } catch (Exception e) {
+                throw new TableBuildingException("Failed to create the codec %s of the column %s!", binaryCodec.getName(), column.getName());
+            }
+            return;
+        }
+
+        TypeCodec codec = database.getTypeCodec(column.getType());
+        if (codec == null) {
+            throw new TableBuildingException("The type %s of the column %s is not supported by the database!", column.getType().getName(), column.getName());
+        }
+        column.setCodec(codec);
+    }
+
     private void setupModifyColumns() {
         if (buildingColumns.isEmpty()) {
             throw new TableBuildingException("The table must have at least one column!");
@@ -312,6 +335,47 @@ public abstract class TableBuilder {
         }
     }
 
+    /**
+     * Gets a data type for a column, which is not one of the default types, based on the sql type of its codec.
+     *
+     * @param column The column
+     * @return The data type
+     */
+    protected String getDataType(Column column) {
+        switch (column.getCodec().getSQLType()) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "TINYINT(1)";
+            case Types.TINYINT:
+                return "TINYINT";
+            case Types.SMALLINT:
+                return "SMALLINT";
+            case Types.INTEGER:
+                return "INTEGER";
+            case Types.BIGINT:
+                return "BIGINT";
+            case Types.FLOAT:
+            case Types.REAL:
+                return "FLOAT";
+            case Types.DOUBLE:
+                return "DOUBLE";
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return "DECIMAL";
+            case Types.CHAR:
+                return "CHAR";
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return column.getLength().length != 0 ? "VARCHAR" : "TEXT";
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return "DATETIME";
+            default:
+                return "BLOB";
+        }
+    }
+
     /**
      * Builds a column. it returns for example: "column INTEGER(5) NOT NULL UNIQUE KEY"
      *
@@ -19,6 +19,7 @@
 
 package com.p000ison.dev.sqlapi.annotation;
 
+import com.p000ison.dev.sqlapi.codec.BinaryCodec;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -85,4 +86,11 @@ public @interface DatabaseColumnSetter {
     boolean id() default false;
 
     boolean saveValueAfterLoading() default false;
+
+    /**
+     * Sets the codec which stores the value of this column in a blob. By default the codec is chosen by the type of the column.
+     *
+     * @return The codec of the column or {@link BinaryCodec} if the type decides
+     */
+    Class<? extends BinaryCodec> codec() default BinaryCodec.class;
 }
@@ -37,4 +37,19 @@ public @interface DatabaseTable {
      * @return The name of the table
      */
     String name();
+
+    /**
+     * Sets the maximal amount of objects of this table which are cached by their id. Default is 0, which disables the cache.
+     *
+     * @return The size of the cache
+     */
+    int cacheSize() default 0;
+
+    /**
+     * Whether updates write only the columns which changed since the object was loaded or saved. Default is false.
+     *
+     * @return Whether to track the changes
+     * @see com.p000ison.dev.sqlapi.DirtyTracker
+     */
+    boolean dirtyTracking() default false;
 }
@@ -0,0 +1,53 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.IOException;
+
+/**
+ * Converts the value of a column to the bytes of a blob and back. Select a codec for a column with
+ * {@link com.p000ison.dev.sqlapi.annotation.DatabaseColumn#codec()} or
+ * {@link com.p000ison.dev.sqlapi.annotation.DatabaseColumnSetter#codec()}.
+ * <p/>
+ * Implementations need a public constructor without arguments and must be thread-safe, since one instance is used by
+ * every thread which reads or writes the column.
+ */
+public interface BinaryCodec {
+
+    /**
+     * Converts a value to bytes
+     *
+     * @param value The value, never null
+     * @param type  The type of the column, the value can also be a subclass
+     * @return The bytes of the value
+     * @throws IOException If the value can not be written
+     */
+    byte[] encode(Object value, Class<?> type) throws IOException;
+
+    /**
+     * Converts bytes back to a value
+     *
+     * @param data The bytes, never null
+     * @param type The type of the column
+     * @return The value
+     * @throws IOException If the bytes can not be read
+     */
+    Object decode(byte[] data, Class<?> type) throws IOException;
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 17:40
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A type which writes its own compact binary form. Columns of this type are stored with {@link CompactCodec}.
+ * Implementations need a constructor without arguments.
+ */
+public interface BinarySerializable {
+
+    /**
+     * Writes the state of this object
+     *
+     * @param out The output to write to
+     * @throws IOException If writing fails
+     */
+    void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * Reads the state written by {@link #writeTo(java.io.DataOutput)}
+     *
+     * @param in The input to read from
+     * @throws IOException If reading fails
+     */
+    void readFrom(DataInput in) throws IOException;
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import com.p000ison.dev.sqlapi.exception.QueryException;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Stores the values of a column in a blob, converted by a {@link BinaryCodec}
+ */
+public final class BinaryTypeCodec implements TypeCodec {
+
+    private final BinaryCodec codec;
+    private final Class<?> type;
+
+    public BinaryTypeCodec(BinaryCodec codec, Class<?> type) {
+        this.codec = codec;
+        this.type = type;
+    }
+
+    @Override
+    public int getSQLType() {
+        return Types.BLOB;
+    }
+
+    @Override
+    public Object encode(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return codec.encode(value, type);
+        } catch (IOException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    @Override
+    public Object decode(ResultSet result, int index) throws SQLException {
+        byte[] bytes = result.getBytes(index);
+        if (bytes == null) {
+            return null;
+        }
+
+        try {
+            return codec.decode(bytes, type);
+        } catch (IOException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    /**
+     * Gets the codec which converts the values
+     *
+     * @return The binary codec
+     */
+    public BinaryCodec getCodec() {
+        return codec;
+    }
+}
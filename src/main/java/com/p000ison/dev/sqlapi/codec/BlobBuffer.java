@@ -0,0 +1,291 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.DataOutput;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+
+/**
+ * A output buffer which is reused by every encoding on the same thread, so writing a blob does not allocate a new
+ * buffer for every value. Unlike a {@link java.io.ByteArrayOutputStream} with a {@link java.io.DataOutputStream} it is
+ * not synchronized and writes a number at once instead of byte by byte.
+ */
+final class BlobBuffer extends OutputStream implements DataOutput {
+
+    private static final int INITIAL_SIZE = 256;
+    /**
+     * Buffers which grew above this size are dropped after use, so one huge value does not stay in memory
+     */
+    private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<BlobBuffer> BUFFERS = new ThreadLocal<BlobBuffer>() {
+        @Override
+        protected BlobBuffer initialValue() {
+            return new BlobBuffer(INITIAL_SIZE);
+        }
+    };
+
+    private byte[] buf;
+    private int count;
+    private boolean inUse;
+
+    private BlobBuffer(int size) {
+        buf = new byte[size];
+    }
+
+    /**
+     * Gets the empty buffer of this thread. If the buffer is already in use (a codec encodes a value while encoding
+     * another one) a new buffer is returned.
+     *
+     * @return A empty buffer
+     */
+    static BlobBuffer acquire() {
+        BlobBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            buffer = new BlobBuffer(INITIAL_SIZE);
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    /**
+     * Creates a buffer for a value of a known size, its array is returned by {@link #release()} without a copy
+     *
+     * @param size The size of the value
+     * @return A empty buffer
+     */
+    static BlobBuffer exact(int size) {
+        BlobBuffer buffer = new BlobBuffer(size);
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    /**
+     * Gets the written bytes and makes this buffer available again. The bytes are copied, because statements and batches
+     * keep them after the encoding, unless they fill the whole array, which is then handed over.
+     *
+     * @return The written bytes
+     */
+    byte[] release() {
+        byte[] bytes;
+        if (count == buf.length) {
+            bytes = buf;
+            buf = new byte[INITIAL_SIZE];
+        } else {
+            bytes = Arrays.copyOf(buf, count);
+            if (buf.length > MAX_RETAINED_SIZE) {
+                buf = new byte[INITIAL_SIZE];
+            }
+        }
+        count = 0;
+        inUse = false;
+        return bytes;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = count + additional;
+        if (required > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    @Override
+    public void write(int value) {
+        ensureCapacity(1);
+        buf[count++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buf, count, length);
+        count += length;
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        write(value ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int value) {
+        write(value);
+    }
+
+    @Override
+    public void writeShort(int value) {
+        ensureCapacity(2);
+        buf[count++] = (byte) (value >>> 8);
+        buf[count++] = (byte) value;
+    }
+
+    @Override
+    public void writeChar(int value) {
+        writeShort(value);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        ensureCapacity(4);
+        buf[count++] = (byte) (value >>> 24);
+        buf[count++] = (byte) (value >>> 16);
+        buf[count++] = (byte) (value >>> 8);
+        buf[count++] = (byte) value;
+    }
+
+    @Override
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    @Override
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    @Override
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void writeBytes(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    @Override
+    public void writeChars(String value) {
+        int length = value.length();
+        ensureCapacity(length * 2);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            buf[count++] = (byte) (c >>> 8);
+            buf[count++] = (byte) c;
+        }
+    }
+
+    /**
+     * Writes a string in the modified UTF-8 of {@link java.io.DataOutputStream#writeUTF(String)}
+     */
+    @Override
+    public void writeUTF(String value) throws UTFDataFormatException {
+        int length = getModifiedUTFLength(value);
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("The string is too long: " + length + " bytes");
+        }
+
+        writeShort(length);
+        ensureCapacity(length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | c >> 6);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                buf[count++] = (byte) (0xE0 | c >> 12);
+                buf[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    static int getModifiedUTFLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        return length;
+    }
+
+    /**
+     * Writes a string of any length, its length in bytes followed by its UTF-8. Read it with
+     * {@link BlobInput#readString()}.
+     *
+     * @param value The string
+     */
+    void writeString(String value) {
+        int length = getUTFLength(value);
+        writeInt(length);
+        ensureCapacity(length);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | c >> 6);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[count++] = (byte) (0xF0 | codePoint >> 18);
+                buf[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buf[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buf[count++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                //like String.getBytes a unpaired surrogate becomes a question mark
+                buf[count++] = '?';
+            } else {
+                buf[count++] = (byte) (0xE0 | c >> 12);
+                buf[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buf[count++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * Gets the length of a string in UTF-8
+     *
+     * @param value The string
+     * @return The number of bytes
+     */
+    static int getUTFLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
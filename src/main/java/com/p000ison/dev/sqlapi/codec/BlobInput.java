@@ -0,0 +1,166 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the bytes of a blob. Unlike a {@link java.io.ByteArrayInputStream} with a {@link java.io.DataInputStream} it is
+ * not synchronized and reads a number at once instead of byte by byte.
+ */
+final class BlobInput implements DataInput {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] data;
+    private int position;
+
+    BlobInput(byte[] data) {
+        this.data = data;
+    }
+
+    private int require(int length) throws EOFException {
+        int start = position;
+        if (length > data.length - start) {
+            throw new EOFException("The blob ends after " + data.length + " bytes!");
+        }
+        position += length;
+        return start;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+        readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        System.arraycopy(data, require(length), bytes, offset, length);
+    }
+
+    @Override
+    public int skipBytes(int length) {
+        int skipped = Math.max(0, Math.min(length, data.length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    /**
+     * Skips the bytes if they are the next ones
+     *
+     * @param expected The bytes
+     * @return Whether the bytes were skipped
+     */
+    boolean skipIfEqual(byte[] expected) {
+        if (expected.length > data.length - position) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[position + i] != expected[i]) {
+                return false;
+            }
+        }
+        position += expected.length;
+        return true;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return data[require(1)] != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return data[require(1)];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return data[require(1)] & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        int start = require(2);
+        return (short) (data[start] << 8 | data[start + 1] & 0xFF);
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int start = require(4);
+        return data[start] << 24 | (data[start + 1] & 0xFF) << 16 | (data[start + 2] & 0xFF) << 8 | data[start + 3] & 0xFF;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return (long) readInt() << 32 | readInt() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Not supported, blobs have no lines
+     */
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("Blobs have no lines!");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    /**
+     * Reads a string written by {@link BlobBuffer#writeString(String)}
+     *
+     * @return The string
+     * @throws IOException If the blob ends before the string
+     */
+    String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("The length of a string is negative!");
+        }
+        return new String(data, require(length), length, UTF_8);
+    }
+}
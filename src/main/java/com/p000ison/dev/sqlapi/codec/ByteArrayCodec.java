@@ -0,0 +1,36 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+/**
+ * Stores byte arrays as they are. This is the codec of all byte[] columns.
+ */
+public class ByteArrayCodec implements BinaryCodec {
+
+    @Override
+    public byte[] encode(Object value, Class<?> type) {
+        return (byte[]) value;
+    }
+
+    @Override
+    public Object decode(byte[] data, Class<?> type) {
+        return data;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.IOException;
+
+/**
+ * Stores {@link BinarySerializable} values in their own binary form, without the class descriptors and headers of the
+ * java serialization. Only values of a subclass of the column type have their class name in the blob.
+ */
+public class CompactCodec implements BinaryCodec {
+
+    private final ValueTypes types = new ValueTypes();
+
+    @Override
+    public byte[] encode(Object value, Class<?> type) throws IOException {
+        if (!(value instanceof BinarySerializable)) {
+            throw new IOException("The type " + value.getClass().getName() + " does not implement BinarySerializable!");
+        }
+
+        BlobBuffer buffer = BlobBuffer.acquire();
+        byte[] bytes;
+        try {
+            ValueTypes.write(buffer, value.getClass(), type);
+            ((BinarySerializable) value).writeTo(buffer);
+        } finally {
+            bytes = buffer.release();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object decode(byte[] data, Class<?> type) throws IOException {
+        BlobInput input = new BlobInput(data);
+        Object value = types.newInstance(types.read(input, type));
+        if (!(value instanceof BinarySerializable)) {
+            throw new IOException("The type " + value.getClass().getName() + " does not implement BinarySerializable!");
+        }
+
+        ((BinarySerializable) value).readFrom(input);
+        return value;
+    }
+}
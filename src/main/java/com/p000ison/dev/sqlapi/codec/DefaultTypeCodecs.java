@@ -0,0 +1,298 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The codecs for all types which are supported by default.
+ */
+public final class DefaultTypeCodecs {
+
+    public static final TypeCodec BOOLEAN = new BooleanCodec(false);
+    public static final TypeCodec BYTE = new ByteCodec(false);
+    public static final TypeCodec SHORT = new ShortCodec(false);
+    public static final TypeCodec INTEGER = new IntegerCodec(false);
+    public static final TypeCodec LONG = new LongCodec(false);
+    public static final TypeCodec FLOAT = new FloatCodec(false);
+    public static final TypeCodec DOUBLE = new DoubleCodec(false);
+    public static final TypeCodec CHARACTER = new CharacterCodec();
+    public static final TypeCodec STRING = new StringCodec();
+    public static final TypeCodec TIMESTAMP = new TimestampCodec();
+    public static final TypeCodec BIG_DECIMAL = new BigDecimalCodec();
+    public static final TypeCodec BIG_INTEGER = new BigIntegerCodec();
+    public static final TypeCodec BYTE_ARRAY = new BinaryTypeCodec(new ByteArrayCodec(), byte[].class);
+
+    private DefaultTypeCodecs() {
+    }
+
+    /**
+     * Adds the default codecs to a map of types and their codecs
+     *
+     * @param codecs The map
+     */
+    public static void registerDefaults(Map<Class<?>, TypeCodec> codecs) {
+        codecs.put(boolean.class, BOOLEAN);
+        codecs.put(Boolean.class, new BooleanCodec(true));
+        codecs.put(AtomicBoolean.class, BOOLEAN);
+        codecs.put(byte.class, BYTE);
+        codecs.put(Byte.class, new ByteCodec(true));
+        codecs.put(short.class, SHORT);
+        codecs.put(Short.class, new ShortCodec(true));
+        codecs.put(int.class, INTEGER);
+        codecs.put(Integer.class, new IntegerCodec(true));
+        codecs.put(AtomicInteger.class, INTEGER);
+        codecs.put(long.class, LONG);
+        codecs.put(Long.class, new LongCodec(true));
+        codecs.put(AtomicLong.class, LONG);
+        codecs.put(float.class, FLOAT);
+        codecs.put(Float.class, new FloatCodec(true));
+        codecs.put(double.class, DOUBLE);
+        codecs.put(Double.class, new DoubleCodec(true));
+        codecs.put(char.class, CHARACTER);
+        codecs.put(Character.class, CHARACTER);
+        codecs.put(String.class, STRING);
+        codecs.put(Date.class, TIMESTAMP);
+        codecs.put(Timestamp.class, TIMESTAMP);
+        codecs.put(byte[].class, BYTE_ARRAY);
+        codecs.put(BigDecimal.class, BIG_DECIMAL);
+        codecs.put(BigInteger.class, BIG_INTEGER);
+    }
+
+    /**
+     * A codec for numbers. Nullable codecs are used for the wrapper types, so a NULL in the database stays null instead
+     * of becoming 0.
+     */
+    private abstract static class NumberCodec implements TypeCodec {
+        private final boolean nullable;
+        private final int sqlType;
+
+        NumberCodec(boolean nullable, int sqlType) {
+            this.nullable = nullable;
+            this.sqlType = sqlType;
+        }
+
+        @Override
+        public int getSQLType() {
+            return sqlType;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            if (value instanceof AtomicBoolean) {
+                return ((AtomicBoolean) value).get();
+            } else if (value instanceof AtomicInteger) {
+                return ((AtomicInteger) value).get();
+            } else if (value instanceof AtomicLong) {
+                return ((AtomicLong) value).get();
+            }
+            return value;
+        }
+
+        final Object checkNull(ResultSet result, Object value) throws SQLException {
+            return nullable && result.wasNull() ? null : value;
+        }
+    }
+
+    private static final class BooleanCodec extends NumberCodec {
+        BooleanCodec(boolean nullable) {
+            super(nullable, Types.TINYINT);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getBoolean(index));
+        }
+    }
+
+    private static final class ByteCodec extends NumberCodec {
+        ByteCodec(boolean nullable) {
+            super(nullable, Types.TINYINT);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getByte(index));
+        }
+    }
+
+    private static final class ShortCodec extends NumberCodec {
+        ShortCodec(boolean nullable) {
+            super(nullable, Types.SMALLINT);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getShort(index));
+        }
+    }
+
+    private static final class IntegerCodec extends NumberCodec {
+        IntegerCodec(boolean nullable) {
+            super(nullable, Types.INTEGER);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getInt(index));
+        }
+    }
+
+    private static final class LongCodec extends NumberCodec {
+        LongCodec(boolean nullable) {
+            super(nullable, Types.BIGINT);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getLong(index));
+        }
+    }
+
+    private static final class FloatCodec extends NumberCodec {
+        FloatCodec(boolean nullable) {
+            super(nullable, Types.FLOAT);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getFloat(index));
+        }
+    }
+
+    private static final class DoubleCodec extends NumberCodec {
+        DoubleCodec(boolean nullable) {
+            super(nullable, Types.DOUBLE);
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return checkNull(result, result.getDouble(index));
+        }
+    }
+
+    /**
+     * Characters are stored as a string with one character
+     */
+    private static final class CharacterCodec implements TypeCodec {
+        @Override
+        public int getSQLType() {
+            return Types.CHAR;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            String value = result.getString(index);
+            return value == null || value.isEmpty() ? null : value.charAt(0);
+        }
+    }
+
+    private static final class StringCodec implements TypeCodec {
+        @Override
+        public int getSQLType() {
+            return Types.VARCHAR;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            return value;
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return result.getString(index);
+        }
+    }
+
+    /**
+     * Decimals are bound and read as their exact string, not every driver supports BigDecimal and a double would lose
+     * digits
+     */
+    private static final class BigDecimalCodec implements TypeCodec {
+        @Override
+        public int getSQLType() {
+            return Types.DECIMAL;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            return value == null ? null : ((BigDecimal) value).toPlainString();
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            String value = result.getString(index);
+            return value == null ? null : new BigDecimal(value);
+        }
+    }
+
+    private static final class BigIntegerCodec implements TypeCodec {
+        @Override
+        public int getSQLType() {
+            return Types.NUMERIC;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            String value = result.getString(index);
+            return value == null ? null : new BigDecimal(value).toBigIntegerExact();
+        }
+    }
+
+    private static final class TimestampCodec implements TypeCodec {
+        @Override
+        public int getSQLType() {
+            return Types.TIMESTAMP;
+        }
+
+        @Override
+        public Object encode(Object value) {
+            if (value == null || value instanceof Timestamp) {
+                return value;
+            }
+            return new Timestamp(((Date) value).getTime());
+        }
+
+        @Override
+        public Object decode(ResultSet result, int index) throws SQLException {
+            return result.getTimestamp(index);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores serializable values by their fields, without the class descriptors and headers of the java serialization. This
+ * is the codec of serializable columns which do not select a codec.
+ * <p/>
+ * Only classes whose fields are primitives, their wrappers or strings, which have a constructor without arguments and
+ * do not customize their serialization with writeObject, readObject, writeReplace or readResolve are stored by their
+ * fields. All other values are stored with the java serialization, like by the {@link SerializationCodec}, and blobs
+ * of the java serialization are read as before.
+ * <p/>
+ * Every field is stored with its name, so fields can be added to and removed from a class. Unlike the java
+ * serialization the values are created with their constructor, so transient fields keep the values it assigns.
+ */
+public class FieldCodec implements BinaryCodec {
+
+    /**
+     * The first byte of the blobs of this codec, a stream of the java serialization starts with 0xACED
+     */
+    private static final int FORMAT = 1;
+    private static final byte NULL = 'N';
+    private static final FieldLayout UNSUPPORTED = new FieldLayout();
+
+    private final SerializationCodec serialization = new SerializationCodec();
+    private final ValueTypes types = new ValueTypes();
+    private final ConcurrentMap<Class<?>, FieldLayout> layouts = new ConcurrentHashMap<Class<?>, FieldLayout>();
+
+    @Override
+    public byte[] encode(Object value, Class<?> type) throws IOException {
+        Class<?> valueType = value.getClass();
+        FieldLayout layout = getLayout(valueType);
+        if (layout == UNSUPPORTED) {
+            return serialization.encode(value, type);
+        }
+
+        try {
+            //the size is known in advance, so the blob is written without a copy
+            BlobBuffer buffer = BlobBuffer.exact(1 + ValueTypes.getLength(valueType, type) + layout.getLength(value));
+            buffer.writeByte(FORMAT);
+            ValueTypes.write(buffer, valueType, type);
+            layout.write(buffer, value);
+            return buffer.release();
+        } catch (IllegalAccessException e) {
+            throw new IOException("Failed to read the fields of " + valueType.getName() + "!", e);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] data, Class<?> type) throws IOException {
+        if (data.length > 1 && data[0] == (byte) 0xAC && data[1] == (byte) 0xED) {
+            return serialization.decode(data, type);
+        }
+
+        BlobInput input = new BlobInput(data);
+        int format = input.readUnsignedByte();
+        if (format != FORMAT) {
+            throw new IOException("The blob has the unknown format " + format + "!");
+        }
+
+        Class<?> valueType = types.read(input, type);
+        FieldLayout layout = getLayout(valueType);
+        if (layout == UNSUPPORTED) {
+            throw new IOException("The class " + valueType.getName() + " can not be read by its fields anymore!");
+        }
+
+        Object value = types.newInstance(valueType);
+        try {
+            layout.read(input, value);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Failed to set the fields of " + valueType.getName() + "!", e);
+        }
+        return value;
+    }
+
+    private FieldLayout getLayout(Class<?> type) {
+        FieldLayout layout = layouts.get(type);
+        if (layout == null) {
+            layout = createLayout(type);
+            layouts.put(type, layout);
+        }
+        return layout;
+    }
+
+    private static FieldLayout createLayout(Class<?> type) {
+        if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+                || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return UNSUPPORTED;
+        }
+
+        List<Field> fields = new ArrayList<Field>();
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            //enums, records and the classes of the jdk are left to the java serialization
+            if (!Serializable.class.isAssignableFrom(current) || current.getName().startsWith("java.") || hasSerializationMethods(current)) {
+                return UNSUPPORTED;
+            }
+
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                if (getTag(field.getType()) == 0 || indexes.containsKey(field.getName())) {
+                    return UNSUPPORTED;
+                }
+                indexes.put(field.getName(), fields.size());
+                fields.add(field);
+            }
+        }
+
+        try {
+            type.getDeclaredConstructor();
+            for (Field field : fields) {
+                field.setAccessible(true);
+            }
+        } catch (NoSuchMethodException e) {
+            return UNSUPPORTED;
+        } catch (RuntimeException e) {
+            //the field can not be made accessible
+            return UNSUPPORTED;
+        }
+        return new FieldLayout(fields, indexes);
+    }
+
+    private static boolean hasSerializationMethods(Class<?> type) {
+        for (Method method : type.getDeclaredMethods()) {
+            String name = method.getName();
+            if (name.equals("writeObject") || name.equals("readObject") || name.equals("readObjectNoData")
+                    || name.equals("writeReplace") || name.equals("readResolve")) {
+                return true;
+            }
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().equals("serialPersistentFields")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the tag of a type, like in a descriptor of the jvm
+     *
+     * @return The tag or 0 if the type is not supported
+     */
+    private static byte getTag(Class<?> type) {
+        if (type == boolean.class || type == Boolean.class) {
+            return 'Z';
+        } else if (type == byte.class || type == Byte.class) {
+            return 'B';
+        } else if (type == short.class || type == Short.class) {
+            return 'S';
+        } else if (type == char.class || type == Character.class) {
+            return 'C';
+        } else if (type == int.class || type == Integer.class) {
+            return 'I';
+        } else if (type == float.class || type == Float.class) {
+            return 'F';
+        } else if (type == long.class || type == Long.class) {
+            return 'J';
+        } else if (type == double.class || type == Double.class) {
+            return 'D';
+        } else if (type == String.class) {
+            return 'T';
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the size of a value with this tag, for a string the size of its length
+     */
+    private static int getSize(byte tag) {
+        switch (tag) {
+            case 'Z':
+            case 'B':
+                return 1;
+            case 'S':
+            case 'C':
+                return 2;
+            case 'I':
+            case 'F':
+            case 'T':
+                return 4;
+            default:
+                return 8;
+        }
+    }
+
+    /**
+     * The fields of a class which are stored
+     */
+    private static final class FieldLayout {
+        private final Field[] fields;
+        private final byte[] tags;
+        private final boolean[] primitive;
+        /**
+         * The names in the modified UTF-8 of {@link java.io.DataOutput#writeUTF(String)} with their length
+         */
+        private final byte[][] names;
+        private final Map<String, Integer> indexes;
+        /**
+         * The size of the field count, the names and tags and the values of the primitives
+         */
+        private final int fixedLength;
+
+        private FieldLayout() {
+            this(new ArrayList<Field>(), new HashMap<String, Integer>());
+        }
+
+        private FieldLayout(List<Field> fields, Map<String, Integer> indexes) {
+            this.fields = fields.toArray(new Field[fields.size()]);
+            this.indexes = indexes;
+            tags = new byte[this.fields.length];
+            primitive = new boolean[this.fields.length];
+            names = new byte[this.fields.length][];
+
+            int length = 2;
+            for (int i = 0; i < this.fields.length; i++) {
+                Class<?> type = this.fields[i].getType();
+                tags[i] = getTag(type);
+                primitive[i] = type.isPrimitive();
+
+                BlobBuffer name = BlobBuffer.exact(2 + BlobBuffer.getModifiedUTFLength(this.fields[i].getName()));
+                try {
+                    name.writeUTF(this.fields[i].getName());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                names[i] = name.release();
+
+                length += names[i].length + 1;
+                if (primitive[i]) {
+                    length += getSize(tags[i]);
+                }
+            }
+            fixedLength = length;
+        }
+
+        private int getLength(Object object) throws IllegalAccessException {
+            int length = fixedLength;
+            for (int i = 0; i < fields.length; i++) {
+                if (primitive[i]) {
+                    continue;
+                }
+                Object value = fields[i].get(object);
+                if (value != null) {
+                    length += getSize(tags[i]);
+                    if (tags[i] == 'T') {
+                        length += BlobBuffer.getUTFLength((String) value);
+                    }
+                }
+            }
+            return length;
+        }
+
+        private void write(BlobBuffer out, Object object) throws IllegalAccessException {
+            out.writeShort(fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                out.write(names[i]);
+                if (primitive[i]) {
+                    out.writeByte(tags[i]);
+                    writePrimitive(out, field, tags[i], object);
+                    continue;
+                }
+
+                Object value = field.get(object);
+                if (value == null) {
+                    out.writeByte(NULL);
+                } else {
+                    out.writeByte(tags[i]);
+                    writeObject(out, tags[i], value);
+                }
+            }
+        }
+
+        private static void writePrimitive(BlobBuffer out, Field field, byte tag, Object object) throws IllegalAccessException {
+            switch (tag) {
+                case 'Z':
+                    out.writeBoolean(field.getBoolean(object));
+                    break;
+                case 'B':
+                    out.writeByte(field.getByte(object));
+                    break;
+                case 'S':
+                    out.writeShort(field.getShort(object));
+                    break;
+                case 'C':
+                    out.writeChar(field.getChar(object));
+                    break;
+                case 'I':
+                    out.writeInt(field.getInt(object));
+                    break;
+                case 'F':
+                    out.writeFloat(field.getFloat(object));
+                    break;
+                case 'J':
+                    out.writeLong(field.getLong(object));
+                    break;
+                default:
+                    out.writeDouble(field.getDouble(object));
+            }
+        }
+
+        private static void writeObject(BlobBuffer out, byte tag, Object value) {
+            switch (tag) {
+                case 'Z':
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case 'B':
+                    out.writeByte((Byte) value);
+                    break;
+                case 'S':
+                    out.writeShort((Short) value);
+                    break;
+                case 'C':
+                    out.writeChar((Character) value);
+                    break;
+                case 'I':
+                    out.writeInt((Integer) value);
+                    break;
+                case 'F':
+                    out.writeFloat((Float) value);
+                    break;
+                case 'J':
+                    out.writeLong((Long) value);
+                    break;
+                case 'D':
+                    out.writeDouble((Double) value);
+                    break;
+                default:
+                    out.writeString((String) value);
+            }
+        }
+
+        private void read(BlobInput in, Object object) throws IOException, IllegalAccessException {
+            int count = in.readUnsignedShort();
+            for (int position = 0; position < count; position++) {
+                int index;
+                //the fields are usually stored in the order of the class, so their names need not be read
+                if (position < names.length && in.skipIfEqual(names[position])) {
+                    index = position;
+                } else {
+                    String name = in.readUTF();
+                    Integer found = indexes.get(name);
+                    if (found == null) {
+                        //the field was removed from the class
+                        skip(in, in.readByte());
+                        continue;
+                    }
+                    index = found;
+                }
+
+                byte tag = in.readByte();
+                Field field = fields[index];
+                if (tag == NULL && !primitive[index]) {
+                    field.set(object, null);
+                } else if (tag != tags[index]) {
+                    throw new IOException("The type of the field " + field.getName() + " of " + field.getDeclaringClass().getName() + " changed!");
+                } else if (primitive[index]) {
+                    readPrimitive(in, field, tag, object);
+                } else {
+                    field.set(object, readObject(in, tag));
+                }
+            }
+        }
+
+        private static void readPrimitive(BlobInput in, Field field, byte tag, Object object) throws IOException, IllegalAccessException {
+            switch (tag) {
+                case 'Z':
+                    field.setBoolean(object, in.readBoolean());
+                    break;
+                case 'B':
+                    field.setByte(object, in.readByte());
+                    break;
+                case 'S':
+                    field.setShort(object, in.readShort());
+                    break;
+                case 'C':
+                    field.setChar(object, in.readChar());
+                    break;
+                case 'I':
+                    field.setInt(object, in.readInt());
+                    break;
+                case 'F':
+                    field.setFloat(object, in.readFloat());
+                    break;
+                case 'J':
+                    field.setLong(object, in.readLong());
+                    break;
+                default:
+                    field.setDouble(object, in.readDouble());
+            }
+        }
+
+        private static Object readObject(BlobInput in, byte tag) throws IOException {
+            switch (tag) {
+                case 'Z':
+                    return in.readBoolean();
+                case 'B':
+                    return in.readByte();
+                case 'S':
+                    return in.readShort();
+                case 'C':
+                    return in.readChar();
+                case 'I':
+                    return in.readInt();
+                case 'F':
+                    return in.readFloat();
+                case 'J':
+                    return in.readLong();
+                case 'D':
+                    return in.readDouble();
+                default:
+                    return in.readString();
+            }
+        }
+
+        private static void skip(BlobInput in, byte tag) throws IOException {
+            switch (tag) {
+                case NULL:
+                    break;
+                case 'T':
+                    in.readString();
+                    break;
+                case 'Z':
+                case 'B':
+                case 'S':
+                case 'C':
+                case 'I':
+                case 'F':
+                case 'J':
+                case 'D':
+                    in.skipBytes(getSize(tag));
+                    break;
+                default:
+                    throw new IOException("Unknown type " + (char) tag + " of a field!");
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Stores values with the java serialization. Serializable columns use the {@link FieldCodec} by default, which falls
+ * back to this codec for values it can not store by their fields.
+ */
+public class SerializationCodec implements BinaryCodec {
+
+    @Override
+    public byte[] encode(Object value, Class<?> type) throws IOException {
+        BlobBuffer buffer = BlobBuffer.acquire();
+        byte[] bytes;
+        try {
+            ObjectOutputStream outputStream = new ObjectOutputStream(buffer);
+            outputStream.writeObject(value);
+            outputStream.flush();
+        } finally {
+            bytes = buffer.release();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object decode(byte[] data, Class<?> type) throws IOException {
+        ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(data));
+        try {
+            return inputStream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 17:05
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the values of a java type from and to the database. Every {@link com.p000ison.dev.sqlapi.Column} gets its
+ * codec when the table is registered, so reading or writing a value is a single call.
+ * <p/>
+ * Register your own codecs with {@link com.p000ison.dev.sqlapi.Database#registerTypeCodec(Class, TypeCodec)} before you
+ * register the tables which use the type.
+ */
+public interface TypeCodec {
+
+    /**
+     * Gets the sql type of the values returned by {@link #encode(Object)}, see {@link java.sql.Types}
+     *
+     * @return The sql type
+     */
+    int getSQLType();
+
+    /**
+     * Converts the value of a column to the value which is bound to a statement.
+     *
+     * @param value The value of the column, can be null
+     * @return The value for the statement
+     */
+    Object encode(Object value);
+
+    /**
+     * Reads the value of a column from a result.
+     *
+     * @param result The result
+     * @param index  The index of the column, starting at 1
+     * @return The value for the column
+     * @throws SQLException If the value can not be read
+     */
+    Object decode(ResultSet result, int index) throws SQLException;
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+package com.p000ison.dev.sqlapi.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the class of a value into its blob, if it is not the type of the column, so columns with a interface or a
+ * super class as type get back values of the right class. Resolved classes and their constructors are cached.
+ */
+final class ValueTypes {
+
+    private static final int DECLARED_TYPE = 0;
+    private static final int OTHER_TYPE = 1;
+
+    private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+    private final ConcurrentMap<Class<?>, Constructor<?>> constructors = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    /**
+     * Writes the class of a value
+     *
+     * @param out      The output
+     * @param value    The class of the value
+     * @param declared The type of the column
+     * @throws IOException If writing fails
+     */
+    static void write(DataOutput out, Class<?> value, Class<?> declared) throws IOException {
+        if (value == declared) {
+            out.writeByte(DECLARED_TYPE);
+        } else {
+            out.writeByte(OTHER_TYPE);
+            out.writeUTF(value.getName());
+        }
+    }
+
+    /**
+     * Gets the number of bytes {@link #write(DataOutput, Class, Class)} writes
+     */
+    static int getLength(Class<?> value, Class<?> declared) {
+        return value == declared ? 1 : 3 + BlobBuffer.getModifiedUTFLength(value.getName());
+    }
+
+    /**
+     * Reads the class of a value
+     *
+     * @param in       The input
+     * @param declared The type of the column
+     * @return The class of the value
+     * @throws IOException If the class is unknown or does not belong into the column
+     */
+    Class<?> read(DataInput in, Class<?> declared) throws IOException {
+        int kind = in.readUnsignedByte();
+        if (kind == DECLARED_TYPE) {
+            return declared;
+        } else if (kind != OTHER_TYPE) {
+            throw new IOException("Unknown type marker " + kind + "!");
+        }
+
+        String name = in.readUTF();
+        Class<?> type = classes.get(name);
+        //a class of the same name in another class loader is not cached
+        if (type == null || !declared.isAssignableFrom(type)) {
+            type = load(name, declared);
+            classes.put(name, type);
+        }
+        return type;
+    }
+
+    private static Class<?> load(String name, Class<?> declared) throws IOException {
+        ClassLoader loader = declared.getClassLoader();
+        if (loader == null) {
+            loader = Thread.currentThread().getContextClassLoader();
+        }
+
+        Class<?> type;
+        try {
+            type = Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The class " + name + " of a value was not found!", e);
+        }
+        if (!declared.isAssignableFrom(type)) {
+            throw new IOException("The class " + name + " is not a " + declared.getName() + "!");
+        }
+        return type;
+    }
+
+    /**
+     * Creates a instance of a class with its constructor without arguments
+     *
+     * @param type The class
+     * @return The new instance
+     * @throws IOException If the class has no such constructor or it fails
+     */
+    Object newInstance(Class<?> type) throws IOException {
+        Constructor<?> constructor = constructors.get(type);
+        try {
+            if (constructor == null) {
+                if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                    throw new IOException("The type " + type.getName() + " can not be created, because it is abstract!");
+                }
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                constructors.put(type, constructor);
+            }
+            return constructor.newInstance();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to create a instance of " + type.getName() + "!", e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 21:10
+ */
+
+package com.p000ison.dev.sqlapi.jbdc;
+
+import com.p000ison.dev.sqlapi.Column;
+import com.p000ison.dev.sqlapi.RegisteredTable;
+import com.p000ison.dev.sqlapi.TableObject;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.metrics.QueryType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts many entries of a table with statements which insert multiple rows at once.
+ * <p/>
+ * The entries are split into chunks which fit into the parameter, row and size limits of the database engine. All
+ * chunks are executed on one connection in one transaction. The generated keys are read from every chunk, if the driver
+ * returns only the last key of a statement the keys before it are counted back, because one statement gets consecutive
+ * keys.
+ */
+final class BulkInsert {
+
+    private final JBDCDatabase database;
+    private final RegisteredTable table;
+    private final List<Column> columns = new ArrayList<Column>();
+    private final TypeCodec[] codecs;
+    private final int maxRows;
+    private final long maxBytes;
+    private final long rowOverhead, queryOverhead;
+
+    BulkInsert(JBDCDatabase database, RegisteredTable table) {
+        this.database = database;
+        this.table = table;
+
+        long names = table.getName().length();
+        for (Column column : table.getRegisteredColumns()) {
+            if (!column.isID()) {
+                columns.add(column);
+                names += column.getName().length() + 1;
+            }
+        }
+
+        codecs = new TypeCodec[columns.size()];
+        for (int i = 0; i < codecs.length; i++) {
+            codecs[i] = database.getColumnCodec(columns.get(i));
+        }
+
+        maxRows = Math.max(1, Math.min(database.getMaxBulkInsertRows(), database.getMaxParameters() / Math.max(columns.size(), 1)));
+        maxBytes = database.getMaxStatementBytes();
+        //the placeholders, brackets and separators of a row and the start of the query
+        rowOverhead = 2 * columns.size() + 20;
+        queryOverhead = names + 64;
+    }
+
+    /**
+     * Inserts the objects
+     *
+     * @param objects The objects
+     * @return The generated keys in the order of the objects
+     */
+    long[] execute(List<TableObject> objects) {
+        List<QueryParameters> rows = encode(objects);
+        long[] keys = new long[rows.size()];
+        if (keys.length == 0) {
+            return keys;
+        }
+
+        QueryListener listener = database.getQueryListener();
+        long start = JBDCPreparedQuery.timestamp(listener);
+        PooledConnection connection = database.acquireWriteConnection();
+        long acquired = JBDCPreparedQuery.timestamp(listener);
+        String query = null;
+        try {
+            boolean transaction = JBDCPreparedQuery.beginBatchTransaction(connection);
+            boolean success = false;
+            try {
+                int from = 0;
+                while (from < rows.size()) {
+                    int to = nextChunk(rows, from);
+                    query = database.createBulkInsertQuery(table, to - from);
+                    executeChunk(connection, query, rows, from, to, keys);
+
+                    if (listener != null) {
+                        long now = System.nanoTime();
+                        listener.queryExecuted(query, table, QueryType.BATCH, acquired - start, now - acquired, to - from, getBlobBytes(rows, from, to));
+                        start = acquired = now;
+                    }
+                    from = to;
+                }
+                success = true;
+            } finally {
+                JBDCPreparedQuery.endBatchTransaction(connection, transaction, success);
+            }
+        } catch (SQLException e) {
+            if (query != null) {
+                connection.evict(query);
+            }
+            throw new QueryException(e);
+        } finally {
+            database.releaseConnection(connection);
+        }
+
+        return keys;
+    }
+
+    private List<QueryParameters> encode(List<TableObject> objects) {
+        List<QueryParameters> rows = new ArrayList<QueryParameters>(objects.size());
+        for (TableObject object : objects) {
+            QueryParameters row = new QueryParameters();
+            for (int i = 0; i < codecs.length; i++) {
+                TypeCodec codec = codecs[i];
+                row.set(i, codec.encode(columns.get(i).getValue(object)), codec.getSQLType());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Finds the end of the chunk which starts at the given row. A chunk contains at least one row, even if that row is
+     * larger than the maximal size of a statement.
+     */
+    private int nextChunk(List<QueryParameters> rows, int from) {
+        int end = Math.min(rows.size(), from + maxRows);
+        long bytes = queryOverhead;
+        int to = from;
+
+        while (to < end) {
+            bytes += rows.get(to).estimateBytes() + rowOverhead;
+            if (to > from && bytes > maxBytes) {
+                break;
+            }
+            to++;
+        }
+
+        return to;
+    }
+
+    private void executeChunk(PooledConnection connection, String query, List<QueryParameters> rows, int from, int to, long[] keys) throws SQLException {
+        PreparedStatement statement = connection.prepare(query, true);
+        int offset = 0;
+        for (int i = from; i < to; i++) {
+            rows.get(i).bind(statement, offset);
+            offset += codecs.length;
+        }
+
+        statement.executeUpdate();
+
+        int size = to - from;
+        int count = 0;
+        long last = -1;
+        ResultSet generated = statement.getGeneratedKeys();
+        try {
+            while (generated.next()) {
+                last = generated.getLong(1);
+                if (count < size) {
+                    keys[from + count] = last;
+                }
+                count++;
+            }
+        } finally {
+            generated.close();
+        }
+
+        if (count == size) {
+            return;
+        } else if (count == 1) {
+            for (int i = 0; i < size; i++) {
+                keys[from + i] = last - (size - 1 - i);
+            }
+            return;
+        }
+
+        throw new QueryException("The database returned %d generated keys for %d entries!", count, size);
+    }
+
+    private static long getBlobBytes(List<QueryParameters> rows, int from, int to) {
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            bytes += rows.get(i).getBlobBytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 14:00
+ */
+
+package com.p000ison.dev.sqlapi.jbdc;
+
+import com.p000ison.dev.sqlapi.exception.QueryException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of {@link PooledConnection}s.
+ * <p/>
+ * Idle connections are reused in LIFO order, so the statement caches of the most recently used connections stay warm
+ * and the connections at the tail of the pool time out. Connections above the minimum size get closed once they were
+ * idle longer than the idle timeout. A connection which was idle longer than the validation interval gets validated
+ * before it is borrowed and replaced if it is broken.
+ * <p/>
+ * A thread which borrows again while it still holds a connection of this pool, for example while it reads a
+ * {@link com.p000ison.dev.sqlapi.query.QueryCursor}, gets the same connection again. Otherwise it would wait for
+ * itself if the pool has only one connection.
+ */
+final class ConnectionPool {
+
+    private final JBDCDatabase database;
+    private final int minSize;
+    private final long idleTimeout, borrowTimeout, validationInterval;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+    /**
+     * The connection which was borrowed last by each thread
+     */
+    private final ThreadLocal<PooledConnection> held = new ThreadLocal<PooledConnection>();
+    private volatile boolean closed;
+
+    ConnectionPool(JBDCDatabase database, int minSize, int maxSize, long idleTimeout, long borrowTimeout, long validationInterval, int statementCacheSize) {
+        this.database = database;
+        this.minSize = minSize;
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.validationInterval = validationInterval;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.offerLast(open());
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool. If all connections are in use this waits until one gets released or the
+     * borrow timeout is reached.
+     *
+     * @return A connection which must be given back with {@link #release(PooledConnection)}
+     * @throws QueryException If no connection is available in time
+     */
+    PooledConnection borrow() {
+        if (closed) {
+            throw new QueryException("The connection pool is closed!");
+        }
+
+        PooledConnection current = held.get();
+        if (current != null && current.borrowAgain()) {
+            return current;
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new QueryException("Timed out after %d ms while waiting for a free connection!", borrowTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryException(e);
+        }
+
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    break;
+                }
+                discard(connection);
+            }
+
+            if (connection == null) {
+                connection = open();
+            }
+            connection.borrow();
+            held.set(connection);
+            return connection;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a idle connection can be borrowed. Connections which were idle for a while are validated, since the
+     * server may have closed them in the meantime.
+     *
+     * @param connection The idle connection
+     * @return Whether the connection is usable
+     */
+    private boolean isUsable(PooledConnection connection) {
+        if (connection.isClosed()) {
+            return false;
+        }
+        return System.currentTimeMillis() - connection.getLastUsed() < validationInterval || connection.isValid();
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool
+     *
+     * @param connection The connection to release
+     */
+    void release(PooledConnection connection) {
+        if (!connection.giveBack()) {
+            //the thread still uses the connection
+            return;
+        }
+        if (held.get() == connection) {
+            held.remove();
+        }
+
+        try {
+            if (closed || connection.isClosed()) {
+                discard(connection);
+            } else {
+                connection.touch();
+                idle.offerFirst(connection);
+                evictIdleConnections();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the connections which timed out and validates all other idle connections, so none of them reaches the
+     * wait_timeout of the server. Broken connections are closed. Connections which are borrowed at the moment are skipped.
+     */
+    void keepAlive() {
+        evictIdleConnections();
+
+        List<PooledConnection> checked = new ArrayList<PooledConnection>();
+        try {
+            for (int i = idle.size(); i > 0 && permits.tryAcquire(); i--) {
+                PooledConnection connection = idle.pollFirst();
+                if (connection == null) {
+                    permits.release();
+                    break;
+                }
+
+                if (connection.isClosed() || !connection.isValid()) {
+                    discard(connection);
+                    permits.release();
+                } else {
+                    checked.add(connection);
+                }
+            }
+        } finally {
+            //the checked connections are not touched, so they still time out and keep their order
+            for (PooledConnection connection : checked) {
+                if (closed) {
+                    discard(connection);
+                } else {
+                    idle.offerLast(connection);
+                }
+                permits.release();
+            }
+        }
+    }
+
+    private void evictIdleConnections() {
+        long expired = System.currentTimeMillis() - idleTimeout;
+
+        while (idle.size() > minSize) {
+            PooledConnection connection = idle.pollLast();
+            if (connection == null) {
+                return;
+            }
+
+            if (connection.getLastUsed() > expired) {
+                idle.offerLast(connection);
+                return;
+            }
+
+            discard(connection);
+        }
+    }
+
+    private PooledConnection open() {
+        return new PooledConnection(this, database.openConnection(), statementCacheSize);
+    }
+
+    private static void discard(PooledConnection connection) {
+        try {
+            connection.close();
+        } catch (QueryException ignored) {
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes all idle connections. Connections which are currently borrowed get closed once they are released.
+     */
+    void close() {
+        closed = true;
+
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+}
@@ -14,36 +14,57 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:50
+ * Last modified: 19.10.26 14:00
  */
 
 package com.p000ison.dev.sqlapi.jbdc;
 
 import com.p000ison.dev.sqlapi.*;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
 import com.p000ison.dev.sqlapi.exception.DatabaseConnectionException;
 import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a JBDCDatabase
+ * <p/>
+ * The connections are held in a bounded pool which is configured through the {@link DatabaseConfiguration}, so
+ * queries can run concurrently. Engines which allow only one writer at a time (see {@link #isSingleWriter()}) get a
+ * separate pool with exactly one connection for all modifying statements.
  */
 public abstract class JBDCDatabase extends Database {
     /**
-     * The connection to the database
+     * The pool of connections used for queries
      */
-    private Connection connection;
+    private final ConnectionPool connectionPool;
+    /**
+     * The pool of connections used for updates, this is the same as the connectionPool if the engine allows multiple writers
+     */
+    private final ConnectionPool writeConnectionPool;
+    /**
+     * The transaction of the current thread or null
+     */
+    private final ThreadLocal<Transaction> transaction = new ThreadLocal<Transaction>();
 
     public JBDCDatabase(DatabaseConfiguration configuration) throws DatabaseConnectionException {
         super(configuration);
 
-        connection = connect(configuration);
+        if (isSingleWriter()) {
+            writeConnectionPool = new ConnectionPool(this, 1, 1, configuration.getIdleTimeout(), configuration.getBorrowTimeout(),
+                    configuration.getValidationInterval(), configuration.getStatementCacheSize());
+        } else {
+            writeConnectionPool = null;
+        }
+
+        connectionPool = new ConnectionPool(this, configuration.getMinPoolSize(), configuration.getMaxPoolSize(),
+                configuration.getIdleTimeout(), configuration.getBorrowTimeout(), configuration.getValidationInterval(),
+                configuration.getStatementCacheSize());
+
         if (!testConnection()) {
             throw new DatabaseConnectionException(configuration, "Failed to connect to the database! Test failed!");
         }
@@ -51,262 +72,541 @@ public abstract class JBDCDatabase extends Database {
 
     protected abstract Connection connect(DatabaseConfiguration configuration) throws DatabaseConnectionException;
 
-    @Override
-    public void closeDatabaseConnection() throws QueryException {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                getConnection().close();
-            }
-        } catch (SQLException e) {
-            throw new QueryException(e);
-        }
+    /**
+     * Whether the database engine allows only one connection to modify the database at the same time. If this returns
+     * true all updates are executed on one dedicated connection, while queries still use the pool.
+     *
+     * @return Whether there can be only one writer
+     */
+    protected boolean isSingleWriter() {
+        return false;
     }
 
-    @Override
-    public List<String> getDatabaseColumns(String table) {
-        List<String> columns = new ArrayList<String>();
+    /**
+     * Whether the driver returns a generated key for every entry of a batch. If not, batches which need the generated
+     * keys are executed entry by entry in one transaction.
+     *
+     * @return Whether generated keys of batches are supported
+     */
+    protected boolean isBatchGeneratedKeysSupported() {
+        return true;
+    }
 
-        try {
-            ResultSet columnResult = getMetadata().getColumns(null, null, table, null);
+    /**
+     * Whether a statement can still be executed on its own after it executed a batch. If not, the statement is prepared
+     * again after every batch.
+     *
+     * @return Whether batch statements can be reused
+     */
+    protected boolean isBatchStatementReusable() {
+        return true;
+    }
+
+    /**
+     * Gets the fetch size of a {@link com.p000ison.dev.sqlapi.query.QueryCursor} whose query has no fetch size. Engines
+     * which load the whole result unless a fetch size is set return a size here, so cursors always stream.
+     *
+     * @return The fetch size or 0 for the default of the driver
+     */
+    protected int getCursorFetchSize() {
+        return 0;
+    }
 
+    /**
+     * Gets the maximal number of parameters of one statement
+     *
+     * @return The maximal number of parameters
+     */
+    protected int getMaxParameters() {
+        return 999;
+    }
 
-            while (columnResult.next()) {
-                columns.add(columnResult.getString("COLUMN_NAME"));
+    /**
+     * Gets the maximal number of rows which are inserted by one bulk insert statement
+     *
+     * @return The maximal number of rows
+     */
+    protected int getMaxBulkInsertRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets the maximal size of a statement which is sent to the database
+     *
+     * @return The maximal size in bytes
+     */
+    protected long getMaxStatementBytes() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Builds a query which inserts multiple entries at once. The parameters are the columns of every entry in the same
+     * order as in the insert statement of the table.
+     *
+     * @param table The table
+     * @param rows  The number of entries
+     * @return The query
+     */
+    protected String createBulkInsertQuery(RegisteredTable table, int rows) {
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(table.getName()).append(" (");
+        int columns = appendInsertColumns(query, table);
+
+        query.append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            query.append('(');
+            for (int i = 0; i < columns; i++) {
+                query.append("?,");
             }
-        } catch (SQLException e) {
-            throw new QueryException(e);
+            query.setCharAt(query.length() - 1, ')');
+            query.append(',');
         }
+        query.setCharAt(query.length() - 1, ';');
 
-        return columns;
+        return query.toString();
     }
 
-    private DatabaseMetaData getMetadata() {
-        try {
-            return getConnection().getMetaData();
-        } catch (SQLException e) {
-            throw new QueryException(e);
+    /**
+     * Appends the names of all columns except the id
+     *
+     * @param query The query
+     * @param table The table
+     * @return The number of appended columns
+     */
+    protected static int appendInsertColumns(StringBuilder query, RegisteredTable table) {
+        int columns = 0;
+        for (Column column : table.getRegisteredColumns()) {
+            if (column.isID()) {
+                continue;
+            }
+            query.append(column.getName()).append(',');
+            columns++;
         }
+        query.deleteCharAt(query.length() - 1);
+        return columns;
     }
 
     @Override
-    public boolean existsDatabaseTable(String table) {
-        ResultSet columnResult;
+    protected long[] executeBulkInsert(RegisteredTable table, List<TableObject> objects) {
+        return new BulkInsert(this, table).execute(objects);
+    }
+
+    @Override
+    protected <T extends TableObject> List<T> executeSelects(List<PreparedSelectQuery<T>> queries) {
+        List<T> results = new ArrayList<T>();
+        QueryListener listener = getQueryListener();
+        long start = JBDCPreparedQuery.timestamp(listener);
+        PooledConnection connection = acquireConnection();
         try {
-            columnResult = this.getMetadata().getTables(null, null, null, null);
+            for (PreparedSelectQuery<T> query : queries) {
+                ((JBDCPreparedSelectQuery<T>) query).getResults(connection, results, start);
+                start = JBDCPreparedQuery.timestamp(listener);
+            }
+        } finally {
+            releaseConnection(connection);
+        }
+        return results;
+    }
 
-            while (columnResult.next()) {
-                if (table.equals(columnResult.getString("TABLE_NAME"))) {
-                    return true;
-                }
+    /**
+     * Gets the codec of a column
+     *
+     * @param column The column
+     * @return The codec
+     * @throws QueryException If the type of the column is not supported
+     */
+    final TypeCodec getColumnCodec(Column column) {
+        TypeCodec codec = column.getCodec();
+        if (codec == null) {
+            codec = getTypeCodec(column.getType());
+            if (codec == null) {
+                throw new QueryException("The type %s of the column %s is not supported!", column.getType().getName(), column.getName());
             }
+        }
+        return codec;
+    }
 
+    /**
+     * Executes a query which returns a single value, like the version or a setting of the database
+     *
+     * @param query The query
+     * @return The first column of the first row or null if there is no row
+     */
+    protected final String queryString(String query) {
+        PooledConnection connection = acquireConnection();
+        Statement statement = null;
+        ResultSet result = null;
+        try {
+            statement = connection.getConnection().createStatement();
+            result = statement.executeQuery(query);
+            return result.next() ? result.getString(1) : null;
         } catch (SQLException e) {
             throw new QueryException(e);
+        } finally {
+            handleClose(statement, result);
+            releaseConnection(connection);
         }
+    }
 
-        return false;
+    final int getFetchSize() {
+        return getConfiguration().getFetchSize();
+    }
+
+    final Connection openConnection() {
+        return connect(getConfiguration());
+    }
+
+    /**
+     * Borrows a connection for reading from the pool
+     *
+     * @return The connection
+     */
+    final PooledConnection acquireConnection() {
+        Transaction current = transaction.get();
+        if (current != null) {
+            return current.connection;
+        }
+        return connectionPool.borrow();
+    }
+
+    /**
+     * Borrows a connection for modifying the database from the pool
+     *
+     * @return The connection
+     */
+    final PooledConnection acquireWriteConnection() {
+        Transaction current = transaction.get();
+        if (current != null) {
+            return current.connection;
+        }
+        return getWriteConnectionPool().borrow();
     }
 
-    protected final Connection getConnection() {
-        return connection;
+    final void releaseConnection(PooledConnection connection) {
+        if (connection == null) {
+            return;
+        }
+
+        //the connection of a transaction is released when the transaction ends
+        Transaction current = transaction.get();
+        if (current != null && current.connection == connection) {
+            return;
+        }
+        connection.getPool().release(connection);
     }
 
     @Override
-    public boolean executeDirectUpdate(String query) {
-        if (query == null) {
-            return false;
+    protected void reserveWriteConnection() {
+        Transaction current = transaction.get();
+        if (current == null) {
+            current = new Transaction(getWriteConnectionPool().borrow());
+            transaction.set(current);
         }
-        Statement statement = null;
+        current.reservations++;
+    }
+
+    @Override
+    protected void releaseWriteConnection() {
+        Transaction current = transaction.get();
+        if (current == null || current.reservations == 0) {
+            return;
+        }
+        current.reservations--;
+        if (current.reservations == 0 && !current.active) {
+            transaction.remove();
+            current.connection.getPool().release(current.connection);
+        }
+    }
+
+    @Override
+    public boolean isInTransaction() {
+        Transaction current = transaction.get();
+        return current != null && current.active;
+    }
+
+    @Override
+    protected void beginTransaction() {
+        Transaction current = transaction.get();
+        if (current != null && current.active) {
+            executeTransactionStatement(current, "SAVEPOINT sp" + (current.savepoints + 1) + ';');
+            current.savepoints++;
+            return;
+        }
+
+        //a thread which reserved the connection already keeps using it
+        PooledConnection connection = current == null ? getWriteConnectionPool().borrow() : current.connection;
         try {
-            statement = getConnection().createStatement();
-            return statement.executeUpdate(query) != 0;
+            connection.getConnection().setAutoCommit(false);
         } catch (SQLException e) {
+            if (current == null) {
+                connection.getPool().release(connection);
+            }
             throw new QueryException(e);
-        } finally {
-            handleClose(statement, null);
         }
+        if (current == null) {
+            current = new Transaction(connection);
+            transaction.set(current);
+        }
+        current.active = true;
     }
 
     @Override
-    public boolean isConnected() {
+    protected void commitTransaction() {
+        Transaction current = getTransaction();
+        if (current.savepoints > 0) {
+            try {
+                executeTransactionStatement(current, "RELEASE SAVEPOINT sp" + current.savepoints + ';');
+            } finally {
+                current.savepoints--;
+            }
+            return;
+        }
+
         try {
-            return getConnection() != null && !getConnection().isClosed();
+            current.connection.getConnection().commit();
         } catch (SQLException e) {
+            try {
+                current.connection.getConnection().rollback();
+            } catch (SQLException ignored) {
+            }
             throw new QueryException(e);
+        } finally {
+            endTransaction(current);
         }
     }
 
-    public PreparedStatement prepare(String query) {
+    @Override
+    protected void rollbackTransaction() {
+        Transaction current = getTransaction();
+        if (current.savepoints > 0) {
+            try {
+                executeTransactionStatement(current, "ROLLBACK TO SAVEPOINT sp" + current.savepoints + ';');
+                executeTransactionStatement(current, "RELEASE SAVEPOINT sp" + current.savepoints + ';');
+            } finally {
+                current.savepoints--;
+            }
+            return;
+        }
+
         try {
-            return getConnection().prepareStatement(query);
+            current.connection.getConnection().rollback();
         } catch (SQLException e) {
             throw new QueryException(e);
+        } finally {
+            endTransaction(current);
         }
     }
 
-    @Override
-    public JBDCPreparedQuery createPreparedStatement(String query) {
-        return new JBDCPreparedQuery(this, query);
+    private Transaction getTransaction() {
+        Transaction current = transaction.get();
+        if (current == null || !current.active) {
+            throw new QueryException("There is no transaction running in this thread!");
+        }
+        return current;
     }
 
-    @Override
-    public boolean existsEntry(RegisteredTable table, TableObject object) {
-        Column column = table.getIDColumn();
-
-        PreparedStatement check = null;
-        ResultSet result = null;
+    private void endTransaction(Transaction current) {
+        current.active = false;
+        boolean reserved = current.reservations > 0;
+        if (!reserved) {
+            transaction.remove();
+        }
         try {
-            check = getConnection().prepareStatement(String.format("SELECT %s FROM %s WHERE %s=%s;", column.getName(), table.getName(), column.getName(), column.getValue(object)));
+            current.connection.getConnection().setAutoCommit(true);
+        } catch (SQLException e) {
+            //the connection is in a unknown state, so it gets discarded
+            try {
+                current.connection.close();
+            } catch (QueryException ignored) {
+            }
+        } finally {
+            if (!reserved) {
+                current.connection.getPool().release(current.connection);
+            }
+        }
+    }
 
-            result = check.executeQuery();
-            return result.next();
+    private static void executeTransactionStatement(Transaction current, String query) {
+        Statement statement = null;
+        try {
+            statement = current.connection.getConnection().createStatement();
+            statement.execute(query);
         } catch (SQLException e) {
             throw new QueryException(e);
         } finally {
-            handleClose(check, result);
+            handleClose(statement, null);
+        }
+    }
+
+    /**
+     * The write connection held by a thread, either for a transaction or while it writes to a locked table
+     */
+    private static final class Transaction {
+        private final PooledConnection connection;
+        /**
+         * Whether a transaction is running on the connection
+         */
+        private boolean active;
+        /**
+         * The number of nested savepoints
+         */
+        private int savepoints;
+        /**
+         * The number of nested reservations by writes
+         */
+        private int reservations;
+
+        private Transaction(PooledConnection connection) {
+            this.connection = connection;
         }
     }
 
+    private ConnectionPool getWriteConnectionPool() {
+        return writeConnectionPool == null ? connectionPool : writeConnectionPool;
+    }
+
     @Override
-    public boolean existsEntry(TableObject object) {
-        return this.existsEntry(getRegisteredTable(object.getClass()), object);
+    public void closeDatabaseConnection() throws QueryException {
+        connectionPool.close();
+        if (writeConnectionPool != null) {
+            writeConnectionPool.close();
+        }
     }
 
     @Override
-    protected long getLastEntryId(RegisteredTable table) {
-        Column idColumn = table.getIDColumn();
-        PreparedStatement check = null;
-        ResultSet result = null;
+    public List<String> getDatabaseColumns(String table) {
+        List<String> columns = new ArrayList<String>();
+
+        PooledConnection connection = acquireWriteConnection();
+        ResultSet columnResult = null;
         try {
-            check = getConnection().prepareStatement(String.format("SELECT %s FROM %s ORDER BY %s DESC LIMIT 1;", idColumn.getName(), table.getName(), idColumn.getName()));
-            result = check.executeQuery();
-            if (!result.next()) {
-                return 1;
+            columnResult = connection.getConnection().getMetaData().getColumns(null, null, table, null);
+
+
+            while (columnResult.next()) {
+                columns.add(columnResult.getString("COLUMN_NAME"));
             }
-            long lastId = result.getLong(idColumn.getName());
-            result.close();
-            check.close();
-            return lastId;
         } catch (SQLException e) {
             throw new QueryException(e);
         } finally {
-            handleClose(check, result);
+            handleClose(null, columnResult);
+            releaseConnection(connection);
         }
+
+        return columns;
     }
 
-    public static void handleClose(Statement check, ResultSet result) {
+    @Override
+    public boolean existsDatabaseTable(String table) {
+        PooledConnection connection = acquireWriteConnection();
+        ResultSet columnResult = null;
         try {
-            if (check != null) {
-                check.close();
-            }
-            if (result != null) {
-                result.close();
+            columnResult = connection.getConnection().getMetaData().getTables(null, null, null, null);
+
+            while (columnResult.next()) {
+                if (table.equals(columnResult.getString("TABLE_NAME"))) {
+                    return true;
+                }
             }
+
         } catch (SQLException e) {
             throw new QueryException(e);
+        } finally {
+            handleClose(null, columnResult);
+            releaseConnection(connection);
         }
+
+        return false;
     }
 
     @Override
-    public boolean isSupported(Class<?> type) {
-        return isSupportedByDatabase(type);
-    }
-
-    static boolean isSupportedByDatabase(Class<?> type) {
-        return type.isPrimitive() || Number.class.isAssignableFrom(type)
-                || type == boolean.class || type == Boolean.class || type == AtomicBoolean.class
-                || type == char.class || type == Character.class
-                || type == Date.class || type == Timestamp.class
-                || type == String.class;
-    }
-
-    static int getDatabaseDataType(Class<?> type) {
-        if (type == boolean.class || type == Boolean.class || type == AtomicBoolean.class) {
-            return Types.TINYINT;
-        } else if (type == byte.class || type == Byte.class) {
-            return Types.TINYINT;
-        } else if (type == short.class || type == Short.class) {
-            return Types.SMALLINT;
-        } else if (type == int.class || type == Integer.class || type == AtomicInteger.class) {
-            return Types.INTEGER;
-        } else if (type == float.class || type == Float.class) {
-            return Types.FLOAT;
-        } else if (type == double.class || type == Double.class) {
-            return Types.DOUBLE;
-        } else if (type == long.class || type == Long.class || type == AtomicLong.class) {
-            return Types.INTEGER;
-        } else if (type == char.class || type == Character.class) {
-            return Types.CHAR;
-        } else if (type == String.class) {
-            return Types.VARCHAR;
-        } else if (type == java.util.Date.class || type == java.sql.Timestamp.class) {
-            return Types.TIMESTAMP;
-        } else if (RegisteredTable.isSerializable(type)) {
-            return Types.BLOB;
-        }
-
-        return UNSUPPORTED_TYPE;
-    }
-
-    static Object getDatabaseFromResultSet(int index, ResultSet set, Class<?> type) {
+    public boolean executeDirectUpdate(String query) {
+        if (query == null) {
+            return false;
+        }
+        PooledConnection connection = acquireWriteConnection();
+        Statement statement = null;
         try {
-            if (type == boolean.class || type == Boolean.class || type == AtomicBoolean.class) {
-                return set.getBoolean(index);
-            } else if (type == byte.class || type == Byte.class) {
-                return set.getByte(index);
-            } else if (type == short.class || type == Short.class) {
-                return set.getShort(index);
-            } else if (type == int.class || type == Integer.class || type == AtomicInteger.class) {
-                return set.getInt(index);
-            } else if (type == float.class || type == Float.class) {
-                return set.getFloat(index);
-            } else if (type == double.class || type == Double.class) {
-                return set.getDouble(index);
-            } else if (type == long.class || type == Long.class || type == AtomicLong.class) {
-                return set.getLong(index);
-            } else if (type == char.class || type == Character.class) {
-                return (char) set.getInt(index);
-            } else if (type == String.class) {
-                return set.getString(index);
-            } else if (type == java.util.Date.class || type == java.sql.Timestamp.class) {
-                return set.getTimestamp(index);
-            } else if (RegisteredTable.isSerializable(type)) {
-                return set.getBlob(index);
-            }
+            statement = connection.getConnection().createStatement();
+            return statement.executeUpdate(query) != 0;
         } catch (SQLException e) {
             throw new QueryException(e);
+        } finally {
+            handleClose(statement, null);
+            releaseConnection(connection);
         }
+    }
 
-        return null;
+    @Override
+    public boolean isConnected() {
+        return !connectionPool.isClosed();
     }
 
     @Override
-    protected <T extends TableObject> JBDCPreparedSelectQuery<T> createPreparedSelectQuery(String query, RegisteredTable table) {
-        return new JBDCPreparedSelectQuery<T>(this, query, table);
+    public JBDCPreparedQuery createPreparedStatement(String query) {
+        return new JBDCPreparedQuery(this, query);
     }
 
-    public ResultSet query(String query) {
-        Statement statement;
+    @Override
+    public JBDCPreparedQuery createPreparedStatement(String query, boolean returnGeneratedKeys) {
+        return new JBDCPreparedQuery(this, query, returnGeneratedKeys);
+    }
+
+    @Override
+    protected JBDCPreparedQuery createTableStatement(RegisteredTable table, String query, boolean returnGeneratedKeys) {
+        return new JBDCPreparedQuery(this, query, returnGeneratedKeys, table);
+    }
+
+    public static void handleClose(Statement check, ResultSet result) {
         try {
-            statement = getConnection().createStatement();
-            return statement.executeQuery(query);
+            if (check != null) {
+                check.close();
+            }
+            if (result != null) {
+                result.close();
+            }
         } catch (SQLException e) {
             throw new QueryException(e);
         }
     }
 
+    @Override
+    public boolean isSupported(Class<?> type) {
+        return getTypeCodec(type) != null;
+    }
+
+    @Override
+    protected <T extends TableObject> JBDCPreparedSelectQuery<T> createPreparedSelectQuery(String query, RegisteredTable table, List<Column> columns, int tupleSize) {
+        return new JBDCPreparedSelectQuery<T>(this, query, table, columns, tupleSize);
+    }
+
     @Override
     public void sendKeepAliveQuery() {
-        testConnection();
+        connectionPool.keepAlive();
+        if (writeConnectionPool != null) {
+            writeConnectionPool.keepAlive();
+        }
     }
 
     @Override
     public boolean testConnection() {
+        PooledConnection connection = null;
+        Statement statement = null;
+        ResultSet result = null;
         try {
-            query("SELECT 1;");
+            connection = acquireConnection();
+            statement = connection.getConnection().createStatement();
+            result = statement.executeQuery("SELECT 1;");
             return true;
-        } catch (QueryException e) {
+        } catch (SQLException e) {
             return false;
+        } catch (RuntimeException e) {
+            return false;
+        } finally {
+            try {
+                handleClose(statement, result);
+            } catch (QueryException ignored) {
+            }
+            releaseConnection(connection);
         }
     }
 }
\ No newline at end of file
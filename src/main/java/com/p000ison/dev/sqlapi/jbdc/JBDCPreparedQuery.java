@@ -14,41 +14,59 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 15:06
+ * Last modified: 19.10.26 17:00
  */
 
 package com.p000ison.dev.sqlapi.jbdc;
 
 
 import com.p000ison.dev.sqlapi.Column;
-import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.RegisteredTable;
+import com.p000ison.dev.sqlapi.codec.TypeCodec;
 import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.metrics.QueryType;
 import com.p000ison.dev.sqlapi.query.PreparedQuery;
+import com.p000ison.dev.sqlapi.query.Tuple;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Types;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents a JBDCPreparedQuery
+ * <p/>
+ * The parameters are stored until the query gets executed. Then a connection is borrowed from the pool of the
+ * {@link JBDCDatabase}, the statement cached on that connection gets the parameters and is executed. So the same
+ * query can run on different connections at the same time, but a single JBDCPreparedQuery must not be used by multiple
+ * threads at once.
  */
 public class JBDCPreparedQuery implements PreparedQuery {
-    private PreparedStatement preparedStatement;
     private final JBDCDatabase database;
     private final String query;
+    private final RegisteredTable table;
+    private final boolean returnGeneratedKeys;
+    private final QueryParameters parameters = new QueryParameters();
+    private final List<QueryParameters> batches = new ArrayList<QueryParameters>();
     private boolean autoReset;
+    private boolean reopen;
 
     protected JBDCPreparedQuery(JBDCDatabase database, String query) {
+        this(database, query, false);
+    }
+
+    protected JBDCPreparedQuery(JBDCDatabase database, String query, boolean returnGeneratedKeys) {
+        this(database, query, returnGeneratedKeys, null);
+    }
+
+    protected JBDCPreparedQuery(JBDCDatabase database, String query, boolean returnGeneratedKeys, RegisteredTable table) {
         this.query = query;
-        this.preparedStatement = database.prepare(query);
+        this.table = table;
+        this.returnGeneratedKeys = returnGeneratedKeys;
         this.autoReset = database.isAutoReset();
         this.database = database;
     }
@@ -59,20 +77,7 @@ public class JBDCPreparedQuery implements PreparedQuery {
             throw new IllegalArgumentException("The index must be more or equal 0!");
         }
 
-        try {
-            try {
-                if (preparedStatement.isClosed()) {
-                    reset();
-                }
-            } catch (AbstractMethodError ignored) {
-            }
-            preparedStatement.setObject(index + 1, value);
-        } catch (SQLException e) {
-            if (autoReset) {
-                reset();
-            }
-            throw new QueryException(e);
-        }
+        parameters.set(index, value, QueryParameters.UNTYPED);
     }
 
     @Override
@@ -81,215 +86,444 @@ public class JBDCPreparedQuery implements PreparedQuery {
             throw new IllegalArgumentException("The index must be more or equal 0!");
         }
 
+        parameters.set(index, value, databaseType);
+    }
+
+    @Override
+    public void set(Column column, int index, Object value) {
+        if (index < 0) {
+            throw new IllegalArgumentException("The index must be more or equal 0!");
+        }
+
+        TypeCodec codec = database.getColumnCodec(column);
+        parameters.set(index, codec.encode(value), codec.getSQLType());
+    }
+
+    @Override
+    public void clearParameters() {
+        parameters.clear();
+    }
+
+    @Override
+    public boolean update() {
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireWriteConnection();
+        long acquired = timestamp(listener);
         try {
-            try {
-                if (preparedStatement.isClosed()) {
-                    reset();
-                }
-            } catch (AbstractMethodError ignored) {
+            PreparedStatement statement = prepare(connection);
+            parameters.bind(statement);
+            int rows = statement.executeUpdate();
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.UPDATE, start, acquired, rows, parameters.getBlobBytes());
             }
-            preparedStatement.setObject(index + 1, value, databaseType);
+            return rows != 0;
         } catch (SQLException e) {
-            if (autoReset) {
-                reset();
-            }
+            handleException(connection);
             throw new QueryException(e);
+        } finally {
+            database.releaseConnection(connection);
         }
     }
 
-    @Override
-    public void set(Column column, int index, Object value) {
-        if (index < 0) {
-            throw new IllegalArgumentException("The index must be more or equal 0!");
+    /**
+     * Gets the statement of this query which is cached on the connection
+     *
+     * @param connection The borrowed connection
+     * @return The prepared statement
+     * @throws SQLException If the statement can not be prepared
+     */
+    final PreparedStatement prepare(PooledConnection connection) throws SQLException {
+        if (reopen) {
+            connection.evict(query);
+            reopen = false;
         }
+        return connection.prepare(query, returnGeneratedKeys);
+    }
+
+    /**
+     * Prepares a statement of this query which is not cached on the connection, so it can stay open while the
+     * connection executes other statements. The caller has to close it.
+     *
+     * @param connection The borrowed connection
+     * @return The prepared statement
+     * @throws SQLException If the statement can not be prepared
+     */
+    final PreparedStatement prepareUncached(PooledConnection connection) throws SQLException {
+        return connection.getConnection().prepareStatement(query);
+    }
 
-        index++;
+    /**
+     * Binds the stored parameters to a statement
+     *
+     * @param statement The statement
+     * @throws SQLException If a parameter is refused
+     */
+    final void bindParameters(PreparedStatement statement) throws SQLException {
+        parameters.bind(statement);
+    }
 
+    /**
+     * Gets the current time for the {@link QueryListener}. Without a listener the time is not needed.
+     *
+     * @param listener The listener or null
+     * @return The current time in nanoseconds or 0
+     */
+    static long timestamp(QueryListener listener) {
+        return listener == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Reports a executed statement to the listener
+     *
+     * @param listener  The listener
+     * @param type      The kind of the statement
+     * @param start     The time before the connection was borrowed
+     * @param acquired  The time the connection was borrowed
+     * @param rows      The returned or affected rows
+     * @param blobBytes The bytes of the written blobs
+     */
+    final void fireQueryExecuted(QueryListener listener, QueryType type, long start, long acquired, long rows, long blobBytes) {
+        listener.queryExecuted(query, table, type, acquired - start, System.nanoTime() - acquired, rows, blobBytes);
+    }
+
+    /**
+     * Called if executing the query on a connection failed
+     *
+     * @param connection The connection the query failed on
+     */
+    final void handleException(PooledConnection connection) {
+        if (autoReset) {
+            connection.evict(query);
+        }
+    }
+
+    @Override
+    public void close() {
+        parameters.clear();
+        batches.clear();
+        reopen = true;
+    }
+
+    @Override
+    public void reset() {
+        reopen = true;
+    }
+
+    @Override
+    public void setAutoReset(boolean reset) {
+        autoReset = reset;
+    }
+
+    @Override
+    public void addBatch() {
+        batches.add(parameters.copy());
+    }
+
+    @Override
+    public void clearBatch() {
+        batches.clear();
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batches.size();
+    }
+
+    @Override
+    public void executeBatches() {
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireWriteConnection();
+        long acquired = timestamp(listener);
+        PreparedStatement statement = null;
         try {
+            statement = prepare(connection);
+            boolean transaction = beginBatchTransaction(connection);
+            boolean success = false;
+            int[] counts;
             try {
-                if (preparedStatement.isClosed()) {
-                    reset();
-                }
-            } catch (AbstractMethodError ignored) {
-            }
-            int type = JBDCDatabase.getDatabaseDataType(column.getType());
-            if (type != Database.UNSUPPORTED_TYPE) {
-                if (value == null) {
-                    preparedStatement.setNull(index, type);
-                } else {
-                    if (value instanceof AtomicBoolean) {
-                        value = ((AtomicBoolean) value).get();
-                    }
-                    if (value instanceof AtomicInteger) {
-                        value = ((AtomicInteger) value).get();
-                    }
-                    if (value instanceof AtomicLong) {
-                        value = ((AtomicLong) value).get();
-                    }
-                    preparedStatement.setObject(index, value, type);
-                }
-            } else if (column.isSerializable()) {
-                if (value == null) {
-                    preparedStatement.setNull(index, Types.BLOB);
-                } else {
-                    ByteArrayOutputStream byteBuffer = new ByteArrayOutputStream();
-                    ObjectOutput outputStream = new ObjectOutputStream(byteBuffer);
-                    outputStream.writeObject(value);
-                    byte[] bytes = byteBuffer.toByteArray();
-
-                    preparedStatement.setBytes(index, bytes);
+                for (QueryParameters batch : batches) {
+                    batch.bind(statement);
+                    statement.addBatch();
                 }
+                counts = statement.executeBatch();
+                success = true;
+            } finally {
+                endBatchTransaction(connection, transaction, success);
             }
 
-        } catch (SQLException e) {
-            if (autoReset) {
-                reset();
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.BATCH, start, acquired, countRows(counts), getBatchBlobBytes());
             }
+        } catch (SQLException e) {
+            clearStatementBatch(statement);
+            handleException(connection);
             throw new QueryException(e);
-        } catch (IOException e) {
-            throw new QueryException(e);
+        } finally {
+            batches.clear();
+            if (statement != null && !database.isBatchStatementReusable()) {
+                connection.evict(query);
+            }
+            database.releaseConnection(connection);
         }
     }
 
     @Override
-    public void clearParameters() {
+    public long executeInsert() {
+        checkGeneratedKeys();
+
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireWriteConnection();
+        long acquired = timestamp(listener);
         try {
-            if (preparedStatement.isClosed()) {
-                reset();
-            } else {
-                preparedStatement.clearParameters();
+            PreparedStatement statement = prepare(connection);
+            parameters.bind(statement);
+            int rows = statement.executeUpdate();
+            long key = getGeneratedKey(statement);
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.INSERT, start, acquired, rows, parameters.getBlobBytes());
             }
-        } catch (AbstractMethodError ignored) {
+            return key;
         } catch (SQLException e) {
-            if (autoReset) {
-                reset();
-            }
+            handleException(connection);
             throw new QueryException(e);
+        } finally {
+            database.releaseConnection(connection);
         }
     }
 
     @Override
-    public boolean update() {
-        synchronized (database) {
-            try {
-                try {
-                    if (preparedStatement.isClosed()) {
-                        reset();
-                    }
-                } catch (AbstractMethodError ignored) {
-                }
-                return preparedStatement.executeUpdate() != 0;
-            } catch (SQLException e) {
-                if (autoReset) {
-                    reset();
-                }
-                throw new QueryException(e);
+    public long executeScalar() {
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireConnection();
+        long acquired = timestamp(listener);
+        ResultSet result = null;
+        try {
+            PreparedStatement statement = prepare(connection);
+            parameters.bind(statement);
+            result = statement.executeQuery();
+            boolean found = result.next();
+            long value = found ? result.getLong(1) : -1;
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.SELECT, start, acquired, found ? 1 : 0, 0);
             }
+            return value;
+        } catch (SQLException e) {
+            handleException(connection);
+            throw new QueryException(e);
+        } finally {
+            JBDCDatabase.handleClose(null, result);
+            database.releaseConnection(connection);
         }
     }
 
-    public ResultSet query() {
-        synchronized (database) {
-            try {
-                try {
-                    if (preparedStatement.isClosed()) {
-                        reset();
+    @Override
+    public List<Tuple> executeTuples(List<String> names, List<Column> columns, List<Class<?>> types) {
+        List<Tuple> tuples = new ArrayList<Tuple>();
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireConnection();
+        long acquired = timestamp(listener);
+        ResultSet result = null;
+        try {
+            PreparedStatement statement = prepare(connection);
+            parameters.bind(statement);
+            result = statement.executeQuery();
+
+            while (result.next()) {
+                Object[] values = new Object[names.size()];
+                for (int i = 0; i < values.length; i++) {
+                    Class<?> type = types.get(i);
+                    if (type == Long.class) {
+                        long value = result.getLong(i + 1);
+                        values[i] = result.wasNull() ? null : value;
+                    } else if (type == Double.class) {
+                        double value = result.getDouble(i + 1);
+                        values[i] = result.wasNull() ? null : value;
+                    } else {
+                        values[i] = database.getColumnCodec(columns.get(i)).decode(result, i + 1);
                     }
-                } catch (AbstractMethodError ignored) {
-                }
-                return preparedStatement.executeQuery();
-            } catch (SQLException e) {
-                if (autoReset) {
-                    reset();
                 }
-                throw new QueryException(e);
+                tuples.add(new Tuple(names, values));
             }
+
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.SELECT, start, acquired, tuples.size(), 0);
+            }
+        } catch (SQLException e) {
+            handleException(connection);
+            throw new QueryException(e);
+        } finally {
+            JBDCDatabase.handleClose(null, result);
+            database.releaseConnection(connection);
         }
+        return tuples;
     }
 
     @Override
-    public void close() {
+    public long[] executeInsertBatches() {
+        checkGeneratedKeys();
+
+        if (batches.isEmpty()) {
+            return new long[0];
+        }
+
+        QueryListener listener = database.getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = database.acquireWriteConnection();
+        long acquired = timestamp(listener);
+        PreparedStatement statement = null;
         try {
-            try {
-                if (preparedStatement.isClosed()) {
-                    return;
+            statement = prepare(connection);
+
+            long[] keys;
+            if (database.isBatchGeneratedKeysSupported()) {
+                for (QueryParameters batch : batches) {
+                    batch.bind(statement);
+                    statement.addBatch();
                 }
-            } catch (AbstractMethodError ignored) {
+                statement.executeBatch();
+                keys = getGeneratedKeys(statement, batches.size());
+            } else {
+                keys = executeInsertsSeparately(connection, statement);
             }
-            getPreparedStatement().close();
+
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.BATCH, start, acquired, keys.length, getBatchBlobBytes());
+            }
+            return keys;
         } catch (SQLException e) {
+            clearStatementBatch(statement);
+            handleException(connection);
             throw new QueryException(e);
+        } finally {
+            batches.clear();
+            database.releaseConnection(connection);
         }
     }
 
+    /**
+     * Executes every batch entry on its own, because the driver returns only the last generated key of a batch. The
+     * entries are executed in one transaction, if there is no transaction running already.
+     */
+    private long[] executeInsertsSeparately(PooledConnection connection, PreparedStatement statement) throws SQLException {
+        long[] keys = new long[batches.size()];
+        boolean transaction = beginBatchTransaction(connection);
+        boolean success = false;
 
-    @Override
-    public void reset() {
-        preparedStatement = database.prepare(query);
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                batches.get(i).bind(statement);
+                statement.executeUpdate();
+                keys[i] = getGeneratedKey(statement);
+            }
+            success = true;
+        } finally {
+            endBatchTransaction(connection, transaction, success);
+        }
+
+        return keys;
     }
 
-    @Override
-    public void setAutoReset(boolean reset) {
-        autoReset = reset;
+    /**
+     * Starts a transaction for a batch, if there is no transaction running already
+     *
+     * @return Whether a transaction was started
+     */
+    static boolean beginBatchTransaction(PooledConnection connection) throws SQLException {
+        Connection jdbcConnection = connection.getConnection();
+        if (!jdbcConnection.getAutoCommit()) {
+            return false;
+        }
+
+        jdbcConnection.setAutoCommit(false);
+        return true;
     }
 
-    @Override
-    public void addBatch() {
-        synchronized (database) {
-            try {
-                try {
-                    if (preparedStatement.isClosed()) {
-                        reset();
-                    }
-                } catch (AbstractMethodError ignored) {
-                }
-                preparedStatement.addBatch();
-            } catch (SQLException e) {
-                if (autoReset) {
-                    reset();
-                }
-                throw new QueryException(e);
+    /**
+     * Commits or rolls back the transaction started by {@link #beginBatchTransaction(PooledConnection)}
+     */
+    static void endBatchTransaction(PooledConnection connection, boolean transaction, boolean success) throws SQLException {
+        if (!transaction) {
+            return;
+        }
+
+        Connection jdbcConnection = connection.getConnection();
+        try {
+            if (success) {
+                jdbcConnection.commit();
+            } else {
+                jdbcConnection.rollback();
             }
+        } finally {
+            jdbcConnection.setAutoCommit(true);
         }
     }
 
-    @Override
-    public void clearBatch() {
-        synchronized (database) {
-            try {
-                try {
-                    if (preparedStatement.isClosed()) {
-                        reset();
-                    }
-                } catch (AbstractMethodError ignored) {
-                }
-                preparedStatement.clearBatch();
-            } catch (SQLException e) {
-                if (autoReset) {
-                    reset();
-                }
-                throw new QueryException(e);
-            }
+    private static long countRows(int[] counts) {
+        long rows = 0;
+        for (int count : counts) {
+            //the driver may not know the count of a entry
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
         }
+        return rows;
     }
 
-    @Override
-    public void executeBatches() {
-        synchronized (database) {
-            try {
-                try {
-                    if (preparedStatement.isClosed()) {
-                        reset();
-                    }
-                } catch (AbstractMethodError ignored) {
-                }
-                preparedStatement.executeBatch();
-            } catch (SQLException e) {
-                if (autoReset) {
-                    reset();
-                }
-                throw new QueryException(e);
+    private long getBatchBlobBytes() {
+        long bytes = 0;
+        for (QueryParameters batch : batches) {
+            bytes += batch.getBlobBytes();
+        }
+        return bytes;
+    }
+
+    private static long getGeneratedKey(PreparedStatement statement) throws SQLException {
+        ResultSet keys = statement.getGeneratedKeys();
+        try {
+            return keys.next() ? keys.getLong(1) : -1;
+        } finally {
+            keys.close();
+        }
+    }
+
+    private static long[] getGeneratedKeys(PreparedStatement statement, int size) throws SQLException {
+        long[] generated = new long[size];
+        ResultSet keys = statement.getGeneratedKeys();
+        try {
+            int i = 0;
+            while (i < size && keys.next()) {
+                generated[i++] = keys.getLong(1);
             }
+            if (i != size) {
+                throw new QueryException("The database returned only %d generated keys for %d entries!", i, size);
+            }
+        } finally {
+            keys.close();
+        }
+        return generated;
+    }
+
+    private void checkGeneratedKeys() {
+        if (!returnGeneratedKeys) {
+            throw new QueryException("The query \"%s\" was not prepared to return generated keys!", query);
+        }
+    }
+
+    private static void clearStatementBatch(PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+
+        try {
+            statement.clearBatch();
+        } catch (SQLException ignored) {
         }
     }
 
@@ -298,8 +532,8 @@ public class JBDCPreparedQuery implements PreparedQuery {
         return autoReset;
     }
 
-    protected PreparedStatement getPreparedStatement() {
-        return preparedStatement;
+    protected String getQuery() {
+        return query;
     }
 
     protected JBDCDatabase getDatabase() {
@@ -14,112 +14,319 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 15:57
+ * Last modified: 19.10.26 15:20
  */
 
 package com.p000ison.dev.sqlapi.jbdc;
 
 
 import com.p000ison.dev.sqlapi.Column;
+import com.p000ison.dev.sqlapi.DirtyTracker;
+import com.p000ison.dev.sqlapi.EntityCache;
 import com.p000ison.dev.sqlapi.RegisteredTable;
 import com.p000ison.dev.sqlapi.TableObject;
 import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.metrics.QueryType;
 import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+import com.p000ison.dev.sqlapi.query.QueryCursor;
+import com.p000ison.dev.sqlapi.query.Tuple;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Represents a JBDCPreparedQuery
  */
 public class JBDCPreparedSelectQuery<T extends TableObject> extends JBDCPreparedQuery implements PreparedSelectQuery<T> {
     private final RegisteredTable table;
+    private final List<Column> columns;
+    private final List<String> tupleColumns;
+    private final int idIndex;
+    /**
+     * Whether only some columns are selected. The objects of such a query are not cached.
+     */
+    private final boolean partial;
+    private int fetchSize;
 
 
     protected JBDCPreparedSelectQuery(JBDCDatabase database, String query, RegisteredTable table) {
-        super(database, query);
+        this(database, query, table, table.getRegisteredColumns(), table.getRegisteredColumns().size());
+    }
+
+    protected JBDCPreparedSelectQuery(JBDCDatabase database, String query, RegisteredTable table, List<Column> columns, int tupleSize) {
+        super(database, query, false, table);
         this.table = table;
+        this.columns = columns;
+        this.idIndex = columns.indexOf(table.getIDColumn());
+        this.partial = columns.size() != table.getRegisteredColumns().size();
+        this.fetchSize = database.getFetchSize();
+
+        List<String> names = new ArrayList<String>(tupleSize);
+        for (int i = 0; i < tupleSize; i++) {
+            names.add(columns.get(i).getName());
+        }
+        this.tupleColumns = Collections.unmodifiableList(names);
     }
 
     @Override
     public <C extends Collection<T>> C getResults(C collection) {
-        synchronized (getDatabase()) {
-            ResultSet result = null;
-            try {
-                try {
-                    if (getPreparedStatement().isClosed()) {
-                        reset();
-                    }
-                } catch (AbstractMethodError ignored) {
-                }
+        QueryListener listener = getDatabase().getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = getDatabase().acquireConnection();
+        try {
+            return getResults(connection, collection, start);
+        } finally {
+            getDatabase().releaseConnection(connection);
+        }
+    }
 
-                result = getPreparedStatement().executeQuery();
-                List<Column> columns = table.getRegisteredColumns();
-
-                while (result.next()) {
-                    T object = table.createNewInstance();
-
-                    for (int i = 0; i < columns.size(); i++) {
-                        Column column = columns.get(i);
-
-                        Object obj = null;
-
-
-                        if (JBDCDatabase.isSupportedByDatabase(column.getType())) {
-                            obj = JBDCDatabase.getDatabaseFromResultSet(i + 1, result, column.getType());
-                        } else {
-                            ObjectInputStream inputStream = null;
-                            try {
-                                InputStream selectedInputStream = result.getBinaryStream(i + 1);
-                                if (selectedInputStream != null) {
-                                    inputStream = new ObjectInputStream(selectedInputStream);
-                                    obj = inputStream.readObject();
-                                }
-                            } catch (IOException e) {
-                                throw new QueryException(e);
-                            } catch (ClassNotFoundException e) {
-                                throw new QueryException(e);
-                            } finally {
-                                try {
-                                    if (inputStream != null) {
-                                        inputStream.close();
-                                    }
-                                } catch (IOException e) {
-                                    throw new QueryException(e);
-                                }
-                            }
-                        }
-
-                        if (column.isSaveInputAfterLoading()) {
-                            //set this value after returning getResults
-                            table.storeColumnValue(column, obj, object);
-                        } else {
-                            column.setValue(object, obj);
-                        }
-                    }
-
-                    collection.add(object);
-                }
-            } catch (SQLException e) {
-                if (isAutoReset()) {
-                    reset();
-                }
-                throw new QueryException(e);
-            } finally {
-                JBDCDatabase.handleClose(null, result);
+    /**
+     * Executes this query on a borrowed connection and adds the results to a collection
+     *
+     * @param connection The connection, which is not released
+     * @param collection The collection
+     * @param start      The time the query started, including waiting for the connection
+     * @return The collection
+     */
+    <C extends Collection<T>> C getResults(PooledConnection connection, C collection, long start) {
+        QueryListener listener = getDatabase().getQueryListener();
+        long acquired = timestamp(listener);
+        ResultSet result = null;
+        try {
+            result = executeQuery(connection);
+
+            int rows = 0;
+            while (result.next()) {
+                collection.add(readObject(result));
+                rows++;
+            }
+
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.SELECT, start, acquired, rows, 0);
             }
-            return collection;
+        } catch (SQLException e) {
+            handleException(connection);
+            throw new QueryException(e);
+        } finally {
+            JBDCDatabase.handleClose(null, result);
         }
+        return collection;
     }
 
     @Override
     public List<T> getResults() {
         return getResults(new ArrayList<T>());
     }
+
+    @Override
+    public List<Tuple> getTuples() {
+        List<Tuple> tuples = new ArrayList<Tuple>();
+        QueryListener listener = getDatabase().getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = getDatabase().acquireConnection();
+        long acquired = timestamp(listener);
+        ResultSet result = null;
+        try {
+            result = executeQuery(connection);
+
+            while (result.next()) {
+                Object[] values = new Object[tupleColumns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = columns.get(i).getCodec().decode(result, i + 1);
+                }
+                tuples.add(new Tuple(tupleColumns, values));
+            }
+
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.SELECT, start, acquired, tuples.size(), 0);
+            }
+        } catch (SQLException e) {
+            handleException(connection);
+            throw new QueryException(e);
+        } finally {
+            JBDCDatabase.handleClose(null, result);
+            getDatabase().releaseConnection(connection);
+        }
+        return tuples;
+    }
+
+    @Override
+    public QueryCursor<T> getCursor() {
+        QueryListener listener = getDatabase().getQueryListener();
+        long start = timestamp(listener);
+        PooledConnection connection = getDatabase().acquireConnection();
+        long acquired = timestamp(listener);
+        PreparedStatement statement = null;
+        try {
+            //the thread may run other queries on the connection while it reads, so the statement is not shared
+            statement = prepareUncached(connection);
+            bindParameters(statement);
+            statement.setFetchSize(fetchSize == 0 ? getDatabase().getCursorFetchSize() : fetchSize);
+            return new JBDCQueryCursor(connection, statement, statement.executeQuery(), listener, start, acquired);
+        } catch (SQLException e) {
+            handleException(connection);
+            JBDCDatabase.handleClose(statement, null);
+            getDatabase().releaseConnection(connection);
+            throw new QueryException(e);
+        } catch (RuntimeException e) {
+            JBDCDatabase.handleClose(statement, null);
+            getDatabase().releaseConnection(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("The fetch size must be greater or equal 0!");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    private ResultSet executeQuery(PooledConnection connection) throws SQLException {
+        PreparedStatement statement = prepare(connection);
+        bindParameters(statement);
+        statement.setFetchSize(fetchSize);
+        return statement.executeQuery();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readObject(ResultSet result) throws SQLException {
+        EntityCache cache = table.getEntityCache();
+        long id = 0;
+
+        if (cache != null) {
+            //return the cached object with this id, so there is only one object per entry
+            id = ((Number) columns.get(idIndex).getCodec().decode(result, idIndex + 1)).longValue();
+            TableObject cached = cache.get(id);
+            if (cached != null) {
+                return (T) cached;
+            }
+        }
+
+        T object = table.createNewInstance();
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+
+            Object obj = column.getCodec().decode(result, i + 1);
+
+            if (column.isSaveInputAfterLoading()) {
+                //set this value after returning getResults
+                table.storeColumnValue(column, obj, object);
+            } else {
+                column.setValue(object, obj);
+            }
+        }
+
+        //partial objects do not go into the cache, but they are tracked or marked so an update does not overwrite the missing columns
+        if (cache != null && !partial) {
+            TableObject cached = cache.putIfAbsent(id, object);
+            if (cached != object) {
+                return (T) cached;
+            }
+        }
+
+        DirtyTracker tracker = table.getDirtyTracker();
+        if (tracker != null) {
+            tracker.snapshot(object, partial);
+        } else if (partial) {
+            table.markPartial(object);
+        }
+        return object;
+    }
+
+    /**
+     * A cursor which reads one row ahead and holds the connection until it is closed or exhausted. The query is reported
+     * to the listener when the cursor gets closed.
+     */
+    private final class JBDCQueryCursor implements QueryCursor<T> {
+        private PooledConnection connection;
+        private final PreparedStatement statement;
+        private ResultSet result;
+        private T next;
+        private final QueryListener listener;
+        private final long start, acquired;
+        private int rows;
+
+        private JBDCQueryCursor(PooledConnection connection, PreparedStatement statement, ResultSet result, QueryListener listener, long start, long acquired) {
+            this.connection = connection;
+            this.statement = statement;
+            this.result = result;
+            this.listener = listener;
+            this.start = start;
+            this.acquired = acquired;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+
+            if (result == null) {
+                return false;
+            }
+
+            try {
+                if (result.next()) {
+                    next = readObject(result);
+                    rows++;
+                    return true;
+                }
+            } catch (SQLException e) {
+                handleException(connection);
+                close();
+                throw new QueryException(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            close();
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T object = next;
+            next = null;
+            return object;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The results of a query can not be removed!");
+        }
+
+        @Override
+        public void close() {
+            if (result == null) {
+                return;
+            }
+
+            try {
+                JBDCDatabase.handleClose(statement, result);
+            } finally {
+                result = null;
+                getDatabase().releaseConnection(connection);
+                connection = null;
+            }
+
+            if (listener != null) {
+                fireQueryExecuted(listener, QueryType.SELECT, start, acquired, rows, 0);
+            }
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 14:00
+ */
+
+package com.p000ison.dev.sqlapi.jbdc;
+
+import com.p000ison.dev.sqlapi.exception.QueryException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A connection which is managed by a {@link ConnectionPool}. Every connection caches its own prepared statements, so a
+ * query only gets compiled once per connection.
+ * <p/>
+ * A PooledConnection is only used by one thread at a time, so it does not need to be synchronized. Only the owner and
+ * the number of borrows are synchronized, because a cursor may give the connection back from another thread.
+ */
+final class PooledConnection {
+
+    /**
+     * Appended to the cache key of statements which return generated keys, so they are cached apart from the statements
+     * of the same query which do not
+     */
+    private static final String GENERATED_KEYS = "\0keys";
+    /**
+     * The time in seconds the validation of a connection may take
+     */
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private long lastUsed = System.currentTimeMillis();
+    /**
+     * The thread which borrowed this connection and how often it borrowed it without giving it back
+     */
+    private Thread owner;
+    private int borrows;
+
+    PooledConnection(ConnectionPool pool, Connection connection, final int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    closeStatement(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached prepared statement or prepares a new one for this connection.
+     *
+     * @param query                The query to prepare
+     * @param returnGeneratedKeys Whether the statement should return the keys generated by the database
+     * @return The prepared statement
+     * @throws SQLException If the driver fails to prepare the query
+     */
+    PreparedStatement prepare(String query, boolean returnGeneratedKeys) throws SQLException {
+        String key = returnGeneratedKeys ? query + GENERATED_KEYS : query;
+        PreparedStatement statement = statements.get(key);
+
+        if (statement != null) {
+            try {
+                if (!statement.isClosed()) {
+                    return statement;
+                }
+            } catch (AbstractMethodError ignored) {
+                return statement;
+            }
+        }
+
+        if (returnGeneratedKeys) {
+            statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+        } else {
+            statement = connection.prepareStatement(query);
+        }
+        statements.put(key, statement);
+        return statement;
+    }
+
+    /**
+     * Closes and removes the cached statements of a query, so they get prepared again the next time they are used.
+     *
+     * @param query The query of the statements
+     */
+    void evict(String query) {
+        closeStatement(statements.remove(query));
+        closeStatement(statements.remove(query + GENERATED_KEYS));
+    }
+
+    /**
+     * Marks this connection as borrowed by the current thread
+     */
+    synchronized void borrow() {
+        owner = Thread.currentThread();
+        borrows = 1;
+    }
+
+    /**
+     * Borrows this connection again if the current thread still holds it
+     *
+     * @return Whether the connection was borrowed again
+     */
+    synchronized boolean borrowAgain() {
+        if (borrows == 0 || owner != Thread.currentThread()) {
+            return false;
+        }
+        borrows++;
+        return true;
+    }
+
+    /**
+     * Gives back one borrow of this connection
+     *
+     * @return Whether this was the last borrow, so the connection can go back to the pool
+     */
+    synchronized boolean giveBack() {
+        if (borrows > 1) {
+            borrows--;
+            return false;
+        }
+        borrows = 0;
+        owner = null;
+        return true;
+    }
+
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    boolean isClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Validates this connection with the driver or, if the driver can not do that, with a test query
+     *
+     * @return Whether the connection works
+     */
+    boolean isValid() {
+        try {
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT);
+            } catch (AbstractMethodError ignored) {
+                //the driver implements a older JDBC version
+            }
+
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeQuery("SELECT 1;").close();
+            } finally {
+                statement.close();
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void close() {
+        for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext(); ) {
+            closeStatement(it.next());
+            it.remove();
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new QueryException(e);
+        }
+    }
+
+    private static void closeStatement(PreparedStatement statement) {
+        if (statement == null) {
+            return;
+        }
+
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
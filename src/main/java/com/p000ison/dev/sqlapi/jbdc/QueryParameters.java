@@ -0,0 +1,151 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 15:10
+ */
+
+package com.p000ison.dev.sqlapi.jbdc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Holds the parameters of a {@link JBDCPreparedQuery} until it gets executed on a pooled connection.
+ */
+final class QueryParameters {
+
+    /**
+     * The type of a parameter which was set without a sql type
+     */
+    static final int UNTYPED = Integer.MIN_VALUE;
+
+    private Object[] values;
+    private int[] types;
+    private int size;
+
+    QueryParameters() {
+        this(8);
+    }
+
+    private QueryParameters(int capacity) {
+        values = new Object[capacity];
+        types = new int[capacity];
+    }
+
+    void set(int index, Object value, int type) {
+        if (index >= values.length) {
+            int capacity = Math.max(values.length * 2, index + 1);
+            values = Arrays.copyOf(values, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+
+        values[index] = value;
+        types[index] = type;
+
+        if (index >= size) {
+            size = index + 1;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    QueryParameters copy() {
+        QueryParameters copy = new QueryParameters(Math.max(size, 1));
+        System.arraycopy(values, 0, copy.values, 0, size);
+        System.arraycopy(types, 0, copy.types, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Gets the size of all byte array parameters, which are the encoded blobs
+     *
+     * @return The number of bytes
+     */
+    long getBlobBytes() {
+        long bytes = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i] instanceof byte[]) {
+                bytes += ((byte[]) values[i]).length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates how many bytes the parameters take in a statement sent to the database. Strings and blobs are counted
+     * twice, because the drivers may escape them.
+     *
+     * @return The estimated number of bytes
+     */
+    long estimateBytes() {
+        long bytes = 0;
+        for (int i = 0; i < size; i++) {
+            Object value = values[i];
+            if (value instanceof byte[]) {
+                bytes += 2L * ((byte[]) value).length + 4;
+            } else if (value instanceof CharSequence) {
+                bytes += 2L * ((CharSequence) value).length() + 4;
+            } else {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Binds the parameters to a statement
+     *
+     * @param statement The statement
+     * @throws SQLException If the driver refuses a parameter
+     */
+    void bind(PreparedStatement statement) throws SQLException {
+        bind(statement, 0);
+    }
+
+    /**
+     * Binds the parameters to a statement, starting after the given number of parameters
+     *
+     * @param statement The statement
+     * @param offset    The number of parameters before the first one of these parameters
+     * @throws SQLException If the driver refuses a parameter
+     */
+    void bind(PreparedStatement statement, int offset) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            int index = offset + i + 1;
+            Object value = values[i];
+            int type = types[i];
+
+            if (type == UNTYPED) {
+                statement.setObject(index, value);
+            } else if (value == null) {
+                statement.setNull(index, type);
+            } else if (value instanceof byte[]) {
+                statement.setBytes(index, (byte[]) value);
+            } else {
+                statement.setObject(index, value, type);
+            }
+        }
+    }
+}
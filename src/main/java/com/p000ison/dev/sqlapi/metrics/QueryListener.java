@@ -0,0 +1,53 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 19:05
+ */
+
+package com.p000ison.dev.sqlapi.metrics;
+
+import com.p000ison.dev.sqlapi.RegisteredTable;
+
+/**
+ * Gets notified about every executed statement and every acquired table lock. Set a listener with
+ * {@link com.p000ison.dev.sqlapi.Database#setQueryListener(QueryListener)}, {@link QueryMetrics} collects percentiles.
+ * <p/>
+ * The listener is called by the thread which executes the statement, so it has to be thread-safe and fast. Without a
+ * listener the only cost is a null check.
+ */
+public interface QueryListener {
+
+    /**
+     * Called after a table lock was acquired for a write
+     *
+     * @param table     The table
+     * @param waitNanos The time the caller waited for the lock in nanoseconds
+     */
+    void lockAcquired(RegisteredTable table, long waitNanos);
+
+    /**
+     * Called after a statement was executed. Failed statements are not reported.
+     *
+     * @param query          The sql of the statement
+     * @param table          The table of the statement or null if it does not belong to a registered table
+     * @param type           The kind of the statement
+     * @param waitNanos      The time the caller waited for a connection in nanoseconds
+     * @param executionNanos The time the statement took in nanoseconds, for a select this includes reading the rows
+     * @param rows           The rows which were returned or affected
+     * @param blobBytes      The bytes of the blobs which were written by the statement
+     */
+    void queryExecuted(String query, RegisteredTable table, QueryType type, long waitNanos, long executionNanos, long rows, long blobBytes);
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 16:20
+ */
+
+package com.p000ison.dev.sqlapi.metrics;
+
+import com.p000ison.dev.sqlapi.RegisteredTable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link QueryListener} which collects {@link QueryStatistics} for every sql statement and every table.
+ * <p/>
+ * The statistics of a statement contain the time waited for a connection. The statistics of a table contain the time
+ * waited for the table lock and the executions of all statements of the table.
+ * <p/>
+ * Statements are recorded by their shape: lists of placeholders and repeated rows of a bulk insert are collapsed, so
+ * all sizes of an IN (?, ...) or a multi row insert share one entry. Every entry has two histograms of about 15 KB,
+ * so the number of statements is limited. Further statements are recorded in the entry {@link #OTHER_STATEMENTS}.
+ */
+public class QueryMetrics implements QueryListener {
+
+    /**
+     * The key of the statements which were recorded after the limit of statements was reached
+     */
+    public static final String OTHER_STATEMENTS = "other";
+    public static final int DEFAULT_MAX_STATEMENTS = 256;
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern ROWS = Pattern.compile("(\\(\\?(?:, \\.\\.\\.)?\\))(?:\\s*,\\s*\\1)+");
+    private static final Pattern UNION_ROWS = Pattern.compile("(SELECT (\\?(?:, \\.\\.\\.)?))(?: UNION ALL SELECT \\2)+");
+
+    private final int maxStatements;
+    private final ConcurrentMap<String, QueryStatistics> statements = new ConcurrentHashMap<String, QueryStatistics>();
+    private final ConcurrentMap<RegisteredTable, QueryStatistics> tables = new ConcurrentHashMap<RegisteredTable, QueryStatistics>();
+
+    public QueryMetrics() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * Creates new metrics
+     *
+     * @param maxStatements The maximal number of statements which are recorded separately
+     */
+    public QueryMetrics(int maxStatements) {
+        if (maxStatements < 1) {
+            throw new IllegalArgumentException("At least one statement must be recorded!");
+        }
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void lockAcquired(RegisteredTable table, long waitNanos) {
+        getOrCreate(tables, table).recordWait(waitNanos);
+    }
+
+    @Override
+    public void queryExecuted(String query, RegisteredTable table, QueryType type, long waitNanos, long executionNanos, long rows, long blobBytes) {
+        getStatement(getShape(query)).recordExecution(waitNanos, executionNanos, rows, blobBytes);
+        if (table != null) {
+            getOrCreate(tables, table).recordExecution(executionNanos, rows, blobBytes);
+        }
+    }
+
+    private QueryStatistics getStatement(String shape) {
+        QueryStatistics statistics = statements.get(shape);
+        if (statistics != null) {
+            return statistics;
+        }
+        //concurrent statements may exceed the limit by the number of threads
+        return getOrCreate(statements, statements.size() < maxStatements ? shape : OTHER_STATEMENTS);
+    }
+
+    /**
+     * Gets the shape of a sql statement, under which its statistics are recorded. Lists of placeholders are replaced by
+     * "?, ..." and repeated rows of placeholders by one row followed by ", ..." or " UNION ALL ...".
+     *
+     * @param query The sql
+     * @return The shape
+     */
+    public static String getShape(String query) {
+        if (query.indexOf(',') == -1 || query.indexOf('?') == -1) {
+            return query;
+        }
+        String shape = PLACEHOLDER_LIST.matcher(query).replaceAll("?, ...");
+        shape = ROWS.matcher(shape).replaceAll("$1, ...");
+        return UNION_ROWS.matcher(shape).replaceAll("$1 UNION ALL ...");
+    }
+
+    private static <K> QueryStatistics getOrCreate(ConcurrentMap<K, QueryStatistics> map, K key) {
+        QueryStatistics statistics = map.get(key);
+        if (statistics == null) {
+            QueryStatistics created = new QueryStatistics();
+            statistics = map.putIfAbsent(key, created);
+            if (statistics == null) {
+                statistics = created;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Gets the statistics of a sql statement, which are shared by all statements of the same {@link #getShape(String)
+     * shape}
+     *
+     * @param query The sql
+     * @return The statistics or null if the statement was not executed yet or was recorded in {@link #OTHER_STATEMENTS}
+     */
+    public QueryStatistics getStatementStatistics(String query) {
+        return statements.get(getShape(query));
+    }
+
+    /**
+     * Gets the statistics of a table
+     *
+     * @param table The table
+     * @return The statistics or null if nothing was recorded for the table yet
+     */
+    public QueryStatistics getTableStatistics(RegisteredTable table) {
+        return tables.get(table);
+    }
+
+    public Map<String, QueryStatistics> getStatementStatistics() {
+        return Collections.unmodifiableMap(statements);
+    }
+
+    public Map<RegisteredTable, QueryStatistics> getTableStatistics() {
+        return Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Resets all statistics
+     */
+    public void reset() {
+        for (QueryStatistics statistics : statements.values()) {
+            statistics.reset();
+        }
+        for (QueryStatistics statistics : tables.values()) {
+            statistics.reset();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 19:05
+ */
+
+package com.p000ison.dev.sqlapi.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The collected metrics of one sql statement or one table. All times are in nanoseconds.
+ */
+public final class QueryStatistics {
+
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private final LatencyHistogram executions = new LatencyHistogram();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong blobBytes = new AtomicLong();
+
+    QueryStatistics() {
+    }
+
+    void recordExecution(long waitNanos, long executionNanos, long rows, long blobBytes) {
+        waits.record(waitNanos);
+        executions.record(executionNanos);
+        this.rows.addAndGet(rows);
+        this.blobBytes.addAndGet(blobBytes);
+    }
+
+    void recordExecution(long executionNanos, long rows, long blobBytes) {
+        executions.record(executionNanos);
+        this.rows.addAndGet(rows);
+        this.blobBytes.addAndGet(blobBytes);
+    }
+
+    void recordWait(long waitNanos) {
+        waits.record(waitNanos);
+    }
+
+    /**
+     * Gets the waiting times. For a statement this is the time waited for a connection, for a table the time waited for
+     * the table lock.
+     *
+     * @return The waiting times
+     */
+    public LatencyHistogram getWaits() {
+        return waits;
+    }
+
+    /**
+     * Gets the execution times of the statements
+     *
+     * @return The execution times
+     */
+    public LatencyHistogram getExecutions() {
+        return executions;
+    }
+
+    /**
+     * Gets the number of returned or affected rows
+     *
+     * @return The number of rows
+     */
+    public long getRows() {
+        return rows.get();
+    }
+
+    /**
+     * Gets the number of bytes of the written blobs
+     *
+     * @return The number of bytes
+     */
+    public long getBlobBytes() {
+        return blobBytes.get();
+    }
+
+    void reset() {
+        waits.reset();
+        executions.reset();
+        rows.set(0);
+        blobBytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStatistics{" +
+                "waits=" + waits +
+                ", executions=" + executions +
+                ", rows=" + getRows() +
+                ", blobBytes=" + getBlobBytes() +
+                '}';
+    }
+}
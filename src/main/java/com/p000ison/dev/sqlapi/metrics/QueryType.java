@@ -0,0 +1,42 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 19:05
+ */
+
+package com.p000ison.dev.sqlapi.metrics;
+
+/**
+ * The kind of a executed statement
+ */
+public enum QueryType {
+    /**
+     * A query which returns rows
+     */
+    SELECT,
+    /**
+     * A single update, insert or delete
+     */
+    UPDATE,
+    /**
+     * A single insert which returns the generated key
+     */
+    INSERT,
+    /**
+     * A batch of updates, inserts or deletes
+     */
+    BATCH
+}
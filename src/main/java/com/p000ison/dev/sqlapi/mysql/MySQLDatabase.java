@@ -14,13 +14,15 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 27.12.12 17:01
+ * Last modified: 19.10.26 10:25
  */
 
 package com.p000ison.dev.sqlapi.mysql;
 
 import com.mysql.jdbc.jdbc2.optional.MysqlDataSource;
+import com.p000ison.dev.sqlapi.Column;
 import com.p000ison.dev.sqlapi.DatabaseConfiguration;
+import com.p000ison.dev.sqlapi.RegisteredTable;
 import com.p000ison.dev.sqlapi.TableBuilder;
 import com.p000ison.dev.sqlapi.TableObject;
 import com.p000ison.dev.sqlapi.exception.DatabaseConnectionException;
@@ -34,8 +36,28 @@ import java.sql.SQLException;
  */
 public final class MySQLDatabase extends JBDCDatabase {
 
+    /**
+     * The default of max_allowed_packet before MySQL 5.6.6
+     */
+    private static final long DEFAULT_MAX_ALLOWED_PACKET = 1024 * 1024;
+    /**
+     * The number of rows a cursor fetches at once if neither the query nor the configuration sets a fetch size
+     */
+    private static final int DEFAULT_CURSOR_FETCH_SIZE = 256;
+    private final long maxAllowedPacket;
+
     public MySQLDatabase(DatabaseConfiguration configuration) throws DatabaseConnectionException {
         super(configuration);
+        maxAllowedPacket = queryMaxAllowedPacket();
+    }
+
+    private long queryMaxAllowedPacket() {
+        try {
+            String packet = queryString("SELECT @@max_allowed_packet;");
+            return packet == null ? DEFAULT_MAX_ALLOWED_PACKET : Long.parseLong(packet);
+        } catch (RuntimeException e) {
+            return DEFAULT_MAX_ALLOWED_PACKET;
+        }
     }
 
     @Override
@@ -51,6 +73,13 @@ public final class MySQLDatabase extends JBDCDatabase {
 
         dataSource.setAutoClosePStmtStreams(false);
 
+        //statements with a fetch size above 0 read the rows in chunks from a server side cursor instead of loading the
+        //whole result, the others keep the default behaviour
+        dataSource.setUseCursorFetch(true);
+        if (mysqlConfiguration.getFetchSize() > 0) {
+            dataSource.setDefaultFetchSize(mysqlConfiguration.getFetchSize());
+        }
+
         try {
             return dataSource.getConnection();
         } catch (SQLException e) {
@@ -63,6 +92,55 @@ public final class MySQLDatabase extends JBDCDatabase {
         return new MySQLTableBuilder(table, this);
     }
 
+    @Override
+    protected String createUpsertQuery(RegisteredTable table) {
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(table.getName()).append(" (");
+        StringBuilder update = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        int columns = 0;
+
+        for (Column column : table.getRegisteredColumns()) {
+            if (column.isID()) {
+                continue;
+            }
+            query.append(column.getName()).append(',');
+            update.append(column.getName()).append("=VALUES(").append(column.getName()).append("),");
+            columns++;
+        }
+
+        query.append(table.getIDColumn().getName()).append(") VALUES (");
+        for (int i = 0; i < columns; i++) {
+            query.append("?,");
+        }
+        query.append("?)");
+
+        if (columns == 0) {
+            //a table of only the id has nothing to update, but a existing id must not fail as duplicate key
+            String id = table.getIDColumn().getName();
+            update.append(id).append('=').append(id).append(',');
+        }
+
+        update.deleteCharAt(update.length() - 1);
+        return query.append(update).append(';').toString();
+    }
+
+    @Override
+    protected int getCursorFetchSize() {
+        //without a fetch size Connector/J reads the whole result into memory
+        return DEFAULT_CURSOR_FETCH_SIZE;
+    }
+
+    @Override
+    protected int getMaxParameters() {
+        //the limit of server side prepared statements
+        return 65535;
+    }
+
+    @Override
+    protected long getMaxStatementBytes() {
+        //leave some space for the header of the packet
+        return maxAllowedPacket - 1024;
+    }
+
     @Override
     public MySQLConfiguration getConfiguration() {
         return (MySQLConfiguration) super.getConfiguration();
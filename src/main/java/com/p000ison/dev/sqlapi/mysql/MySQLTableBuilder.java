@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 25.12.12 21:24
+ * Last modified: 19.10.26 10:40
  */
 
 package com.p000ison.dev.sqlapi.mysql;
@@ -22,6 +22,7 @@ package com.p000ison.dev.sqlapi.mysql;
 import com.p000ison.dev.sqlapi.*;
 
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -77,9 +78,10 @@ public final class MySQLTableBuilder extends TableBuilder {
                 } else {
                     query.append("TEXT");
                 }
-            } else if (RegisteredTable.isSerializable(type)) {
-                query.append("BLOB");
-                allowModifyLength = false;
+            } else {
+                String dataType = getDataType(column);
+                query.append(dataType);
+                allowModifyLength = !dataType.equals("BLOB") && !dataType.equals("TEXT");
             }
 
 
@@ -122,6 +124,16 @@ public final class MySQLTableBuilder extends TableBuilder {
         return query;
     }
 
+    @Override
+    protected String getDataType(Column column) {
+        int sqlType = column.getCodec().getSQLType();
+        if ((sqlType == Types.DECIMAL || sqlType == Types.NUMERIC) && column.getLength().length == 0) {
+            //the default DECIMAL(10,0) would cut off digits
+            return sqlType == Types.DECIMAL ? "DECIMAL(65,30)" : "DECIMAL(65,0)";
+        }
+        return super.getDataType(column);
+    }
+
     @Override
     protected boolean isSupportAddColumns() {
         return true;
@@ -0,0 +1,55 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 23:30
+ */
+
+package com.p000ison.dev.sqlapi.query;
+
+import com.p000ison.dev.sqlapi.TableObject;
+
+import java.util.List;
+
+/**
+ * A page of results of {@link SelectQuery#page(int)}
+ */
+public final class Page<T extends TableObject> {
+
+    private final List<T> results;
+    private final PageToken nextToken;
+
+    public Page(List<T> results, PageToken nextToken) {
+        this.results = results;
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the token which is passed to {@link SelectQuery#seekAfter(PageToken)} to get the next page
+     *
+     * @return The token or null if this is the last page
+     */
+    public PageToken getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 23:30
+ */
+
+package com.p000ison.dev.sqlapi.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Marks the position after the last entry of a {@link Page}. It holds the values of the order columns and the id of
+ * that entry, so the next page starts right after it without skipping the previous rows.
+ */
+public final class PageToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> columns;
+    private final Object[] values;
+
+    /**
+     * Creates a new PageToken
+     *
+     * @param columns The names of the order columns, the last one is the id
+     * @param values  The values of the last entry in the order of the columns
+     */
+    public PageToken(List<String> columns, Object[] values) {
+        if (columns.size() != values.length) {
+            throw new IllegalArgumentException("There must be a value for every column!");
+        }
+        this.columns = Collections.unmodifiableList(new ArrayList<String>(columns));
+        this.values = values.clone();
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PageToken token = (PageToken) o;
+
+        return columns.equals(token.columns) && Arrays.equals(values, token.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * columns.hashCode() + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "PageToken{" + columns + "=" + Arrays.toString(values) + '}';
+    }
+}
@@ -14,13 +14,15 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 23.12.12 17:22
+ * Last modified: 19.10.26 17:00
  */
 
 package com.p000ison.dev.sqlapi.query;
 
 import com.p000ison.dev.sqlapi.Column;
 
+import java.util.List;
+
 /**
  * This is used to prepare queries/statements. If you close this and call a method of this class the prepared statement gets reset.({@link #reset()})
  */
@@ -39,7 +41,7 @@ public interface PreparedQuery {
     void clearParameters();
 
     /**
-     * Updates the database and performs the query. This method should be synchronized with the {@link com.p000ison.dev.sqlapi.Database}.
+     * Updates the database and performs the query. A prepared query should only be used by one thread at a time.
      *
      * @return Whether the update was successfully
      */
@@ -67,8 +69,50 @@ public interface PreparedQuery {
 
     void clearBatch();
 
+    /**
+     * Gets the number of entries which were added with {@link #addBatch()} and not executed yet
+     *
+     * @return The size of the batch
+     */
+    int getBatchSize();
+
     void executeBatches();
 
+    /**
+     * Executes the statement like {@link #update()} and returns the key the database generated, for example the id of
+     * a inserted entry. The query must be prepared to return generated keys.
+     *
+     * @return The generated key or -1 if no key was generated
+     */
+    long executeInsert();
+
+    /**
+     * Executes the batches like {@link #executeBatches()} and returns the generated keys in the order the batches were
+     * added. The query must be prepared to return generated keys.
+     *
+     * @return The generated keys
+     */
+    long[] executeInsertBatches();
+
+    /**
+     * Executes the query and returns the first column of the first row as number, for example the result of a
+     * COUNT(*).
+     *
+     * @return The value or -1 if the query returned no row
+     */
+    long executeScalar();
+
+    /**
+     * Executes the query and reads every row into a {@link Tuple}. A value is read as Long or Double if its type is
+     * given, otherwise it is decoded by the codec of its column.
+     *
+     * @param names   The names of the values, shared by all tuples
+     * @param columns The columns of the values
+     * @param types   Long.class, Double.class or null for every value
+     * @return The tuples
+     */
+    List<Tuple> executeTuples(List<String> names, List<Column> columns, List<Class<?>> types);
+
     /**
      * @return Whether we want to reset it automatically
      */
@@ -14,11 +14,12 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 23.12.12 15:37
+ * Last modified: 19.10.26 10:25
  */
 
 package com.p000ison.dev.sqlapi.query;
 
+import com.p000ison.dev.sqlapi.Column;
 import com.p000ison.dev.sqlapi.TableObject;
 
 import java.util.Collection;
@@ -31,16 +32,43 @@ import java.util.List;
 public interface PreparedSelectQuery<T extends TableObject> extends PreparedQuery {
 
     /**
-     * Queries the database and returns a collection of TableObject. This method should be synchronized with the {@link com.p000ison.dev.sqlapi.Database}.
+     * Queries the database and returns a collection of TableObject. A prepared query should only be used by one thread at a time.
      *
      * @return Whether the update was successfully
      */
     <C extends Collection<T>> C getResults(C collection);
 
     /**
-     * Queries the database and returns a list of TableObject. This method should be synchronized with the {@link com.p000ison.dev.sqlapi.Database}.
+     * Queries the database and returns a list of TableObject. A prepared query should only be used by one thread at a time.
      *
      * @return Whether the update was successfully
      */
     List<T> getResults();
+
+    /**
+     * Queries the database and returns the values of the selected columns without creating objects. The tuples contain
+     * the columns passed to {@link SelectQuery#columns(Column...)} in the same order, or all columns.
+     *
+     * @return The tuples
+     */
+    List<Tuple> getTuples();
+
+    /**
+     * Queries the database and returns a cursor which reads the rows one after another, so the memory usage does not
+     * depend on the amount of results. The cursor must be closed if it is not read to the end.
+     * <p/>
+     * The rows are fetched in chunks of the fetch size. Without a fetch size the database engine picks one which
+     * streams, for example MySQL reads 256 rows at a time from a server side cursor.
+     *
+     * @return The cursor
+     */
+    QueryCursor<T> getCursor();
+
+    /**
+     * Sets how many rows the driver fetches at once while reading the results. 0 uses the default of the driver, which
+     * loads the whole result at once on MySQL. Cursors stream in any case, see {@link #getCursor()}.
+     *
+     * @param fetchSize The amount of rows
+     */
+    void setFetchSize(int fetchSize);
 }
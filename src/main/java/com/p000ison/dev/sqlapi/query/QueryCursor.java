@@ -0,0 +1,38 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 16:02
+ */
+
+package com.p000ison.dev.sqlapi.query;
+
+import com.p000ison.dev.sqlapi.TableObject;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates over the results of a query without loading all of them into memory. Every call of {@link #next()} reads
+ * the next row from the database. The cursor holds a connection until it is closed, which happens automatically when
+ * the last row was read. Close it yourself if you stop reading before.
+ */
+public interface QueryCursor<T extends TableObject> extends Iterator<T>, Closeable {
+
+    /**
+     * Closes the result of the query and releases the connection. Calling this multiple times has no effect.
+     */
+    void close();
+}
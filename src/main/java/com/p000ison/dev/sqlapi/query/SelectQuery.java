@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 24.12.12 14:25
+ * Last modified: 19.10.26 15:20
  */
 
 package com.p000ison.dev.sqlapi.query;
@@ -23,6 +23,8 @@ import com.p000ison.dev.sqlapi.Column;
 import com.p000ison.dev.sqlapi.RegisteredTable;
 import com.p000ison.dev.sqlapi.TableObject;
 
+import java.util.List;
+
 /**
  * This builds a query and prepares it finally.
  */
@@ -35,6 +37,27 @@ public interface SelectQuery<T extends TableObject> {
 
     WhereQuery<T> where();
 
+    /**
+     * Selects only some columns. The returned objects get only the values of these columns and the id, the other
+     * columns keep the values of a new object. Call {@link #from(Class)} before.
+     * <p/>
+     * If the table uses dirty tracking, saving such an object writes only the columns which were changed. Otherwise the
+     * object can not be saved or batched, since that would overwrite the other columns.
+     *
+     * @param columns The columns to select
+     * @return This query
+     */
+    SelectQuery<T> columns(Column... columns);
+
+    /**
+     * Selects only some columns by their names. Call {@link #from(Class)} before.
+     *
+     * @param columns The names of the columns to select
+     * @return This query
+     * @see #columns(Column...)
+     */
+    SelectQuery<T> columns(String... columns);
+
     SelectQuery<T> orderBy(Column order);
 
     SelectQuery<T> orderByDescending(Column order);
@@ -45,8 +68,101 @@ public interface SelectQuery<T extends TableObject> {
 
     SelectQuery<T> limit(int max);
 
+    /**
+     * Limits the results to a range. Skipped rows are still read by the database, so use {@link #page(int)} for deep
+     * pages of large tables.
+     *
+     * @param from The number of rows to skip
+     * @param to   The maximal number of rows to return
+     * @return This query
+     */
     SelectQuery<T> limit(int from, int to);
 
+    /**
+     * Continues after the last entry of a page. Only the entries which follow the token in the order of this query are
+     * selected, so the database seeks to them with the index instead of reading the previous pages.
+     *
+     * @param token The token of the previous page or null for the first page
+     * @return This query
+     * @see #page(int)
+     */
+    SelectQuery<T> seekAfter(PageToken token);
+
+    /**
+     * Queries one page of results with keyset pagination. The results are ordered by the order columns of this query
+     * and the id, the token of the returned page continues after its last entry. The order columns should not be null,
+     * entries with null values may be skipped.
+     *
+     * @param size The maximal number of entries of the page
+     * @return The page
+     */
+    Page<T> page(int size);
+
+    /**
+     * Counts the entries which match the conditions of this query without reading them. The order, limits, selected
+     * columns and page token are ignored.
+     *
+     * @return The number of entries
+     */
+    long count();
+
+    /**
+     * Checks whether any entry matches the conditions of this query without reading it. The order, limits, selected
+     * columns and page token are ignored.
+     *
+     * @return Whether there is a matching entry
+     */
+    boolean exists();
+
+    /**
+     * Adds a aggregate to the values of {@link #getAggregates()}
+     *
+     * @param function The function
+     * @param column   The column or null to count all entries
+     * @return This query
+     */
+    SelectQuery<T> aggregate(AggregateFunction function, Column column);
+
+    /**
+     * Adds a aggregate to the values of {@link #getAggregates()}
+     *
+     * @param function The function
+     * @param column   The name of the column or null to count all entries
+     * @return This query
+     */
+    SelectQuery<T> aggregate(AggregateFunction function, String column);
+
+    /**
+     * Groups the entries by some columns, {@link #getAggregates()} returns one tuple per group
+     *
+     * @param columns The columns
+     * @return This query
+     */
+    SelectQuery<T> groupBy(Column... columns);
+
+    SelectQuery<T> groupBy(String... columns);
+
+    /**
+     * Only returns the groups whose aggregate matches a condition. Multiple conditions must all match.
+     *
+     * @param function The function
+     * @param column   The name of the column or null to count all entries
+     * @param operator The operator
+     * @param expected The value to compare with
+     * @return This query
+     */
+    SelectQuery<T> having(AggregateFunction function, String column, CompareOperator operator, Object expected);
+
+    /**
+     * Lets the database compute the aggregates. Every tuple holds the values of the group columns followed by the
+     * aggregates, named like SUM(money) or COUNT(*). Counts are read as Long and averages as Double. Sums, minima and
+     * maxima of numbers are Long or Double depending on the column, other minima and maxima are of the column type.
+     * The selected columns and page token are ignored.
+     *
+     * @return The tuples
+     */
+    List<Tuple> getAggregates();
+
     SelectQuery<T> reset();
 
     PreparedSelectQuery<T> prepare();
@@ -0,0 +1,128 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 22:50
+ */
+
+package com.p000ison.dev.sqlapi.query;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A row of a projection. It holds the decoded values of the selected columns without creating a
+ * {@link com.p000ison.dev.sqlapi.TableObject}.
+ */
+public final class Tuple {
+
+    private final List<String> columns;
+    private final Object[] values;
+
+    /**
+     * Creates a new Tuple
+     *
+     * @param columns The names of the columns, shared by all tuples of a query
+     * @param values  The values in the order of the columns
+     */
+    public Tuple(List<String> columns, Object[] values) {
+        if (columns.size() != values.length) {
+            throw new IllegalArgumentException("There must be a value for every column!");
+        }
+        this.columns = columns;
+        this.values = values;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Gets the value of a column
+     *
+     * @param column The name of the column
+     * @return The value
+     * @throws IllegalArgumentException If the column was not selected
+     */
+    public Object get(String column) {
+        int index = columns.indexOf(column);
+        if (index == -1) {
+            throw new IllegalArgumentException(String.format("The column %s was not selected!", column));
+        }
+        return values[index];
+    }
+
+    public String getString(int index) {
+        Object value = values[index];
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Gets a numeric value as long
+     *
+     * @param index The index of the column
+     * @return The value or 0 if it is null
+     */
+    public long getLong(int index) {
+        Object value = values[index];
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    /**
+     * Gets a numeric value as double
+     *
+     * @param index The index of the column
+     * @return The value or 0 if it is null
+     */
+    public double getDouble(int index) {
+        Object value = values[index];
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Tuple tuple = (Tuple) o;
+
+        return columns.equals(tuple.columns) && Arrays.equals(values, tuple.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * columns.hashCode() + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Tuple{");
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(columns.get(i)).append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:19
+ * Last modified: 19.10.26 12:20
  */
 
 package com.p000ison.dev.sqlapi.sqlite;
@@ -28,15 +28,48 @@ import java.io.File;
  */
 public final class SQLiteConfiguration extends DatabaseConfiguration {
 
+    /**
+     * Creates a configuration for a database file. The file is switched to the write-ahead log, so queries of the pool
+     * can run while a update gets committed. SQLite versions before 3.7.0 can not open it anymore.
+     *
+     * @param location The file of the database
+     */
     public SQLiteConfiguration(File location) {
         super("org.sqlite.JDBC");
         setLocation(location);
     }
 
+    /**
+     * Creates a configuration for a database which is only kept in memory. Every connection to a in-memory database
+     * opens a new database, so all queries and updates share one connection.
+     */
+    public SQLiteConfiguration() {
+        super("org.sqlite.JDBC");
+    }
+
+    /**
+     * Gets the file of the database
+     *
+     * @return The file or null if the database is in memory
+     */
     public File getLocation() {
         return (File) super.getProperty("location");
     }
 
+    public boolean isInMemory() {
+        return getLocation() == null;
+    }
+
+    @Override
+    public int getMinPoolSize() {
+        return isInMemory() ? 1 : super.getMinPoolSize();
+    }
+
+    @Override
+    public int getMaxPoolSize() {
+        return isInMemory() ? 1 : super.getMaxPoolSize();
+    }
+
 
     public SQLiteConfiguration setLocation(File location) {
         if (location.isDirectory()) {
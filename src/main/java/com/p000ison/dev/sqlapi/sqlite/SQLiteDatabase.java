@@ -14,12 +14,14 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:24
+ * Last modified: 19.10.26 14:20
  */
 
 package com.p000ison.dev.sqlapi.sqlite;
 
+import com.p000ison.dev.sqlapi.Column;
 import com.p000ison.dev.sqlapi.DatabaseConfiguration;
+import com.p000ison.dev.sqlapi.RegisteredTable;
 import com.p000ison.dev.sqlapi.TableBuilder;
 import com.p000ison.dev.sqlapi.TableObject;
 import com.p000ison.dev.sqlapi.exception.DatabaseConnectionException;
@@ -28,14 +30,33 @@ import org.sqlite.SQLiteDataSource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Represents a SQLiteDatabase
  */
 public final class SQLiteDatabase extends JBDCDatabase {
 
+    /**
+     * The version of the sqlite library of the driver, for example 3007002 for 3.7.2
+     */
+    private final int version;
+
     public SQLiteDatabase(DatabaseConfiguration configuration) throws DatabaseConnectionException {
         super(configuration);
+        version = parseVersion(queryString("SELECT sqlite_version();"));
+    }
+
+    private static int parseVersion(String version) {
+        int parsed = 0;
+        String[] parts = version.split("\\.");
+        for (int i = 0; i < 3; i++) {
+            parsed *= 1000;
+            if (i < parts.length) {
+                parsed += Integer.parseInt(parts[i].replaceAll("\\D.*", ""));
+            }
+        }
+        return parsed;
     }
 
     @Override
@@ -44,20 +65,122 @@ public final class SQLiteDatabase extends JBDCDatabase {
 
         SQLiteConfiguration SQLiteConfiguration = (SQLiteConfiguration) configuration;
 
-        dataSource.setUrl("jdbc:sqlite:" + SQLiteConfiguration.getLocation().getAbsolutePath());
+        if (SQLiteConfiguration.isInMemory()) {
+            dataSource.setUrl("jdbc:sqlite::memory:");
+        } else {
+            dataSource.setUrl("jdbc:sqlite:" + SQLiteConfiguration.getLocation().getAbsolutePath());
+        }
 
         try {
-            return dataSource.getConnection();
+            Connection connection = dataSource.getConnection();
+            if (!SQLiteConfiguration.isInMemory()) {
+                enableWriteAheadLog(connection);
+            }
+            return connection;
         } catch (SQLException e) {
             throw new DatabaseConnectionException(configuration, e);
         }
     }
 
+    /**
+     * Switches a database file to the write-ahead log. Otherwise the readers of the pool wait for every commit of the
+     * writer and time out if the writer commits continuously. The driver does not know this mode, so the pragma is
+     * executed directly.
+     *
+     * @param connection The connection
+     * @throws SQLException If the pragma fails
+     */
+    private static void enableWriteAheadLog(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.executeQuery("PRAGMA journal_mode=WAL;").close();
+        } finally {
+            statement.close();
+        }
+    }
+
     @Override
     protected TableBuilder createTableBuilder(Class<? extends TableObject> table) {
         return new SQLiteTableBuilder(table, this);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * INSERT OR REPLACE can not be used, since it deletes the existing entry. This resets the columns which are not
+     * registered, fires delete triggers and cascades to foreign keys. An upsert clause exists since 3.24, older
+     * versions update or insert with separate statements.
+     */
+    @Override
+    protected String createUpsertQuery(RegisteredTable table) {
+        if (version < 3024000) {
+            return null;
+        }
+
+        String id = table.getIDColumn().getName();
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(table.getName()).append(" (");
+        StringBuilder update = new StringBuilder(" ON CONFLICT(").append(id).append(") DO UPDATE SET ");
+        int columns = 0;
+
+        for (Column column : table.getRegisteredColumns()) {
+            if (column.isID()) {
+                continue;
+            }
+            query.append(column.getName()).append(',');
+            update.append(column.getName()).append("=excluded.").append(column.getName()).append(',');
+            columns++;
+        }
+
+        query.append(id).append(") VALUES (");
+        for (int i = 0; i < columns; i++) {
+            query.append("?,");
+        }
+        query.append("?)");
+
+        if (columns == 0) {
+            //a table of only the id has nothing to update
+            return query.append(" ON CONFLICT(").append(id).append(") DO NOTHING;").toString();
+        }
+
+        update.deleteCharAt(update.length() - 1);
+        return query.append(update).append(';').toString();
+    }
+
+    @Override
+    protected String createBulkInsertQuery(RegisteredTable table, int rows) {
+        //multi row VALUES are supported since 3.7.11
+        if (version >= 3007011) {
+            return super.createBulkInsertQuery(table, rows);
+        }
+
+        StringBuilder query = new StringBuilder("INSERT INTO ").append(table.getName()).append(" (");
+        int columns = appendInsertColumns(query, table);
+
+        query.append(')');
+        for (int row = 0; row < rows; row++) {
+            query.append(row == 0 ? " SELECT " : " UNION ALL SELECT ");
+            for (int i = 0; i < columns; i++) {
+                query.append("?,");
+            }
+            query.deleteCharAt(query.length() - 1);
+        }
+        query.append(';');
+
+        return query.toString();
+    }
+
+    @Override
+    protected int getMaxParameters() {
+        //SQLITE_MAX_VARIABLE_NUMBER was raised in 3.32.0
+        return version >= 3032000 ? 32766 : 999;
+    }
+
+    @Override
+    protected int getMaxBulkInsertRows() {
+        //before 3.8.8 the rows are limited by SQLITE_MAX_COMPOUND_SELECT
+        return version >= 3008008 ? Integer.MAX_VALUE : 500;
+    }
+
     @Override
     public SQLiteConfiguration getConfiguration() {
         return (SQLiteConfiguration) super.getConfiguration();
@@ -68,6 +191,23 @@ public final class SQLiteDatabase extends JBDCDatabase {
         return true;
     }
 
+    @Override
+    protected boolean isSingleWriter() {
+        //a in-memory database has only one connection anyway
+        return !getConfiguration().isInMemory();
+    }
+
+    @Override
+    protected boolean isBatchGeneratedKeysSupported() {
+        return false;
+    }
+
+    @Override
+    protected boolean isBatchStatementReusable() {
+        //the driver keeps the grown parameter array of the batch and refuses to execute the statement on its own
+        return false;
+    }
+
     @Override
     public String getEngineName() {
         return "SQLite";
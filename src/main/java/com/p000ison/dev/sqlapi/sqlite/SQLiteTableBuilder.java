@@ -14,7 +14,7 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 16:45
+ * Last modified: 19.10.26 10:40
  */
 
 package com.p000ison.dev.sqlapi.sqlite;
@@ -22,6 +22,7 @@ package com.p000ison.dev.sqlapi.sqlite;
 import com.p000ison.dev.sqlapi.*;
 
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.Date;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -76,7 +77,7 @@ public final class SQLiteTableBuilder extends TableBuilder {
         return query;
     }
 
-    private static void appendDataType(Column column, StringBuilder query, Class type) {
+    private void appendDataType(Column column, StringBuilder query, Class type) {
         if (column.isID()) {
             query.append("INTEGER");
         } else {
@@ -109,9 +110,10 @@ public final class SQLiteTableBuilder extends TableBuilder {
                 } else {
                     query.append("TEXT");
                 }
-            } else if (RegisteredTable.isSerializable(type)) {
-                query.append("BLOB");
-                allowModifyLength = false;
+            } else {
+                String dataType = getDataType(column);
+                query.append(dataType);
+                allowModifyLength = !dataType.isEmpty() && !dataType.equals("BLOB") && !dataType.equals("TEXT");
             }
 
 
@@ -127,7 +129,7 @@ public final class SQLiteTableBuilder extends TableBuilder {
         }
     }
 
-    private static StringBuilder buildModifyColumn(Column column) {
+    private StringBuilder buildModifyColumn(Column column) {
         Class<?> type = column.getType();
         StringBuilder query = new StringBuilder();
         query.append(column.getName()).append(' ');
@@ -147,6 +149,16 @@ public final class SQLiteTableBuilder extends TableBuilder {
         }
     }
 
+    @Override
+    protected String getDataType(Column column) {
+        int sqlType = column.getCodec().getSQLType();
+        if (sqlType == Types.DECIMAL || sqlType == Types.NUMERIC) {
+            //like before there is no declared type, a numeric affinity would turn the exact strings into doubles
+            return "";
+        }
+        return super.getDataType(column);
+    }
+
     @Override
     protected boolean isSupportAddColumns() {
         return true;
@@ -0,0 +1,446 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 16:40
+ */
+
+package com.p000ison.dev.sqlapi.util;
+
+import com.p000ison.dev.sqlapi.Column;
+import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.RegisteredTable;
+import com.p000ison.dev.sqlapi.TableObject;
+import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the operations of a {@link Database} on a bounded executor, so the calling thread never waits for the database.
+ * Every operation returns a {@link Future} and optionally notifies a {@link DatabaseCallback}.
+ * <p/>
+ * Operations on the same entity (the same table and id, or the same object if it has no id yet) run in the order they
+ * were submitted. Operations on different entities run in parallel on the pooled connections.
+ * <p/>
+ * The number of waiting operations is limited. If it is reached, submitting a operation throws a
+ * {@link RejectedExecutionException} instead of blocking the caller. Accepted operations are always executed, also
+ * after a {@link #shutdown()}.
+ * <p/>
+ * The database waits only on {@link java.util.concurrent.locks.Lock}s and not on monitors, so the operations can also
+ * run on a executor which starts a virtual thread per task. Then thousands of waiting operations share the connections
+ * of the pool without a platform thread for each of them.
+ */
+public class AsyncDatabase {
+
+    private final Database database;
+    private final ExecutorService executor;
+    private final Semaphore waiting;
+    private final Lock lanesLock = new ReentrantLock();
+    private final Map<Object, Lane> lanes = new HashMap<Object, Lane>();
+
+    /**
+     * Creates a AsyncDatabase
+     *
+     * @param database  The database
+     * @param threads   The amount of threads which run the operations
+     * @param queueSize The maximal amount of waiting operations
+     */
+    public AsyncDatabase(Database database, int threads, int queueSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread!");
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The size of the queue must be at least 1!");
+        }
+
+        this.database = database;
+        //every queued lane or operation has a waiting operation, so the queue of the executor never overflows
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new DatabaseThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.waiting = new Semaphore(queueSize);
+    }
+
+    /**
+     * Creates a AsyncDatabase which runs the operations on the given executor. The executor is shut down together with
+     * this AsyncDatabase.
+     *
+     * @param database   The database
+     * @param executor   The executor, for example <code>Executors.newVirtualThreadPerTaskExecutor()</code>
+     * @param maxWaiting The maximal amount of waiting operations
+     */
+    public AsyncDatabase(Database database, ExecutorService executor, int maxWaiting) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor must not be null!");
+        }
+        if (maxWaiting < 1) {
+            throw new IllegalArgumentException("At least one operation must be able to wait!");
+        }
+        this.database = database;
+        this.executor = executor;
+        this.waiting = new Semaphore(maxWaiting);
+    }
+
+    public Future<Void> save(TableObject object) {
+        return save(object, null);
+    }
+
+    public Future<Void> save(final TableObject object, DatabaseCallback<Void> callback) {
+        return submit(getKey(object), new Callable<Void>() {
+            @Override
+            public Void call() {
+                database.save(object);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> insert(TableObject object) {
+        return insert(object, null);
+    }
+
+    public Future<Void> insert(final TableObject object, DatabaseCallback<Void> callback) {
+        return submit(getKey(object), new Callable<Void>() {
+            @Override
+            public Void call() {
+                database.insert(object);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> update(TableObject object) {
+        return update(object, null);
+    }
+
+    public Future<Void> update(final TableObject object, DatabaseCallback<Void> callback) {
+        return submit(getKey(object), new Callable<Void>() {
+            @Override
+            public Void call() {
+                database.update(object);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> delete(TableObject object) {
+        return delete(object, null);
+    }
+
+    public Future<Void> delete(final TableObject object, DatabaseCallback<Void> callback) {
+        return submit(getKey(object), new Callable<Void>() {
+            @Override
+            public Void call() {
+                database.delete(object);
+                return null;
+            }
+        }, callback);
+    }
+
+    public <T extends TableObject> Future<T> find(Class<T> table, long id) {
+        return find(table, id, null);
+    }
+
+    /**
+     * Finds a object by its id, after all operations on this entity which were submitted before
+     *
+     * @param table    The class of the table
+     * @param id       The id
+     * @param callback The callback or null
+     * @return The future of the object, which is null if there is no entry with this id
+     */
+    public <T extends TableObject> Future<T> find(final Class<T> table, final long id, DatabaseCallback<T> callback) {
+        return submit(new EntityKey(database.getRegisteredTable(table), id), new Callable<T>() {
+            @Override
+            public T call() {
+                return database.find(table, id);
+            }
+        }, callback);
+    }
+
+    public <T extends TableObject> Future<List<T>> getResults(PreparedSelectQuery<T> query) {
+        return getResults(query, null);
+    }
+
+    /**
+     * Executes a query. The query must not be used by other threads until the future is done.
+     *
+     * @param query    The query
+     * @param callback The callback or null
+     * @return The future of the results
+     */
+    public <T extends TableObject> Future<List<T>> getResults(final PreparedSelectQuery<T> query, DatabaseCallback<List<T>> callback) {
+        return submit(null, new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+                return query.getResults();
+            }
+        }, callback);
+    }
+
+    /**
+     * Runs any operation on the database
+     *
+     * @param key       Operations with the same key run in the order they were submitted, null if the order does not matter
+     * @param operation The operation
+     * @param callback  The callback or null
+     * @return The future of the result
+     * @throws RejectedExecutionException If too many operations are waiting or the AsyncDatabase is shut down
+     */
+    public <V> Future<V> submit(Object key, Callable<V> operation, DatabaseCallback<V> callback) {
+        if (!waiting.tryAcquire()) {
+            throw new RejectedExecutionException("Too many operations are waiting!");
+        }
+        CallbackTask<V> task = new CallbackTask<V>(operation, callback);
+
+        if (key == null) {
+            execute(task);
+            return task;
+        }
+
+        lanesLock.lock();
+        try {
+            Lane lane = lanes.get(key);
+            if (lane != null) {
+                lane.tasks.add(task);
+                return task;
+            }
+
+            lane = new Lane(key);
+            lane.tasks.add(task);
+            lanes.put(key, lane);
+            try {
+                execute(lane);
+            } catch (RejectedExecutionException e) {
+                //no other operation was added to the lane while the lock is held
+                lanes.remove(key);
+                throw e;
+            }
+        } finally {
+            lanesLock.unlock();
+        }
+        return task;
+    }
+
+    private void execute(Runnable runnable) {
+        try {
+            executor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            waiting.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the key of the lane of a object
+     */
+    private Object getKey(TableObject object) {
+        RegisteredTable table = database.getRegisteredTable(object.getClass());
+        Column idColumn = table.getIDColumn();
+        long id = ((Number) idColumn.getValue(object)).longValue();
+        return id > 0 ? new EntityKey(table, id) : new IdentityKey(object);
+    }
+
+    /**
+     * Stops accepting operations, the submitted operations are still executed
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits until all submitted operations are done after a shutdown
+     *
+     * @param timeout The maximal time to wait
+     * @param unit    The unit of the timeout
+     * @return Whether all operations are done
+     * @throws InterruptedException If the current thread gets interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    /**
+     * Runs the operations of one entity one after another. A lane runs one operation per execution, so a busy entity
+     * does not block the other entities.
+     */
+    private final class Lane implements Runnable {
+        private final Object key;
+        private final Queue<CallbackTask<?>> tasks = new ArrayDeque<CallbackTask<?>>();
+
+        private Lane(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            if (!runNext()) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                //the executor is shut down, the accepted operations of this entity still run
+                while (runNext()) {
+                }
+            }
+        }
+
+        /**
+         * Runs the next operation
+         *
+         * @return Whether more operations are waiting
+         */
+        private boolean runNext() {
+            CallbackTask<?> task;
+            lanesLock.lock();
+            try {
+                task = tasks.peek();
+            } finally {
+                lanesLock.unlock();
+            }
+
+            if (task != null) {
+                task.run();
+            }
+
+            boolean more;
+            lanesLock.lock();
+            try {
+                tasks.poll();
+                more = !tasks.isEmpty();
+                if (!more) {
+                    lanes.remove(key);
+                }
+            } finally {
+                lanesLock.unlock();
+            }
+            return more;
+        }
+    }
+
+    private final class CallbackTask<V> extends FutureTask<V> {
+        private final DatabaseCallback<V> callback;
+
+        private CallbackTask(Callable<V> callable, DatabaseCallback<V> callback) {
+            super(callable);
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            waiting.release();
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (callback == null || isCancelled()) {
+                return;
+            }
+
+            V result;
+            try {
+                result = get();
+            } catch (ExecutionException e) {
+                callback.onFailure(e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onFailure(e);
+                return;
+            }
+            callback.onSuccess(result);
+        }
+    }
+
+    private static final class EntityKey {
+        private final RegisteredTable table;
+        private final long id;
+
+        private EntityKey(RegisteredTable table, long id) {
+            this.table = table;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            EntityKey that = (EntityKey) o;
+
+            return id == that.id && table.equals(that.table);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * table.hashCode() + (int) (id ^ (id >>> 32));
+        }
+    }
+
+    private static final class IdentityKey {
+        private final Object object;
+
+        private IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
+
+    private static final class DatabaseThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+        private final int pool = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger thread = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread created = new Thread(runnable, "AsyncDatabase-" + pool + "-" + thread.incrementAndGet());
+            created.setDaemon(true);
+            return created;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 18.10.26 20:20
+ */
+
+package com.p000ison.dev.sqlapi.util;
+
+/**
+ * Gets notified when a operation of the {@link AsyncDatabase} completes. The callback runs on the thread which executed
+ * the operation, so it should return quickly.
+ *
+ * @param <V> The type of the result
+ */
+public interface DatabaseCallback<V> {
+
+    /**
+     * Called if the operation succeeded
+     *
+     * @param result The result of the operation, null for operations without a result
+     */
+    void onSuccess(V result);
+
+    /**
+     * Called if the operation failed or was rejected, because the queue of the executor was full
+     *
+     * @param cause The cause
+     */
+    void onFailure(Throwable cause);
+}
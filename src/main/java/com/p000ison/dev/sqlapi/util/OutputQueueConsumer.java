@@ -14,32 +14,85 @@
  * You should have received a copy of the GNU General Public License
  * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
  *
- * Last modified: 29.12.12 15:35
+ * Last modified: 19.10.26 14:40
  */
 
 package com.p000ison.dev.sqlapi.util;
 
+import com.p000ison.dev.sqlapi.Column;
 import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.RegisteredTable;
 import com.p000ison.dev.sqlapi.TableObject;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Represents a OutputQueueConsumer
  * <p/>
- * This Runnable can be used to store TableObject. In most usages you want another thread handle queries. This thread
- * will wait if there is nothing to save.
+ * This thread stores TableObjects behind the back of the threads which queue them. The queue is drained in batches,
+ * which are grouped by their table and written with one batch insert and one batch upsert per table. A batch is
+ * flushed when it reaches the flush size or when its oldest object waited for the flush interval.
+ * <p/>
+ * Objects with an id equal or less than 0 get inserted and receive their id, all other objects are inserted or updated
+ * with their id.
  */
 public class OutputQueueConsumer extends Thread {
-    private BlockingQueue<TableObject> queue = new LinkedBlockingQueue<TableObject>();
-    private int maxSize = -1;
+
+    /**
+     * Defines what happens if a object is queued while the queue is full
+     */
+    public enum BackpressurePolicy {
+        /**
+         * Waits until there is space in the queue. If the waiting thread gets interrupted a {@link IllegalStateException}
+         * is thrown and the object is not stored.
+         */
+        BLOCK,
+        /**
+         * Drops the object, {@link #offerTableObject(TableObject)} returns false
+         */
+        DROP,
+        /**
+         * Saves the object in the calling thread
+         */
+        CALLER_SAVES,
+        /**
+         * Throws a {@link IllegalStateException}
+         */
+        FAIL
+    }
+
+    /**
+     * Wakes up the waiting consumer when it gets stopped. Interrupting it could interrupt a running flush.
+     */
+    private static final TableObject WAKE_UP = new TableObject() {
+    };
+
+    private final BlockingQueue<TableObject> queue;
     private final Database database;
-    private AtomicBoolean bool = new AtomicBoolean(true);
+    private volatile boolean running = true;
+    private volatile long flushInterval = 1000;
+    private volatile int flushSize = 100;
+    private volatile BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
 
+    /**
+     * Creates a new OutputQueueConsumer
+     *
+     * @param maxSize  The maximal size of the queue or -1 if it is unbounded
+     * @param database The database to store the objects in
+     */
     public OutputQueueConsumer(int maxSize, Database database) {
-        this.maxSize = maxSize;
+        super("OutputQueueConsumer");
+        this.queue = maxSize > 0 ? new LinkedBlockingQueue<TableObject>(maxSize) : new LinkedBlockingQueue<TableObject>();
         this.database = database;
     }
 
@@ -47,38 +100,266 @@ public class OutputQueueConsumer extends Thread {
         this(-1, database);
     }
 
+    /**
+     * Queues a object to store it. If the queue is full the {@link BackpressurePolicy} decides what happens.
+     *
+     * @param tableObject The object to store
+     * @throws IllegalStateException If the consumer is stopped, the queue is full and the policy is {@link BackpressurePolicy#FAIL}
+     *                               or the thread got interrupted while waiting for space
+     * @see #offerTableObject(TableObject)
+     */
     public void addTableObject(TableObject tableObject) {
-        synchronized (this) {
-            if (queue.size() >= maxSize) {
-                return;
+        offerTableObject(tableObject);
+    }
+
+    /**
+     * Queues a object to store it. If the queue is full the {@link BackpressurePolicy} decides what happens.
+     *
+     * @param tableObject The object to store
+     * @return Whether the object was queued or saved
+     * @throws IllegalStateException If the consumer is stopped, the queue is full and the policy is {@link BackpressurePolicy#FAIL}
+     *                               or the thread got interrupted while waiting for space
+     */
+    public boolean offerTableObject(TableObject tableObject) {
+        if (!running) {
+            throw new IllegalStateException("The OutputQueueConsumer is stopped!");
+        }
+
+        if (queue.offer(tableObject)) {
+            return checkQueued(tableObject);
+        }
+
+        switch (backpressurePolicy) {
+            case BLOCK:
+                try {
+                    queue.put(tableObject);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for space in the queue, the object was not stored!");
+                }
+                return checkQueued(tableObject);
+            case CALLER_SAVES:
+                database.save(tableObject);
+                return true;
+            case FAIL:
+                throw new IllegalStateException("The queue of the OutputQueueConsumer is full!");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Takes back a object which was queued while the consumer got stopped, because the consumer may already have done
+     * its last drain. If the consumer already took the object it still gets stored.
+     *
+     * @param tableObject The queued object
+     * @return Always true if the object will be stored
+     * @throws IllegalStateException If the object was taken back
+     */
+    private boolean checkQueued(TableObject tableObject) {
+        if (running) {
+            return true;
+        }
+
+        for (Iterator<TableObject> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next() == tableObject) {
+                it.remove();
+                throw new IllegalStateException("The OutputQueueConsumer is stopped!");
             }
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        List<TableObject> pending = new ArrayList<TableObject>();
+        long deadline = 0;
+
+        while (true) {
             try {
-                queue.put(tableObject);
+                if (pending.isEmpty()) {
+                    if (!running && queue.isEmpty()) {
+                        break;
+                    }
+
+                    TableObject first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                    if (first == null || first == WAKE_UP) {
+                        continue;
+                    }
+                    pending.add(first);
+                    deadline = System.currentTimeMillis() + flushInterval;
+                }
+
+                int size = flushSize;
+                queue.drainTo(pending, size - pending.size());
+
+                if (running && pending.size() < size) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait > 0) {
+                        TableObject next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                        if (next != null && next != WAKE_UP) {
+                            pending.add(next);
+                            continue;
+                        }
+                    }
+                }
             } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                //drain the queue and stop
+                running = false;
+                continue;
             }
+
+            flush(pending);
+            pending.clear();
         }
     }
 
-    @Override
-    public void run() {
-        while (bool.get()) {
-            synchronized (this) {
-                TableObject obj;
+    /**
+     * Writes the objects grouped by their table
+     *
+     * @param objects The objects to write
+     */
+    protected void flush(List<TableObject> objects) {
+        Map<RegisteredTable, List<TableObject>> tables = new LinkedHashMap<RegisteredTable, List<TableObject>>();
+        //a object which was queued multiple times is written once
+        Map<TableObject, Boolean> written = new IdentityHashMap<TableObject, Boolean>();
+
+        for (TableObject object : objects) {
+            if (object == WAKE_UP || written.put(object, Boolean.TRUE) != null) {
+                continue;
+            }
 
+            RegisteredTable table = database.getRegisteredTable(object.getClass());
+            List<TableObject> tableObjects = tables.get(table);
+            if (tableObjects == null) {
+                tableObjects = new ArrayList<TableObject>();
+                tables.put(table, tableObjects);
+            }
+            tableObjects.add(object);
+        }
+
+        for (Map.Entry<RegisteredTable, List<TableObject>> entry : tables.entrySet()) {
+            try {
+                flush(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                handleFailure(entry.getKey(), entry.getValue(), e);
+            }
+        }
+    }
+
+    private void flush(final RegisteredTable table, final List<TableObject> objects) {
+        //the inserts and updates are committed together, so a failed flush does not leave some of them written
+        database.inTransaction(new Callable<Void>() {
+            @Override
+            public Void call() {
+                Column idColumn = table.getIDColumn();
+                Lock lock = table.getLock();
+                lock.lock();
                 try {
-                    while ((obj = queue.take()) != null) {
-                        database.save(obj);
+                    List<TableObject> inserts = new ArrayList<TableObject>();
+                    for (TableObject object : objects) {
+                        if (((Number) idColumn.getValue(object)).longValue() <= 0) {
+                            inserts.add(object);
+                        } else {
+                            database.addUpsertBatch(object);
+                        }
                     }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                    if (!inserts.isEmpty()) {
+                        database.insertAll(inserts);
+                    }
+                    database.executeUpsertBatch(table);
+                    return null;
+                } catch (RuntimeException e) {
+                    //the batches are shared, so the objects of this flush must not be written by the next one
+                    database.clearUpsertBatch(table);
+                    throw e;
+                } finally {
+                    lock.unlock();
                 }
             }
+        });
+    }
+
+    /**
+     * Called if flushing the objects of a table failed. By default every object is saved on its own, so one bad object
+     * does not lose the others. Objects which fail again are passed to the uncaught exception handler of this thread.
+     *
+     * @param table   The table
+     * @param objects The objects which were not written
+     * @param cause   The exception
+     */
+    protected void handleFailure(RegisteredTable table, List<TableObject> objects, RuntimeException cause) {
+        for (TableObject object : objects) {
+            try {
+                database.save(object);
+            } catch (RuntimeException e) {
+                getUncaughtExceptionHandler().uncaughtException(this, e);
+            }
         }
     }
 
+    /**
+     * Stops this thread after the queue was drained. Objects which are queued afterwards are rejected.
+     */
     public void stopThread() {
-        bool.set(false);
+        running = false;
+        queue.offer(WAKE_UP);
+    }
+
+    /**
+     * Stops this thread and waits until the queue is drained
+     *
+     * @param timeout The maximal time to wait in milliseconds or 0 to wait forever
+     * @return Whether the queue was drained in time
+     * @throws InterruptedException If the current thread gets interrupted while waiting
+     */
+    public boolean shutdown(long timeout) throws InterruptedException {
+        stopThread();
+        join(timeout);
+        return !isAlive();
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * Sets how long the oldest object of a batch waits for more objects before the batch gets flushed
+     *
+     * @param flushInterval The interval in milliseconds
+     */
+    public void setFlushInterval(long flushInterval) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("The flush interval must be greater than 0!");
+        }
+        this.flushInterval = flushInterval;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    /**
+     * Sets the number of objects which are flushed immediately
+     *
+     * @param flushSize The size of a batch
+     */
+    public void setFlushSize(int flushSize) {
+        if (flushSize < 1) {
+            throw new IllegalArgumentException("The flush size must be at least 1!");
+        }
+        this.flushSize = flushSize;
+    }
+
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        if (backpressurePolicy == null) {
+            throw new IllegalArgumentException("The backpressure policy can not be null!");
+        }
+        this.backpressurePolicy = backpressurePolicy;
     }
 
     protected Database getDatabase() {
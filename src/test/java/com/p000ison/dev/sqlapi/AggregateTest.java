@@ -0,0 +1,163 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:30
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.query.AggregateFunction;
+import com.p000ison.dev.sqlapi.query.CompareOperator;
+import com.p000ison.dev.sqlapi.query.SelectQuery;
+import com.p000ison.dev.sqlapi.query.Tuple;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests counting and aggregating entries in the database on a file-backed SQLite database
+ */
+public class AggregateTest {
+
+    private File file;
+    private Database database;
+    private RegisteredTable table;
+
+    @DatabaseTable(name = "account", cacheSize = 16)
+    public static class Account implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "grp")
+        public String group;
+        @DatabaseColumn(position = 2, databaseName = "money")
+        public int money;
+        @DatabaseColumn(position = 3, databaseName = "rate")
+        public double rate;
+
+        public Account() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("account", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        table = database.registerTable(Account.class);
+        for (int i = 0; i < 10; i++) {
+            Account account = new Account();
+            account.group = "g" + i % 3;
+            account.money = i;
+            account.rate = i / 2.0;
+            database.save(account);
+        }
+        table.getEntityCache().clear();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private SelectQuery<Account> query() {
+        return database.<Account>select().from(Account.class);
+    }
+
+    @Test
+    public void testCountAndExists() {
+        assertEquals(10, query().count());
+        //the limit and order are ignored
+        assertEquals(4, query().where().greaterThan("money", 5).select().orderBy("money").limit(2).count());
+        assertTrue(query().where().equals("money", 3).select().exists());
+        assertFalse(query().where().equals("money", 30).select().exists());
+        //no entry was read
+        assertEquals(0, table.getEntityCache().size());
+
+        Account account = new Account();
+        account.id = 4;
+        assertTrue(database.existsEntry(account));
+        account.id = 40;
+        assertFalse(database.existsEntry(account));
+    }
+
+    @Test
+    public void testAggregates() {
+        List<Tuple> tuples = query().aggregate(AggregateFunction.SUM, "money").aggregate(AggregateFunction.MAX, "rate")
+                .aggregate(AggregateFunction.COUNT, (String) null).aggregate(AggregateFunction.AVG, "money")
+                .aggregate(AggregateFunction.MIN, "money").getAggregates();
+
+        assertEquals(1, tuples.size());
+        Tuple tuple = tuples.get(0);
+        assertEquals(45, tuple.getLong(0));
+        assertEquals(4.5, tuple.getDouble(1), 0);
+        assertEquals(10L, tuple.get("COUNT(*)"));
+        assertEquals(4.5, tuple.getDouble(3), 0);
+        assertEquals(0, tuple.getLong(4));
+        assertEquals(0, table.getEntityCache().size());
+    }
+
+    @Test
+    public void testGroups() {
+        List<Tuple> tuples = query().where().greaterThan("money", 1).select().groupBy("grp")
+                .aggregate(AggregateFunction.SUM, "money")
+                .having(AggregateFunction.COUNT, null, CompareOperator.GREATER_THAN, 2)
+                .orderByDescending("SUM(money)").getAggregates();
+
+        //g0 holds 3, 6 and 9, g2 holds 2, 5 and 8, g1 only holds 4 and 7
+        assertEquals(2, tuples.size());
+        assertEquals("g0", tuples.get(0).getString(0));
+        assertEquals(18, tuples.get(0).getLong(1));
+        assertEquals("g2", tuples.get(1).getString(0));
+        assertEquals(15, tuples.get(1).getLong(1));
+    }
+
+    @Test
+    public void testNoMatchingEntries() {
+        List<Tuple> tuples = query().where().equals("money", 100).select().aggregate(AggregateFunction.SUM, "money").getAggregates();
+        assertEquals(1, tuples.size());
+        assertNull(tuples.get(0).get(0));
+    }
+
+    @Test
+    public void testInvalidAggregates() {
+        try {
+            query().aggregate(AggregateFunction.SUM, "grp");
+            fail("A text column was summed");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        try {
+            query().getAggregates();
+            fail("There are no aggregates to select");
+        } catch (QueryException expected) {
+        }
+    }
+}
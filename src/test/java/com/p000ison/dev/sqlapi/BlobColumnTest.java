@@ -0,0 +1,188 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:40
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.codec.BinarySerializable;
+import com.p000ison.dev.sqlapi.codec.SerializationCodec;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests storing objects in blob columns on a file-backed SQLite database
+ */
+public class BlobColumnTest {
+
+    private File file;
+    private Database database;
+    private RegisteredTable table;
+
+    public static class Position implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private int x, y;
+        private String world;
+
+        public Position() {
+        }
+
+        public Position(int x, int y, String world) {
+            this.x = x;
+            this.y = y;
+            this.world = world;
+        }
+    }
+
+    public interface Shape extends BinarySerializable {
+    }
+
+    public static class Square implements Shape {
+        private int size;
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeInt(size);
+        }
+
+        @Override
+        public void readFrom(DataInput in) throws IOException {
+            size = in.readInt();
+        }
+    }
+
+    @DatabaseTable(name = "blobs", cacheSize = 16)
+    public static class Blobs implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "position")
+        public Position position;
+        @DatabaseColumn(position = 2, databaseName = "shape")
+        public Shape shape;
+        @DatabaseColumn(position = 3, databaseName = "names")
+        public ArrayList<String> names;
+
+        public Blobs() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("blobs", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        table = database.registerTable(Blobs.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private Blobs reload(long id) {
+        table.getEntityCache().clear();
+        return database.find(Blobs.class, id);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Blobs blobs = new Blobs();
+        blobs.position = new Position(1, -2, "world");
+        Square square = new Square();
+        square.size = 7;
+        blobs.shape = square;
+        blobs.names = new ArrayList<String>(Arrays.asList("a", "b"));
+        database.save(blobs);
+
+        Blobs read = reload(blobs.id);
+        assertEquals(1, read.position.x);
+        assertEquals(-2, read.position.y);
+        assertEquals("world", read.position.world);
+        assertSame(Square.class, read.shape.getClass());
+        assertEquals(7, ((Square) read.shape).size);
+        assertEquals(blobs.names, read.names);
+    }
+
+    @Test
+    public void testNulls() {
+        Blobs blobs = new Blobs();
+        database.save(blobs);
+
+        Blobs read = reload(blobs.id);
+        assertNull(read.position);
+        assertNull(read.shape);
+        assertNull(read.names);
+    }
+
+    @Test
+    public void testReadsSerializedBlobs() throws IOException {
+        Blobs blobs = new Blobs();
+        database.save(blobs);
+
+        //blobs which were written before the fields were stored are still read
+        byte[] serialized = new SerializationCodec().encode(new Position(3, 4, "old"), Position.class);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : serialized) {
+            hex.append(String.format("%02X", b));
+        }
+        database.executeDirectUpdate("UPDATE blobs SET position = X'" + hex + "' WHERE id = " + blobs.id + ';');
+
+        Blobs read = reload(blobs.id);
+        assertEquals(3, read.position.x);
+        assertEquals("old", read.position.world);
+
+        //saving it again writes the fields
+        read.position.x = 5;
+        database.save(read);
+        assertEquals(5, reload(blobs.id).position.x);
+    }
+
+    @Test
+    public void testManyRows() {
+        List<Blobs> objects = new ArrayList<Blobs>();
+        for (int i = 0; i < 50; i++) {
+            Blobs blobs = new Blobs();
+            blobs.position = new Position(i, i * 2, "w" + i);
+            objects.add(blobs);
+        }
+        database.insertAll(objects);
+
+        table.getEntityCache().clear();
+        for (Blobs read : database.<Blobs>select().from(Blobs.class).prepare().getResults()) {
+            assertEquals(read.id - 1, read.position.x);
+            assertEquals("w" + read.position.x, read.position.world);
+        }
+    }
+}
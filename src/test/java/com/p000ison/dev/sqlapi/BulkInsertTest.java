@@ -0,0 +1,163 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:00
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.metrics.QueryType;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests inserting many objects with statements of multiple rows on a file-backed SQLite database
+ */
+public class BulkInsertTest {
+
+    private File file;
+    private Database database;
+    private final List<Integer> chunks = new ArrayList<Integer>();
+
+    @DatabaseTable(name = "bulk")
+    public static class Bulk implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "name", unique = true)
+        public String name;
+        @DatabaseColumn(position = 2, databaseName = "value")
+        public int value;
+        @DatabaseColumn(position = 3, databaseName = "data")
+        public byte[] data;
+
+        public Bulk() {
+        }
+
+        public Bulk(String name, int value) {
+            this.name = name;
+            this.value = value;
+            this.data = new byte[]{(byte) value, 1};
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("bulk", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Bulk.class);
+        database.setQueryListener(new QueryListener() {
+            @Override
+            public void lockAcquired(RegisteredTable table, long waitNanos) {
+            }
+
+            @Override
+            public void queryExecuted(String query, RegisteredTable table, QueryType type, long waitNanos, long executionNanos, long rows, long blobBytes) {
+                if (type == QueryType.BATCH) {
+                    chunks.add((int) rows);
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private static List<Bulk> create(String prefix, int size) {
+        List<Bulk> objects = new ArrayList<Bulk>();
+        for (int i = 0; i < size; i++) {
+            objects.add(new Bulk(prefix + i, i));
+        }
+        return objects;
+    }
+
+    private void assertStored(List<Bulk> objects) {
+        for (Bulk object : objects) {
+            Bulk read = database.find(Bulk.class, object.id);
+            assertEquals(object.name, read.name);
+            assertEquals(object.value, read.value);
+            assertArrayEquals(object.data, read.data);
+        }
+    }
+
+    @Test
+    public void testKeysOfAllChunks() {
+        //the first ids are used, so the keys do not start at 1
+        database.insertAll(create("a", 3));
+        List<Bulk> objects = create("b", 1200);
+        chunks.clear();
+        database.insertAll(objects);
+
+        //a statement holds at most 333 rows of three parameters
+        assertEquals(Arrays.asList(333, 333, 333, 201), chunks);
+
+        Set<Long> ids = new HashSet<Long>();
+        for (int i = 0; i < objects.size(); i++) {
+            assertEquals(4 + i, objects.get(i).id);
+            assertTrue(ids.add(objects.get(i).id));
+        }
+        assertEquals(1203, database.<Bulk>select().from(Bulk.class).count());
+        assertStored(objects);
+    }
+
+    @Test
+    public void testFailedChunkInsertsNothing() {
+        List<Bulk> objects = create("a", 700);
+        //the name is unique, so the last chunk fails after the first chunks were executed
+        objects.get(699).name = "a0";
+
+        try {
+            database.insertAll(objects);
+            fail("The duplicate name was inserted");
+        } catch (QueryException expected) {
+        }
+        assertEquals(0, database.<Bulk>select().from(Bulk.class).count());
+
+        objects.get(699).name = "a699";
+        database.insertAll(objects);
+        assertEquals(700, database.<Bulk>select().from(Bulk.class).count());
+        assertStored(objects);
+    }
+
+    @Test
+    public void testEmpty() {
+        database.insertAll(new ArrayList<Bulk>());
+        assertEquals(0, chunks.size());
+        assertEquals(0, database.<Bulk>select().from(Bulk.class).count());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 16:00
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests reading and writing values with the accessors of columns
+ */
+public class ColumnAccessorTest {
+
+    public static class Entry implements TableObject {
+        private int number;
+        private double fraction;
+        private String text;
+        private final String constant = "initial";
+        private AtomicInteger counter = new AtomicInteger();
+        private long value;
+
+        public long getValue() {
+            return value;
+        }
+
+        public void setValue(long value) {
+            this.value = value;
+        }
+    }
+
+    private static ColumnAccessor field(String name) throws Exception {
+        Field field = Entry.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return ColumnAccessor.forField(field);
+    }
+
+    @Test
+    public void testObjectField() throws Exception {
+        Entry entry = new Entry();
+        ColumnAccessor accessor = field("text");
+
+        accessor.set(entry, "a");
+        assertEquals("a", entry.text);
+        assertEquals("a", accessor.get(entry));
+    }
+
+    @Test
+    public void testPrimitiveFieldConvertsNumbers() throws Exception {
+        Entry entry = new Entry();
+
+        //generated keys are longs, also for int ids
+        field("number").set(entry, 5L);
+        assertEquals(5, entry.number);
+        assertEquals(5, field("number").get(entry));
+
+        field("fraction").set(entry, 2);
+        assertEquals(2.0, entry.fraction, 0);
+    }
+
+    @Test(expected = QueryException.class)
+    public void testPrimitiveFieldRejectsNull() throws Exception {
+        field("number").set(new Entry(), null);
+    }
+
+    @Test
+    public void testPrimitiveFieldRejectsOtherTypes() throws Exception {
+        try {
+            field("number").set(new Entry(), "text");
+            fail("A string was stored in a int");
+        } catch (QueryException expected) {
+        }
+    }
+
+    @Test
+    public void testFinalField() throws Exception {
+        Entry entry = new Entry();
+        ColumnAccessor accessor = field("constant");
+
+        accessor.set(entry, "changed");
+        assertEquals("changed", accessor.get(entry));
+    }
+
+    @Test
+    public void testAtomicFieldIsUpdated() throws Exception {
+        Entry entry = new Entry();
+        AtomicInteger counter = entry.counter;
+
+        field("counter").set(entry, 3);
+        assertSame(counter, entry.counter);
+        assertEquals(3, counter.get());
+    }
+
+    @Test
+    public void testMethods() throws Exception {
+        Entry entry = new Entry();
+        ColumnAccessor accessor = ColumnAccessor.forMethods(Entry.class.getMethod("getValue"), Entry.class.getMethod("setValue", long.class));
+
+        accessor.set(entry, 7);
+        assertEquals(7L, entry.value);
+        assertEquals(7L, accessor.get(entry));
+    }
+}
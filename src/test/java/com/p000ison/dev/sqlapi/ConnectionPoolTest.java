@@ -0,0 +1,121 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 13:30
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.query.PreparedSelectQuery;
+import com.p000ison.dev.sqlapi.query.QueryCursor;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests a in-memory SQLite database, whose pool has only one connection
+ */
+public class ConnectionPoolTest {
+
+    private Database database;
+
+    @DatabaseTable(name = "row")
+    public static class Row implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Row() {
+        }
+
+        public Row(int value) {
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SQLiteConfiguration configuration = new SQLiteConfiguration();
+        //waiting for the only connection fails fast instead of hanging the test
+        configuration.setBorrowTimeout(2000);
+        database = new SQLiteDatabase(configuration);
+        database.registerTable(Row.class);
+        for (int i = 0; i < 10; i++) {
+            database.save(new Row(i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteWhileReadingCursor() {
+        QueryCursor<Row> cursor = database.<Row>select().from(Row.class).prepare().getCursor();
+        try {
+            assertTrue(cursor.hasNext());
+            Row first = cursor.next();
+            first.value = 100;
+            database.save(first);
+            database.save(new Row(11));
+            assertNotNull(database.find(Row.class, 2));
+
+            int rows = 1;
+            while (cursor.hasNext()) {
+                cursor.next();
+                rows++;
+            }
+            assertTrue(rows >= 10);
+        } finally {
+            cursor.close();
+        }
+
+        assertEquals(11, database.<Row>select().from(Row.class).count());
+        assertEquals(100, database.find(Row.class, 1).value);
+    }
+
+    @Test(timeout = 10000)
+    public void testSameQueryWhileReadingCursor() {
+        PreparedSelectQuery<Row> query = database.<Row>select().from(Row.class).prepare();
+        QueryCursor<Row> cursor = query.getCursor();
+        try {
+            cursor.next();
+            //the same query shares no statement with the open cursor
+            assertEquals(10, query.getResults().size());
+
+            int rows = 1;
+            while (cursor.hasNext()) {
+                cursor.next();
+                rows++;
+            }
+            assertEquals(10, rows);
+            assertFalse(cursor.hasNext());
+        } finally {
+            cursor.close();
+        }
+    }
+}
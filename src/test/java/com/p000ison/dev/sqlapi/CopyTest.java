@@ -0,0 +1,133 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:55
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests copying tables between two file-backed SQLite databases
+ */
+public class CopyTest {
+
+    private File sourceFile, destinationFile;
+    private Database source, destination;
+
+    @DatabaseTable(name = "entry")
+    public static class Entry implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Entry() {
+        }
+
+        public Entry(int value) {
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        sourceFile = File.createTempFile("source", ".db");
+        destinationFile = File.createTempFile("destination", ".db");
+        source = new SQLiteDatabase(new SQLiteConfiguration(sourceFile));
+        destination = new SQLiteDatabase(new SQLiteConfiguration(destinationFile));
+        source.registerTable(Entry.class);
+        destination.registerTable(Entry.class);
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        destination.close();
+        sourceFile.delete();
+        destinationFile.delete();
+    }
+
+    @Test
+    public void testCopyDoesNotExecutePendingBatches() {
+        Entry pending = new Entry(1);
+        destination.save(pending);
+        pending.value = 2;
+        destination.addUpdateBatch(pending);
+
+        for (int i = 0; i < 10; i++) {
+            source.save(new Entry(100 + i));
+        }
+        assertEquals(10, source.copy(Entry.class, destination, 4, null));
+
+        //the copy overwrote the entry, the batch of the destination is still waiting
+        assertEquals(100, destination.find(Entry.class, pending.id).value);
+        destination.executeUpdateBatch(Entry.class);
+        assertEquals(2, destination.find(Entry.class, pending.id).value);
+        assertEquals(10, destination.<Entry>select().from(Entry.class).count());
+    }
+
+    @Test
+    public void testCopyKeepsIdsAndReportsProgress() {
+        for (int i = 0; i < 10; i++) {
+            source.save(new Entry(i));
+        }
+        //a gap in the ids must be copied as well
+        source.delete(source.find(Entry.class, 3));
+
+        final List<Long> progress = new ArrayList<Long>();
+        final long[] finished = {-1};
+        long copied = source.copy(Entry.class, destination, 4, new CopyListener() {
+            @Override
+            public void progress(RegisteredTable table, long copied) {
+                progress.add(copied);
+            }
+
+            @Override
+            public void finished(RegisteredTable table, long copied) {
+                finished[0] = copied;
+            }
+        });
+
+        assertEquals(9, copied);
+        assertEquals(Arrays.asList(4L, 8L, 9L), progress);
+        assertEquals(9, finished[0]);
+        assertNull(destination.find(Entry.class, 3));
+        for (Entry entry : source.<Entry>select().from(Entry.class).prepare().getResults()) {
+            assertEquals(entry.value, destination.find(Entry.class, entry.id).value);
+        }
+
+        //copying again updates the entries instead of adding them
+        assertEquals(9, source.copy(Entry.class, destination, 4, null));
+        assertEquals(9, destination.<Entry>select().from(Entry.class).count());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:20
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.metrics.QueryListener;
+import com.p000ison.dev.sqlapi.metrics.QueryType;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests selecting many objects by their ids on a file-backed SQLite database
+ */
+public class FindByIdsTest {
+
+    private File file;
+    private Database database;
+    private RegisteredTable table;
+    private final List<Integer> selects = new ArrayList<Integer>();
+
+    @DatabaseTable(name = "found", cacheSize = 500)
+    public static class Found implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Found() {
+        }
+
+        public Found(int value) {
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("found", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        table = database.registerTable(Found.class);
+
+        List<Found> objects = new ArrayList<Found>();
+        for (int i = 1; i <= 300; i++) {
+            objects.add(new Found(i));
+        }
+        database.insertAll(objects);
+        table.getEntityCache().clear();
+
+        database.setQueryListener(new QueryListener() {
+            @Override
+            public void lockAcquired(RegisteredTable table, long waitNanos) {
+            }
+
+            @Override
+            public void queryExecuted(String query, RegisteredTable table, QueryType type, long waitNanos, long executionNanos, long rows, long blobBytes) {
+                if (type == QueryType.SELECT) {
+                    selects.add(query.length() - query.replace("?", "").length());
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private static List<Long> range(long from, int size) {
+        List<Long> ids = new ArrayList<Long>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(from + i);
+        }
+        return ids;
+    }
+
+    private void assertFound(List<Long> ids, Integer... lists) {
+        table.getEntityCache().clear();
+        selects.clear();
+
+        Map<Long, Found> found = database.findByIds(Found.class, ids);
+        assertEquals(ids.size(), found.size());
+        for (Map.Entry<Long, Found> entry : found.entrySet()) {
+            assertEquals(entry.getKey().longValue(), entry.getValue().value);
+        }
+        assertEquals(Arrays.asList(lists), selects);
+    }
+
+    @Test
+    public void testListSizes() {
+        assertFound(range(1, 1), 1);
+        assertFound(range(1, 5), 8);
+        assertFound(range(1, 8), 8);
+        assertFound(range(1, 20), 32);
+        assertFound(range(1, 32), 32);
+        assertFound(range(1, 100), 128);
+        assertFound(range(1, 128), 128);
+        //the last chunk holds the remaining 44 ids
+        assertFound(range(1, 300), 128, 128, 128);
+    }
+
+    @Test
+    public void testOrderAndMissingIds() {
+        List<Long> ids = Arrays.asList(30L, 1000L, 10L, 20L, 10L);
+        Map<Long, Found> found = database.findByIds(Found.class, ids);
+        assertEquals(Arrays.asList(30L, 10L, 20L), new ArrayList<Long>(found.keySet()));
+        assertFalse(found.containsKey(1000L));
+        assertTrue(database.findByIds(Found.class, Collections.<Long>emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testCachedObjects() {
+        Found cached = database.find(Found.class, 5);
+        selects.clear();
+
+        Map<Long, Found> found = database.findByIds(Found.class, Arrays.asList(5L, 6L));
+        assertSame(cached, found.get(5L));
+        //only the id which is not cached is selected
+        assertEquals(Arrays.asList(1), selects);
+
+        selects.clear();
+        assertSame(found.get(6L), database.findByIds(Found.class, Arrays.asList(6L)).get(6L));
+        assertTrue(selects.isEmpty());
+    }
+}
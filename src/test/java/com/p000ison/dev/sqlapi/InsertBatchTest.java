@@ -0,0 +1,115 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:00
+ */
+
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that the objects of a insert batch get their ids
+ */
+public class InsertBatchTest {
+
+    private File file;
+    private Database database;
+    private RegisteredTable table;
+
+    @DatabaseTable(name = "entry", cacheSize = 16, dirtyTracking = true)
+    public static class Entry implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Entry() {
+        }
+
+        public Entry(int value) {
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("insertbatch", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Entry.class);
+        table = database.getRegisteredTable(Entry.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    @Test
+    public void testIdsCachedAndTracked() {
+        Entry[] entries = new Entry[5];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(i);
+            database.addInsertBatch(entries[i]);
+        }
+        database.executeInsertBatch(table);
+
+        for (int i = 0; i < entries.length; i++) {
+            assertTrue(entries[i].id > 0);
+            assertEquals(i, database.find(Entry.class, entries[i].id).value);
+            assertTrue(table.getDirtyTracker().isTracked(entries[i]));
+        }
+        assertEquals(entries.length, table.getEntityCache().size());
+    }
+
+    @Test
+    public void testChangedBatchRejected() {
+        Entry entry = new Entry(1);
+        database.addInsertBatch(entry);
+        database.addInsertBatch(new Entry(2));
+        table.getPreparedInsertStatement().clearBatch();
+        table.getPreparedInsertStatement().addBatch();
+
+        try {
+            database.executeInsertBatch(table);
+            fail("The ids can not be assigned");
+        } catch (QueryException expected) {
+        }
+        assertEquals(0, entry.id);
+        assertEquals(0, database.<Entry>select().from(Entry.class).count());
+
+        //the batch was dropped
+        database.addInsertBatch(entry);
+        database.executeInsertBatch(table);
+        assertTrue(entry.id > 0);
+    }
+}
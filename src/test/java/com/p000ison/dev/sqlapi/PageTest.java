@@ -0,0 +1,171 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:10
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.query.Page;
+import com.p000ison.dev.sqlapi.query.PageToken;
+import com.p000ison.dev.sqlapi.query.SelectQuery;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests keyset pagination on a file-backed SQLite database
+ */
+public class PageTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "scored")
+    public static class Scored implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "score")
+        public int score;
+
+        public Scored() {
+        }
+
+        public Scored(int score) {
+            this.score = score;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("page", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Scored.class);
+        for (int i = 0; i < 11; i++) {
+            //the scores repeat, so the id decides between equal scores
+            database.save(new Scored(i % 4));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private SelectQuery<Scored> query(boolean descending) {
+        SelectQuery<Scored> query = database.<Scored>select().from(Scored.class);
+        query.where().greaterThan("id", 1).select();
+        return descending ? query.orderByDescending("score") : query.orderBy("score");
+    }
+
+    private List<Scored> readAll(boolean descending, int size) {
+        List<Scored> results = new ArrayList<Scored>();
+        PageToken token = null;
+        do {
+            Page<Scored> page = query(descending).seekAfter(token).page(size);
+            assertTrue(page.getResults().size() <= size);
+            assertEquals(page.hasNext(), page.getNextToken() != null);
+            results.addAll(page.getResults());
+            token = page.getNextToken();
+        } while (token != null);
+        return results;
+    }
+
+    private static void assertAllOnce(List<Scored> results) {
+        Set<Long> ids = new HashSet<Long>();
+        for (Scored scored : results) {
+            assertTrue(ids.add(scored.id));
+        }
+        assertEquals(10, ids.size());
+        assertFalse(ids.contains(1L));
+    }
+
+    @Test
+    public void testAscending() {
+        List<Scored> results = readAll(false, 3);
+        assertAllOnce(results);
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).score <= results.get(i).score);
+        }
+    }
+
+    @Test
+    public void testDescending() {
+        List<Scored> results = readAll(true, 3);
+        assertAllOnce(results);
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).score >= results.get(i).score);
+        }
+    }
+
+    @Test
+    public void testFullLastPageHasNoToken() {
+        //the ten entries fill exactly two pages, so no empty third page is needed
+        Page<Scored> first = query(false).page(5);
+        assertTrue(first.hasNext());
+        Page<Scored> second = query(false).seekAfter(first.getNextToken()).page(5);
+        assertEquals(5, second.getResults().size());
+        assertFalse(second.hasNext());
+        assertNull(second.getNextToken());
+    }
+
+    @Test
+    public void testInsertedEntryDoesNotShiftPages() {
+        Page<Scored> first = query(false).page(4);
+        Set<Long> ids = new HashSet<Long>();
+        for (Scored scored : first.getResults()) {
+            ids.add(scored.id);
+        }
+
+        //the new entry sorts before the token, an offset would return the last entry of the first page again
+        database.save(new Scored(-1));
+        Page<Scored> second = query(false).seekAfter(first.getNextToken()).page(4);
+        for (Scored scored : second.getResults()) {
+            assertTrue(ids.add(scored.id));
+        }
+        assertEquals(8, ids.size());
+    }
+
+    @Test
+    public void testTokenOfOtherOrder() {
+        PageToken token = new PageToken(Arrays.asList("id"), new Object[]{1L});
+        try {
+            query(false).seekAfter(token).page(2);
+            fail("The token was used for a different order");
+        } catch (QueryException expected) {
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 19:00
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.query.Page;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests writing objects which were selected with only some columns
+ */
+public class ProjectionTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "plain")
+    public static class Plain implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "name")
+        public String name;
+        @DatabaseColumn(position = 2, databaseName = "value")
+        public int value;
+
+        public Plain() {
+        }
+
+        public Plain(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Plain && ((Plain) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) id;
+        }
+    }
+
+    @DatabaseTable(name = "tracked", dirtyTracking = true)
+    public static class Tracked implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "name")
+        public String name;
+        @DatabaseColumn(position = 2, databaseName = "value")
+        public int value;
+
+        public Tracked() {
+        }
+
+        public Tracked(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("projection", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Plain.class);
+        database.registerTable(Tracked.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    @Test
+    public void testProjectedValues() {
+        database.save(new Plain("a", 1));
+
+        List<Plain> results = database.<Plain>select().from(Plain.class).columns("value").prepare().getResults();
+        assertEquals(1, results.size());
+        assertEquals(1, results.get(0).value);
+        //the id is always selected, the other columns keep the values of a new object
+        assertEquals(1, results.get(0).id);
+        assertEquals(null, results.get(0).name);
+    }
+
+    @Test
+    public void testProjectedObjectIsNotWritten() {
+        Plain plain = new Plain("a", 1);
+        database.save(plain);
+
+        Plain projected = database.<Plain>select().from(Plain.class).columns("value").prepare().getResults().get(0);
+        projected.value = 2;
+        try {
+            database.save(projected);
+            fail("The partial object was saved");
+        } catch (QueryException expected) {
+        }
+        try {
+            database.addUpdateBatch(projected);
+            fail("The partial object was batched");
+        } catch (QueryException expected) {
+        }
+
+        Plain found = database.<Plain>select().from(Plain.class).prepare().getResults().get(0);
+        assertEquals("a", found.name);
+        assertEquals(1, found.value);
+
+        //a complete object with the same id can still be written
+        found.value = 3;
+        database.save(found);
+        assertEquals(3, database.find(Plain.class, plain.id).value);
+    }
+
+    @Test
+    public void testTrackedProjectedObjectWritesChangedColumns() {
+        Tracked tracked = new Tracked("a", 1);
+        database.save(tracked);
+
+        Tracked projected = database.<Tracked>select().from(Tracked.class).columns("value").prepare().getResults().get(0);
+        projected.value = 2;
+        database.save(projected);
+
+        Tracked found = database.<Tracked>select().from(Tracked.class).prepare().getResults().get(0);
+        assertEquals("a", found.name);
+        assertEquals(2, found.value);
+    }
+
+    @Test
+    public void testProjectedPage() {
+        for (int i = 0; i < 5; i++) {
+            database.save(new Plain("p" + i, 5 - i));
+        }
+
+        Page<Plain> page = database.<Plain>select().from(Plain.class).columns("value").orderBy("value").page(3);
+        assertEquals(3, page.getResults().size());
+        assertEquals(1, page.getResults().get(0).value);
+        assertEquals(null, page.getResults().get(0).name);
+
+        Page<Plain> last = database.<Plain>select().from(Plain.class).columns("value").orderBy("value").seekAfter(page.getNextToken()).page(3);
+        assertEquals(2, last.getResults().size());
+        assertEquals(5, last.getResults().get(1).value);
+
+        try {
+            database.<Plain>select().from(Plain.class).columns("name").orderBy("value").page(3);
+            fail("The order column was not selected");
+        } catch (QueryException expected) {
+        }
+    }
+}
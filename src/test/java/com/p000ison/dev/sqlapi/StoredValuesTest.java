@@ -0,0 +1,109 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 13:05
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the values of columns which are set after loading, while multiple threads query the same table
+ */
+public class StoredValuesTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "stored")
+    public static class Stored implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value", saveValueAfterLoading = true)
+        public int value;
+
+        public Stored() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("stored", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Stored.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentSelects() throws Exception {
+        final int rows = 200, threads = 4, selects = 10;
+        for (int i = 1; i <= rows; i++) {
+            Stored stored = new Stored();
+            stored.value = i;
+            database.addInsertBatch(stored);
+        }
+        database.executeInsertBatch(Stored.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<Stored>>> futures = new ArrayList<Future<List<Stored>>>();
+        try {
+            for (int i = 0; i < threads * selects; i++) {
+                futures.add(executor.submit(new Callable<List<Stored>>() {
+                    @Override
+                    public List<Stored> call() {
+                        return database.<Stored>select().from(Stored.class).prepare().getResults();
+                    }
+                }));
+            }
+
+            List<Stored> loaded = new ArrayList<Stored>();
+            for (Future<List<Stored>> future : futures) {
+                loaded.addAll(future.get());
+            }
+            database.saveStoredValues(Stored.class);
+
+            assertEquals(rows * threads * selects, loaded.size());
+            for (Stored stored : loaded) {
+                assertEquals(stored.id, stored.value);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:40
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.exception.QueryException;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests transactions on a file-backed SQLite database, which has only one connection for writing
+ */
+public class TransactionTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "entry", cacheSize = 16, dirtyTracking = true)
+    public static class Entry implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Entry() {
+        }
+
+        public Entry(int value) {
+            this.value = value;
+        }
+    }
+
+    @DatabaseTable(name = "other", cacheSize = 16, dirtyTracking = true)
+    public static class Other implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Other() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("transaction", ".db");
+        SQLiteConfiguration configuration = new SQLiteConfiguration(file);
+        //a deadlock makes the waiting writer fail instead of hanging the test
+        configuration.setBorrowTimeout(5000);
+        database = new SQLiteDatabase(configuration);
+        database.registerTable(Entry.class);
+        database.registerTable(Other.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    private long count() {
+        return database.<Entry>select().from(Entry.class).count();
+    }
+
+    @Test
+    public void testRollbackToSavepoint() {
+        database.begin();
+        Entry outer = new Entry(1);
+        database.save(outer);
+
+        database.begin();
+        assertTrue(database.isInTransaction());
+        Entry inner = new Entry(2);
+        database.save(inner);
+        assertEquals(2, count());
+        database.rollback();
+
+        //the outer transaction is still running and keeps its entry
+        assertTrue(database.isInTransaction());
+        assertEquals(1, count());
+        database.commit();
+
+        assertFalse(database.isInTransaction());
+        assertNotNull(database.find(Entry.class, outer.id));
+        assertNull(database.find(Entry.class, inner.id));
+    }
+
+    @Test
+    public void testRollbackClearsCacheAndTracker() {
+        Entry entry = new Entry(1);
+        database.save(entry);
+
+        RegisteredTable table = database.getRegisteredTable(Entry.class);
+        assertEquals(1, table.getEntityCache().size());
+        assertEquals(1, table.getDirtyTracker().size());
+
+        try {
+            database.inTransaction(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Entry changed = database.find(Entry.class, 1);
+                    changed.value = 2;
+                    database.save(changed);
+                    throw new IllegalStateException("rollback");
+                }
+            });
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertEquals(0, table.getEntityCache().size());
+        assertEquals(0, table.getDirtyTracker().size());
+        //the cached object was changed in memory, so it must not be returned anymore
+        assertEquals(1, database.find(Entry.class, 1).value);
+    }
+
+    @Test
+    public void testRollbackKeepsCachesOfOtherTables() {
+        database.save(new Other());
+        RegisteredTable other = database.getRegisteredTable(Other.class);
+        RegisteredTable entries = database.getRegisteredTable(Entry.class);
+
+        database.begin();
+        database.save(new Entry(1));
+        database.begin();
+        database.save(new Other());
+        database.commit();
+        database.begin();
+        database.save(new Entry(2));
+        assertEquals(2, entries.getEntityCache().size());
+        assertEquals(2, other.getEntityCache().size());
+
+        //only the entries were written after the inner savepoint
+        database.rollback();
+        assertEquals(0, entries.getEntityCache().size());
+        assertEquals(2, other.getEntityCache().size());
+
+        //the committed savepoint belongs to the outer transaction
+        database.rollback();
+        assertEquals(0, other.getEntityCache().size());
+        assertFalse(database.isInTransaction());
+    }
+
+    @Test
+    public void testUntouchedTableKeepsCache() {
+        Other other = new Other();
+        database.save(other);
+        RegisteredTable table = database.getRegisteredTable(Other.class);
+
+        try {
+            database.inTransaction(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    database.save(new Entry(1));
+                    database.find(Other.class, 1);
+                    throw new IllegalStateException("rollback");
+                }
+            });
+        } catch (IllegalStateException ignored) {
+        }
+
+        assertEquals(1, table.getEntityCache().size());
+        assertEquals(1, table.getDirtyTracker().size());
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void testRollbackFailureSuppressed() {
+        try {
+            database.inTransaction(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    //the rollback fails, since the transaction is not running anymore
+                    database.commit();
+                    throw new IllegalStateException("callback");
+                }
+            });
+            fail("The exception of the callback must be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("callback", e.getMessage());
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0] instanceof QueryException);
+        }
+        assertFalse(database.isInTransaction());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentSaveAndTransactions() throws Exception {
+        final int threads = 4, writes = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < writes; j++) {
+                            database.save(new Entry(j));
+                        }
+                        return null;
+                    }
+                }));
+
+                final boolean fail = i % 2 == 0;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < writes; j++) {
+                            try {
+                                database.inTransaction(new Callable<Void>() {
+                                    @Override
+                                    public Void call() {
+                                        database.save(new Entry(-1));
+                                        database.save(new Entry(-2));
+                                        if (fail) {
+                                            throw new IllegalStateException("rollback");
+                                        }
+                                        return null;
+                                    }
+                                });
+                            } catch (IllegalStateException ignored) {
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //the plain saves and the committed transactions are written, the rolled back ones are not
+        assertEquals(threads * writes + threads / 2 * writes * 2, count());
+        assertFalse(database.isInTransaction());
+    }
+
+    @Test(timeout = 20000)
+    public void testWriteWhileTransactionLocksTable() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    started.await();
+                    database.save(new Entry(1));
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        };
+        writer.start();
+
+        database.inTransaction(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                //the writer waits for the connection of this transaction, it must not hold the lock of the table
+                awaitBlocked(writer);
+                database.save(new Entry(2));
+                return null;
+            }
+        });
+
+        writer.join();
+        assertNull(failure.get());
+        assertEquals(2, count());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (System.currentTimeMillis() < deadline) {
+            //waiting for a free connection is timed, unlike waiting for the latch or a table lock
+            if (thread.getState() == Thread.State.TIMED_WAITING) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertTrue("The writer did not wait for the transaction", false);
+    }
+}
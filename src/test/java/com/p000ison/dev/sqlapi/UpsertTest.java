@@ -0,0 +1,119 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 14:20
+ */
+
+package com.p000ison.dev.sqlapi;
+
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that saving a existing entry updates it instead of replacing it
+ */
+public class UpsertTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "entry")
+    public static class Entry implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+
+        public Entry() {
+        }
+    }
+
+    /**
+     * The same table with a column which {@link Entry} does not know
+     */
+    @DatabaseTable(name = "entry")
+    public static class WideEntry implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "value")
+        public int value;
+        @DatabaseColumn(position = 2, databaseName = "note")
+        public String note;
+
+        public WideEntry() {
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("upsert", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(WideEntry.class);
+        database.registerTable(Entry.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    @Test
+    public void testSaveKeepsUnregisteredColumns() {
+        WideEntry wide = new WideEntry();
+        wide.value = 1;
+        wide.note = "kept";
+        database.save(wide);
+
+        Entry entry = database.find(Entry.class, wide.id);
+        entry.value = 2;
+        database.save(entry);
+
+        WideEntry found = database.find(WideEntry.class, wide.id);
+        assertEquals(2, found.value);
+        assertEquals("kept", found.note);
+    }
+
+    @Test
+    public void testSaveBatchKeepsUnregisteredColumns() {
+        WideEntry wide = new WideEntry();
+        wide.note = "kept";
+        database.save(wide);
+
+        Entry existing = database.find(Entry.class, wide.id);
+        existing.value = 3;
+        Entry created = new Entry();
+        created.value = 4;
+        database.addUpsertBatch(existing);
+        database.addUpsertBatch(created);
+        database.executeUpsertBatch(Entry.class);
+
+        WideEntry found = database.find(WideEntry.class, wide.id);
+        assertEquals(3, found.value);
+        assertEquals("kept", found.note);
+        assertEquals(2, database.<Entry>select().from(Entry.class).count());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 17:20
+ */
+
+
+package com.p000ison.dev.sqlapi.codec;
+
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CodecTest {
+
+    public static class Point implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private int x;
+        private long y;
+        private double weight;
+        private boolean visible;
+        private char symbol;
+        private Integer layer;
+        private String name;
+        private transient int cached = -1;
+
+        public Point() {
+        }
+
+        public Point(int x, long y, String name) {
+            this.x = x;
+            this.y = y;
+            this.name = name;
+            this.weight = 0.5;
+            this.visible = true;
+            this.symbol = 'p';
+            this.layer = 3;
+        }
+    }
+
+    public static class NamedPoint extends Point {
+        private static final long serialVersionUID = 1L;
+        private String label;
+
+        public NamedPoint() {
+        }
+
+        public NamedPoint(String label) {
+            super(1, 2, "named");
+            this.label = label;
+        }
+    }
+
+    /**
+     * The class has a field which is not stored by its fields
+     */
+    public static class Path implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private List<String> points = new ArrayList<String>();
+    }
+
+    public interface Shape extends BinarySerializable {
+    }
+
+    public static class Circle implements Shape {
+        private int radius;
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeInt(radius);
+        }
+
+        @Override
+        public void readFrom(DataInput in) throws IOException {
+            radius = in.readInt();
+        }
+    }
+
+    private static Object roundTrip(BinaryCodec codec, Object value, Class<?> type) throws IOException {
+        return codec.decode(codec.encode(value, type), type);
+    }
+
+    @Test
+    public void testFields() throws IOException {
+        Point point = new Point(-5, 1L << 40, "a\u00e4\u20ac\ud83d\ude00");
+        point.cached = 7;
+        Point read = (Point) roundTrip(new FieldCodec(), point, Point.class);
+
+        assertEquals(-5, read.x);
+        assertEquals(1L << 40, read.y);
+        assertEquals(0.5, read.weight, 0);
+        assertTrue(read.visible);
+        assertEquals('p', read.symbol);
+        assertEquals(Integer.valueOf(3), read.layer);
+        assertEquals(point.name, read.name);
+        //transient fields keep the value of the constructor
+        assertEquals(-1, read.cached);
+    }
+
+    @Test
+    public void testNullsAndLongStrings() throws IOException {
+        Point point = new Point();
+        Point read = (Point) roundTrip(new FieldCodec(), point, Point.class);
+        assertNull(read.layer);
+        assertNull(read.name);
+
+        char[] chars = new char[100000];
+        Arrays.fill(chars, '\u00e4');
+        point.name = new String(chars);
+        assertEquals(point.name, ((Point) roundTrip(new FieldCodec(), point, Point.class)).name);
+    }
+
+    @Test
+    public void testSmallerThanSerialization() throws IOException {
+        Point point = new Point(1, 2, "point");
+        int fields = new FieldCodec().encode(point, Point.class).length;
+        int serialized = new SerializationCodec().encode(point, Point.class).length;
+        assertTrue(fields + " bytes are not less than " + serialized, fields < serialized / 2);
+    }
+
+    @Test
+    public void testSubclass() throws IOException {
+        Object read = roundTrip(new FieldCodec(), new NamedPoint("label"), Point.class);
+        assertSame(NamedPoint.class, read.getClass());
+        assertEquals("label", ((NamedPoint) read).label);
+        assertEquals("named", ((Point) read).name);
+    }
+
+    @Test
+    public void testFallbackToSerialization() throws IOException {
+        Path path = new Path();
+        path.points.add("a");
+        byte[] data = new FieldCodec().encode(path, Path.class);
+        assertEquals((byte) 0xAC, data[0]);
+        assertEquals(Arrays.asList("a"), ((Path) new FieldCodec().decode(data, Path.class)).points);
+    }
+
+    @Test
+    public void testReadsSerializedBlobs() throws IOException {
+        byte[] serialized = new SerializationCodec().encode(new Point(4, 5, "old"), Point.class);
+        Point read = (Point) new FieldCodec().decode(serialized, Point.class);
+        assertEquals(4, read.x);
+        assertEquals("old", read.name);
+    }
+
+    @Test
+    public void testCompactInterfaceColumn() throws IOException {
+        Circle circle = new Circle();
+        circle.radius = 12;
+        CompactCodec codec = new CompactCodec();
+
+        Object read = roundTrip(codec, circle, Shape.class);
+        assertSame(Circle.class, read.getClass());
+        assertEquals(12, ((Circle) read).radius);
+        //the class name is only stored if the value is not of the column type
+        assertEquals(5, codec.encode(circle, Circle.class).length);
+        assertEquals(12, ((Circle) roundTrip(codec, circle, Circle.class)).radius);
+    }
+
+    @Test
+    public void testExactBufferNotCopied() throws IOException {
+        BlobBuffer buffer = BlobBuffer.exact(4);
+        buffer.writeInt(42);
+        byte[] bytes = buffer.release();
+        assertEquals(4, bytes.length);
+        assertEquals(42, new BlobInput(bytes).readInt());
+
+        BlobBuffer shared = BlobBuffer.acquire();
+        shared.writeUTF("abc");
+        assertArrayEquals(new byte[]{0, 3, 'a', 'b', 'c'}, shared.release());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 14:00
+ */
+
+package com.p000ison.dev.sqlapi.jbdc;
+
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the pool replaces broken connections when they are borrowed
+ */
+public class ConnectionValidationTest {
+
+    private File file;
+    private SQLiteDatabase database;
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("validation", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        //validates every borrowed connection
+        pool = new ConnectionPool(database, 0, 2, 60000L, 2000L, 0L, 16);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        database.close();
+        file.delete();
+    }
+
+    @Test
+    public void testValidConnection() {
+        PooledConnection connection = pool.borrow();
+        try {
+            assertTrue(connection.isValid());
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    @Test
+    public void testBrokenConnection() {
+        Connection broken = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("isValid")) {
+                    //like a driver which implements a older JDBC version
+                    throw new AbstractMethodError();
+                }
+                throw new SQLException("Communications link failure");
+            }
+        });
+
+        assertFalse(new PooledConnection(pool, broken, 16).isValid());
+    }
+
+    @Test
+    public void testClosedConnectionIsReplaced() throws SQLException {
+        PooledConnection first = pool.borrow();
+        pool.release(first);
+        PooledConnection second = pool.borrow();
+        pool.release(second);
+        //the idle connection is reused as long as it works
+        assertSame(first, second);
+
+        first.getConnection().close();
+
+        PooledConnection third = pool.borrow();
+        try {
+            assertNotSame(first, third);
+            assertTrue(third.isValid());
+        } finally {
+            pool.release(third);
+        }
+    }
+
+    @Test
+    public void testKeepAlive() throws SQLException {
+        PooledConnection first = pool.borrow();
+        pool.release(first);
+
+        pool.keepAlive();
+        PooledConnection second = pool.borrow();
+        pool.release(second);
+        //the working connection stays idle
+        assertSame(first, second);
+
+        first.getConnection().close();
+        pool.keepAlive();
+
+        PooledConnection third = pool.borrow();
+        try {
+            assertNotSame(first, third);
+            assertTrue(third.isValid());
+        } finally {
+            pool.release(third);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 16:20
+ */
+
+
+package com.p000ison.dev.sqlapi.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class QueryMetricsTest {
+
+    @Test
+    public void testShapeOfPlaceholderLists() {
+        assertEquals("SELECT id,value FROM entry WHERE id IN (?, ...);",
+                QueryMetrics.getShape("SELECT id,value FROM entry WHERE id IN (?,?,?,?,?,?,?,?);"));
+        assertEquals("SELECT id FROM entry WHERE id = ?;", QueryMetrics.getShape("SELECT id FROM entry WHERE id = ?;"));
+    }
+
+    @Test
+    public void testShapeOfBulkInserts() {
+        assertEquals("INSERT INTO entry (a,b) VALUES (?, ...), ...;",
+                QueryMetrics.getShape("INSERT INTO entry (a,b) VALUES (?,?),(?,?),(?,?);"));
+        assertEquals("INSERT INTO entry (a) VALUES (?), ...;",
+                QueryMetrics.getShape("INSERT INTO entry (a) VALUES (?),(?),(?);"));
+        assertEquals("INSERT INTO entry (a,b) SELECT ?, ... UNION ALL ...;",
+                QueryMetrics.getShape("INSERT INTO entry (a,b) SELECT ?,? UNION ALL SELECT ?,? UNION ALL SELECT ?,?;"));
+    }
+
+    @Test
+    public void testSizesShareStatistics() {
+        QueryMetrics metrics = new QueryMetrics();
+        metrics.queryExecuted("SELECT id FROM entry WHERE id IN (?,?);", null, QueryType.SELECT, 0, 10, 2, 0);
+        metrics.queryExecuted("SELECT id FROM entry WHERE id IN (?,?,?,?);", null, QueryType.SELECT, 0, 10, 4, 0);
+
+        assertEquals(1, metrics.getStatementStatistics().size());
+        QueryStatistics statistics = metrics.getStatementStatistics("SELECT id FROM entry WHERE id IN (?,?,?);");
+        assertNotNull(statistics);
+        assertEquals(6, statistics.getRows());
+    }
+
+    @Test
+    public void testOtherStatements() {
+        QueryMetrics metrics = new QueryMetrics(2);
+        for (int i = 0; i < 10; i++) {
+            metrics.queryExecuted("SELECT id FROM entry WHERE id = " + i + ';', null, QueryType.SELECT, 0, 10, 1, 0);
+        }
+
+        assertEquals(3, metrics.getStatementStatistics().size());
+        assertEquals(8, metrics.getStatementStatistics(QueryMetrics.OTHER_STATEMENTS).getRows());
+        assertNull(metrics.getStatementStatistics("SELECT id FROM entry WHERE id = 5;"));
+
+        //statements which are already recorded keep their entry
+        QueryStatistics first = metrics.getStatementStatistics("SELECT id FROM entry WHERE id = 0;");
+        metrics.queryExecuted("SELECT id FROM entry WHERE id = 0;", null, QueryType.SELECT, 0, 10, 1, 0);
+        assertSame(first, metrics.getStatementStatistics("SELECT id FROM entry WHERE id = 0;"));
+        assertEquals(2, first.getRows());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 16:40
+ */
+
+
+package com.p000ison.dev.sqlapi.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the bounded queue and the lanes of the AsyncDatabase, the operations do not use the database
+ */
+public class AsyncDatabaseTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+    private AsyncDatabase async;
+
+    @Before
+    public void setUp() {
+        async = new AsyncDatabase(null, 1, 3);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        async.shutdown();
+    }
+
+    private Callable<Integer> blocking() {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws InterruptedException {
+                started.countDown();
+                release.await();
+                return 0;
+            }
+        };
+    }
+
+    private Callable<Integer> record(final int value) {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                executed.add(value);
+                return value;
+            }
+        };
+    }
+
+    @Test(timeout = 10000)
+    public void testRejectedAtSubmit() throws Exception {
+        Future<Integer> blocked = async.submit("a", blocking(), null);
+        started.await();
+
+        List<Future<Integer>> accepted = new ArrayList<Future<Integer>>();
+        accepted.add(async.submit("a", record(1), null));
+        accepted.add(async.submit("b", record(2), null));
+        accepted.add(async.submit(null, record(3), null));
+        try {
+            async.submit("a", record(4), null);
+            fail("The operation must be rejected");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        release.countDown();
+        assertEquals(0, (int) blocked.get());
+        for (int i = 0; i < accepted.size(); i++) {
+            assertEquals(i + 1, (int) accepted.get(i).get());
+        }
+
+        //the finished operations do not wait anymore
+        assertEquals(5, (int) async.submit("a", record(5), null).get());
+    }
+
+    @Test(timeout = 10000)
+    public void testLaneRunsAfterShutdown() throws Exception {
+        async.submit("a", blocking(), null);
+        started.await();
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 1; i <= 3; i++) {
+            futures.add(async.submit("a", record(i), null));
+        }
+
+        async.shutdown();
+        release.countDown();
+        assertTrue(async.awaitTermination(5, TimeUnit.SECONDS));
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        assertEquals(3, executed.size());
+        assertEquals(Integer.valueOf(1), executed.get(0));
+        assertEquals(Integer.valueOf(2), executed.get(1));
+        assertEquals(Integer.valueOf(3), executed.get(2));
+
+        try {
+            async.submit("a", record(4), null);
+            fail("The operation must be rejected after the shutdown");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+}
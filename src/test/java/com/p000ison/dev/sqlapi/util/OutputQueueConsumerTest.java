@@ -0,0 +1,207 @@
+/*
+ * This file is part of SQLDatabaseAPI (2012).
+ *
+ * SQLDatabaseAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SQLDatabaseAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SQLDatabaseAPI.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Last modified: 19.10.26 18:50
+ */
+
+package com.p000ison.dev.sqlapi.util;
+
+import com.p000ison.dev.sqlapi.Database;
+import com.p000ison.dev.sqlapi.RegisteredTable;
+import com.p000ison.dev.sqlapi.TableObject;
+import com.p000ison.dev.sqlapi.annotation.DatabaseColumn;
+import com.p000ison.dev.sqlapi.annotation.DatabaseTable;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteConfiguration;
+import com.p000ison.dev.sqlapi.sqlite.SQLiteDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the OutputQueueConsumer on a file-backed SQLite database
+ */
+public class OutputQueueConsumerTest {
+
+    private File file;
+    private Database database;
+
+    @DatabaseTable(name = "item", dirtyTracking = true)
+    public static class Item implements TableObject {
+        @DatabaseColumn(position = 0, databaseName = "id", id = true)
+        public long id;
+        @DatabaseColumn(position = 1, databaseName = "name", unique = true)
+        public String name;
+        @DatabaseColumn(position = 2, databaseName = "value")
+        public int value;
+
+        public Item() {
+        }
+
+        public Item(String name, int value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Flushes in the calling thread and remembers the failures
+     */
+    private static class TestConsumer extends OutputQueueConsumer {
+
+        private final List<RuntimeException> failures = new ArrayList<RuntimeException>();
+
+        TestConsumer(int maxSize, Database database) {
+            super(maxSize, database);
+        }
+
+        @Override
+        protected void handleFailure(RegisteredTable table, List<TableObject> objects, RuntimeException cause) {
+            failures.add(cause);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("queue", ".db");
+        database = new SQLiteDatabase(new SQLiteConfiguration(file));
+        database.registerTable(Item.class);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        file.delete();
+    }
+
+    @Test
+    public void testFailedFlushIsNotReplayed() {
+        Item existing = new Item("a", 1);
+        database.save(existing);
+
+        existing.value = 2;
+        //the name is already used, so inserting it fails after the update of the existing item was added to the batch
+        Item duplicate = new Item("a", 3);
+
+        TestConsumer consumer = new TestConsumer(-1, database);
+        consumer.flush(Arrays.<TableObject>asList(existing, duplicate));
+        assertEquals(1, consumer.failures.size());
+        assertEquals(1, database.find(Item.class, existing.id).value);
+
+        //the rows of the failed flush must not be written by the next batch
+        database.executeUpdateBatch(Item.class);
+        assertEquals(1, database.find(Item.class, existing.id).value);
+        assertEquals(1, database.<Item>select().from(Item.class).count());
+
+        Item other = new Item("b", 4);
+        database.save(other);
+        other.value = 5;
+        consumer.flush(Arrays.<TableObject>asList(other));
+        assertEquals(1, consumer.failures.size());
+        assertEquals(1, database.find(Item.class, existing.id).value);
+        assertEquals(5, database.find(Item.class, other.id).value);
+    }
+
+    @Test
+    public void testInterruptedWhileBlocking() {
+        TestConsumer consumer = new TestConsumer(1, database);
+        assertTrue(consumer.offerTableObject(new Item("a", 1)));
+
+        Thread.currentThread().interrupt();
+        try {
+            consumer.offerTableObject(new Item("b", 2));
+            fail("The dropped object was not reported");
+        } catch (IllegalStateException expected) {
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(1, consumer.size());
+        assertFalse(consumer.isAlive());
+    }
+
+    @Test
+    public void testFlushInsertsAndUpdates() {
+        Item existing = new Item("a", 1);
+        database.save(existing);
+        existing.value = 2;
+        Item first = new Item("b", 3), second = new Item("c", 4);
+
+        TestConsumer consumer = new TestConsumer(-1, database);
+        //the object which is queued twice is inserted once
+        consumer.flush(Arrays.<TableObject>asList(existing, first, second, first));
+        assertTrue(consumer.failures.isEmpty());
+
+        assertTrue(first.id > existing.id);
+        assertEquals(first.id + 1, second.id);
+        assertEquals(3, database.<Item>select().from(Item.class).count());
+        assertEquals(2, database.find(Item.class, existing.id).value);
+        assertEquals(4, database.find(Item.class, second.id).value);
+    }
+
+    @Test(timeout = 20000)
+    public void testShutdownDrainsQueue() throws InterruptedException {
+        TestConsumer consumer = new TestConsumer(-1, database);
+        consumer.setFlushSize(10);
+        consumer.setFlushInterval(50);
+        consumer.start();
+
+        for (int i = 0; i < 25; i++) {
+            consumer.addTableObject(new Item("item" + i, i));
+        }
+        assertTrue(consumer.shutdown(10000));
+        assertTrue(consumer.failures.isEmpty());
+        assertEquals(25, database.<Item>select().from(Item.class).count());
+
+        try {
+            consumer.addTableObject(new Item("late", 0));
+            fail("A object was queued after the shutdown");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testFullQueue() {
+        TestConsumer consumer = new TestConsumer(1, database);
+        assertTrue(consumer.offerTableObject(new Item("a", 1)));
+
+        consumer.setBackpressurePolicy(OutputQueueConsumer.BackpressurePolicy.DROP);
+        assertFalse(consumer.offerTableObject(new Item("b", 2)));
+        assertEquals(0, database.<Item>select().from(Item.class).count());
+
+        consumer.setBackpressurePolicy(OutputQueueConsumer.BackpressurePolicy.CALLER_SAVES);
+        Item saved = new Item("c", 3);
+        assertTrue(consumer.offerTableObject(saved));
+        assertEquals(3, database.find(Item.class, saved.id).value);
+
+        consumer.setBackpressurePolicy(OutputQueueConsumer.BackpressurePolicy.FAIL);
+        try {
+            consumer.offerTableObject(new Item("d", 4));
+            fail("The full queue accepted a object");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, consumer.size());
+    }
+}